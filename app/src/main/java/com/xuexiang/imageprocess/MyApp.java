@@ -21,6 +21,9 @@ import android.app.Application;
 import android.content.Context;
 import android.util.Log;
 
+import com.xuexiang.imageprocess.core.cache.DecodedImageCache;
+import com.xuexiang.imageprocess.core.cache.ResultCache;
+import com.xuexiang.imageprocess.core.metrics.ProcessMetrics;
 import com.xuexiang.xaop.XAOP;
 import com.xuexiang.xaop.util.PermissionUtils;
 import com.xuexiang.xpage.AppPageConfig;
@@ -37,6 +40,7 @@ import org.opencv.android.BaseLoaderCallback;
 import org.opencv.android.LoaderCallbackInterface;
 import org.opencv.android.OpenCVLoader;
 
+import java.io.File;
 import java.util.List;
 
 /**
@@ -52,6 +56,8 @@ public class MyApp extends Application {
         initLibs();
 
         initOpenCV();
+
+        initImageProcess();
     }
 
     /**
@@ -97,6 +103,20 @@ public class MyApp extends Application {
         }
     }
 
+    /**
+     * 初始化图片处理
+     */
+    private void initImageProcess() {
+        //处理结果被内存淘汰后写入磁盘，再次查看时无需重新计算
+        ResultCache.getDefault().setDiskCache(new File(getCacheDir(), "process_result"), 50 * 1024 * 1024);
+        //解码结果以未压缩文件保存，换一种处理重新打开同一张图片时直接映射，无需再次解码
+        DecodedImageCache.getDefault().setDiskCache(new File(getCacheDir(), "decoded_raw"), 200 * 1024 * 1024);
+        if (BuildConfig.DEBUG) {
+            //调试时实时输出各阶段的耗时
+            ProcessMetrics.getDefault().addListener(new ProcessMetrics.LoggerListener());
+        }
+    }
+
     private BaseLoaderCallback mLoaderCallback = new BaseLoaderCallback(this) {
         @Override
         public void onManagerConnected(int status) {
@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2019 xuexiangjys(xuexiangjys@163.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.xuexiang.imageprocess.core.backend;
+
+/**
+ * 基于字节数组的图片，像素按行连续存储（BGR/BGRA交错），供纯Java后端使用
+ *
+ * @author xuexiang
+ * @since 2026-10-18 19:10
+ */
+public final class ByteImage {
+
+    private int mWidth;
+    private int mHeight;
+    private int mChannels;
+    private byte[] mData;
+
+    public ByteImage() {
+        mData = new byte[0];
+    }
+
+    public ByteImage(int width, int height, int channels) {
+        this(width, height, channels, new byte[width * height * channels]);
+    }
+
+    /**
+     * 包装已有的像素数据，不拷贝
+     *
+     * @param width    宽
+     * @param height   高
+     * @param channels 通道数
+     * @param data     像素数据，长度不小于width * height * channels
+     */
+    public ByteImage(int width, int height, int channels, byte[] data) {
+        if (data.length < width * height * channels) {
+            throw new IllegalArgumentException("data is too small for " + width + "x" + height + "x" + channels);
+        }
+        mWidth = width;
+        mHeight = height;
+        mChannels = channels;
+        mData = data;
+    }
+
+    /**
+     * 按需分配，已有的缓冲足够时直接复用（内容不清空）
+     *
+     * @param width    宽
+     * @param height   高
+     * @param channels 通道数
+     * @return
+     */
+    public ByteImage create(int width, int height, int channels) {
+        int size = width * height * channels;
+        if (mData.length < size) {
+            mData = new byte[size];
+        }
+        mWidth = width;
+        mHeight = height;
+        mChannels = channels;
+        return this;
+    }
+
+    public int getWidth() {
+        return mWidth;
+    }
+
+    public int getHeight() {
+        return mHeight;
+    }
+
+    public int getChannels() {
+        return mChannels;
+    }
+
+    /**
+     * @return 每行的字节数
+     */
+    public int getStride() {
+        return mWidth * mChannels;
+    }
+
+    /**
+     * @return 有效的字节数
+     */
+    public int getByteCount() {
+        return mWidth * mHeight * mChannels;
+    }
+
+    /**
+     * @return 像素数据，长度可能大于{@link #getByteCount()}
+     */
+    public byte[] getData() {
+        return mData;
+    }
+
+    /**
+     * 获取像素值
+     *
+     * @param x       列
+     * @param y       行
+     * @param channel 通道
+     * @return 0~255
+     */
+    public int get(int x, int y, int channel) {
+        return mData[(y * mWidth + x) * mChannels + channel] & 0xFF;
+    }
+
+    /**
+     * 设置像素值
+     *
+     * @param x       列
+     * @param y       行
+     * @param channel 通道
+     * @param value   0~255
+     */
+    public void set(int x, int y, int channel, int value) {
+        mData[(y * mWidth + x) * mChannels + channel] = (byte) value;
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2019 xuexiangjys(xuexiangjys@163.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.xuexiang.imageprocess.core.backend;
+
+/**
+ * 图片处理后端，不同的实现（OpenCV、纯Java）提供相同的基础操作，可互相替换及对比
+ * <p>
+ * 所有操作的结果写入dst，dst的尺寸和通道数不匹配时由实现重新分配。除threshold外，src与dst不能是同一个对象。
+ *
+ * @param <I> 图片类型
+ * @author xuexiang
+ * @since 2026-10-18 19:05
+ */
+public interface IImageBackend<I> {
+
+    /**
+     * @return 后端名称
+     */
+    String getName();
+
+    /**
+     * 创建图片
+     *
+     * @param width    宽
+     * @param height   高
+     * @param channels 通道数
+     * @return
+     */
+    I create(int width, int height, int channels);
+
+    /**
+     * 灰度化（BGR转单通道）
+     *
+     * @param src
+     * @param dst
+     */
+    void grayScale(I src, I dst);
+
+    /**
+     * 阈值处理（THRESH_BINARY），支持原地处理
+     *
+     * @param src    单通道图片
+     * @param dst
+     * @param thresh 阈值
+     * @param maxval 最大阈值， 一般为255
+     */
+    void threshold(I src, I dst, double thresh, double maxval);
+
+    /**
+     * 二值化（先灰度化再阈值处理）
+     *
+     * @param src
+     * @param dst
+     * @param thresh 阈值
+     * @param maxval 最大阈值， 一般为255
+     */
+    void binary(I src, I dst, double thresh, double maxval);
+
+    /**
+     * 去除指定通道上的颜色
+     *
+     * @param src
+     * @param dst
+     * @param channelIndex 颜色通道：0-蓝色，1-绿色，2-红色
+     * @param thresh       阈值
+     * @param maxval       最大阈值， 一般为255
+     */
+    void clearColor(I src, I dst, int channelIndex, double thresh, double maxval);
+
+    /**
+     * 去除彩色，只保留黑色笔迹
+     *
+     * @param src
+     * @param dst
+     * @param thresh 亮度阈值
+     * @param spread 色彩阈值，通道间差值大于该值即视为彩色
+     * @param maxval 最大阈值， 一般为255
+     */
+    void clearColour(I src, I dst, double thresh, double spread, double maxval);
+}
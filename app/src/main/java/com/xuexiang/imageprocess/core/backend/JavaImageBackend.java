@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2019 xuexiangjys(xuexiangjys@163.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.xuexiang.imageprocess.core.backend;
+
+import com.xuexiang.imageprocess.core.kernel.PixelKernels;
+import com.xuexiang.imageprocess.core.parallel.RowBands;
+
+/**
+ * 纯Java实现的图片处理后端，不依赖OpenCV，可直接在JVM（服务端、单元测试）上运行
+ * <p>
+ * 按行带并行调用{@link PixelKernels}，内核循环中不产生对象。
+ *
+ * @author xuexiang
+ * @since 2026-10-18 19:20
+ */
+public class JavaImageBackend implements IImageBackend<ByteImage> {
+
+    @Override
+    public String getName() {
+        return "java";
+    }
+
+    @Override
+    public ByteImage create(int width, int height, int channels) {
+        return new ByteImage(width, height, channels);
+    }
+
+    @Override
+    public void grayScale(ByteImage src, ByteImage dst) {
+        checkNotSame(src, dst);
+        final int width = src.getWidth();
+        final int channels = src.getChannels();
+        dst.create(width, src.getHeight(), 1);
+        if (channels == 1) {
+            System.arraycopy(src.getData(), 0, dst.getData(), 0, src.getByteCount());
+            return;
+        }
+        final byte[] in = src.getData();
+        final byte[] out = dst.getData();
+        RowBands.forEach(src.getHeight(), new RowBands.BandTask() {
+            @Override
+            public void run(int worker, int rowStart, int rowEnd) {
+                PixelKernels.grayScale(in, rowStart * width * channels, channels, out, rowStart * width, (rowEnd - rowStart) * width);
+            }
+        });
+    }
+
+    @Override
+    public void threshold(ByteImage src, ByteImage dst, double thresh, double maxval) {
+        final int stride = src.getStride();
+        if (src != dst) {
+            dst.create(src.getWidth(), src.getHeight(), src.getChannels());
+        }
+        final byte[] in = src.getData();
+        final byte[] out = dst.getData();
+        final int intThresh = PixelKernels.toIntThresh(thresh);
+        final byte byteMaxVal = PixelKernels.toByte(maxval);
+        RowBands.forEach(src.getHeight(), new RowBands.BandTask() {
+            @Override
+            public void run(int worker, int rowStart, int rowEnd) {
+                int offset = rowStart * stride;
+                PixelKernels.threshold(in, offset, out, offset, (rowEnd - rowStart) * stride, intThresh, byteMaxVal);
+            }
+        });
+    }
+
+    @Override
+    public void binary(ByteImage src, ByteImage dst, double thresh, double maxval) {
+        grayScale(src, dst);
+        threshold(dst, dst, thresh, maxval);
+    }
+
+    @Override
+    public void clearColor(ByteImage src, ByteImage dst, final int channelIndex, double thresh, double maxval) {
+        checkNotSame(src, dst);
+        final int width = src.getWidth();
+        final int channels = src.getChannels();
+        if (channelIndex < 0 || channelIndex >= channels) {
+            throw new IllegalArgumentException("channelIndex out of range:" + channelIndex);
+        }
+        dst.create(width, src.getHeight(), 1);
+        final byte[] in = src.getData();
+        final byte[] out = dst.getData();
+        final int intThresh = PixelKernels.toIntThresh(thresh);
+        final byte byteMaxVal = PixelKernels.toByte(maxval);
+        RowBands.forEach(src.getHeight(), new RowBands.BandTask() {
+            @Override
+            public void run(int worker, int rowStart, int rowEnd) {
+                PixelKernels.extractThreshold(in, rowStart * width * channels, channels, channelIndex,
+                        out, rowStart * width, (rowEnd - rowStart) * width, intThresh, byteMaxVal);
+            }
+        });
+    }
+
+    @Override
+    public void clearColour(ByteImage src, ByteImage dst, double thresh, double spread, double maxval) {
+        if (src.getChannels() < 3) {
+            //没有色彩信息，退化为二值化
+            binary(src, dst, thresh, maxval);
+            return;
+        }
+        checkNotSame(src, dst);
+        final int width = src.getWidth();
+        final int channels = src.getChannels();
+        dst.create(width, src.getHeight(), 1);
+        final byte[] in = src.getData();
+        final byte[] out = dst.getData();
+        final int intThresh = PixelKernels.toIntThresh(thresh);
+        final int intSpread = PixelKernels.toIntThresh(spread);
+        final byte byteMaxVal = PixelKernels.toByte(maxval);
+        RowBands.forEach(src.getHeight(), new RowBands.BandTask() {
+            @Override
+            public void run(int worker, int rowStart, int rowEnd) {
+                PixelKernels.clearColour(in, rowStart * width * channels, channels, out, rowStart * width,
+                        (rowEnd - rowStart) * width, intThresh, intSpread, byteMaxVal);
+            }
+        });
+    }
+
+    private static void checkNotSame(ByteImage src, ByteImage dst) {
+        if (src == dst) {
+            throw new IllegalArgumentException("src and dst must be different images!");
+        }
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2019 xuexiangjys(xuexiangjys@163.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.xuexiang.imageprocess.core.backend;
+
+import com.xuexiang.imageprocess.core.kernel.PixelKernels;
+import com.xuexiang.imageprocess.core.parallel.RowBands;
+
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.imgproc.Imgproc;
+
+import static org.opencv.core.CvType.CV_8UC1;
+import static org.opencv.imgproc.Imgproc.COLOR_BGR2GRAY;
+import static org.opencv.imgproc.Imgproc.THRESH_BINARY;
+
+/**
+ * 基于OpenCV的图片处理后端，{@link com.xuexiang.imageprocess.utils.ImageProcessUtils}的基础方法均由其实现
+ * <p>
+ * 只依赖OpenCV的core和imgproc，不依赖Android。
+ *
+ * @author xuexiang
+ * @since 2026-10-18 19:30
+ */
+public class OpenCVImageBackend implements IImageBackend<Mat> {
+
+    @Override
+    public String getName() {
+        return "opencv";
+    }
+
+    @Override
+    public Mat create(int width, int height, int channels) {
+        return new Mat(height, width, CvType.CV_8UC(channels));
+    }
+
+    @Override
+    public void grayScale(Mat src, Mat dst) {
+        if (src.channels() == 1) {
+            src.copyTo(dst);
+        } else {
+            Imgproc.cvtColor(src, dst, COLOR_BGR2GRAY);
+        }
+    }
+
+    @Override
+    public void threshold(Mat src, Mat dst, double thresh, double maxval) {
+        Imgproc.threshold(src, dst, thresh, maxval, THRESH_BINARY);
+    }
+
+    @Override
+    public void binary(Mat src, Mat dst, double thresh, double maxval) {
+        //先灰度化（直接写入dst，省去中间Mat）
+        grayScale(src, dst);
+        //再原地二值化
+        threshold(dst, dst, thresh, maxval);
+    }
+
+    @Override
+    public void clearColor(Mat src, Mat dst, int channelIndex, double thresh, double maxval) {
+        //只提取指定通道的颜色到dst，不再拆分出全部通道
+        Core.extractChannel(src, dst, channelIndex);
+        //原地二值化，不产生临时Mat
+        threshold(dst, dst, thresh, maxval);
+    }
+
+    @Override
+    public void clearColour(final Mat src, final Mat dst, double thresh, double spread, double maxval) {
+        if (src.channels() < 3) {
+            //没有色彩信息，退化为二值化
+            binary(src, dst, thresh, maxval);
+            return;
+        }
+        final int cols = src.cols();
+        final int channels = src.channels();
+        final int intThresh = PixelKernels.toIntThresh(thresh);
+        final int intSpread = PixelKernels.toIntThresh(spread);
+        final byte byteMaxVal = PixelKernels.toByte(maxval);
+        final byte[][] srcBuffers = new byte[RowBands.getParallelism()][];
+        final byte[][] dstBuffers = new byte[RowBands.getParallelism()][];
+        dst.create(src.rows(), cols, CV_8UC1);
+        RowBands.forEach(src.rows(), new RowBands.BandTask() {
+            @Override
+            public void run(int worker, int rowStart, int rowEnd) {
+                int pixels = (rowEnd - rowStart) * cols;
+                byte[] in = srcBuffers[worker];
+                if (in == null || in.length != pixels * channels) {
+                    in = srcBuffers[worker] = new byte[pixels * channels];
+                    dstBuffers[worker] = new byte[pixels];
+                }
+                byte[] out = dstBuffers[worker];
+                src.get(rowStart, 0, in);
+                PixelKernels.clearColour(in, 0, channels, out, 0, pixels, intThresh, intSpread, byteMaxVal);
+                dst.put(rowStart, 0, out);
+            }
+        });
+    }
+
+    /**
+     * 将ByteImage拷贝为Mat
+     *
+     * @param src
+     * @param dst 输出，可复用
+     */
+    public static void toMat(ByteImage src, Mat dst) {
+        dst.create(src.getHeight(), src.getWidth(), CvType.CV_8UC(src.getChannels()));
+        if (src.getData().length == src.getByteCount()) {
+            dst.put(0, 0, src.getData());
+        } else {
+            byte[] row = new byte[src.getStride()];
+            for (int y = 0; y < src.getHeight(); y++) {
+                System.arraycopy(src.getData(), y * row.length, row, 0, row.length);
+                dst.put(y, 0, row);
+            }
+        }
+    }
+
+    /**
+     * 将8位的Mat拷贝为ByteImage
+     *
+     * @param src
+     * @param dst 输出，可复用
+     */
+    public static void toByteImage(Mat src, ByteImage dst) {
+        dst.create(src.cols(), src.rows(), src.channels());
+        if (dst.getData().length == dst.getByteCount()) {
+            src.get(0, 0, dst.getData());
+        } else {
+            byte[] row = new byte[dst.getStride()];
+            for (int y = 0; y < src.rows(); y++) {
+                src.get(y, 0, row);
+                System.arraycopy(row, 0, dst.getData(), y * row.length, row.length);
+            }
+        }
+    }
+}
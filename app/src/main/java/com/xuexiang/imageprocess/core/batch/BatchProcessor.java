@@ -0,0 +1,321 @@
+/*
+ * Copyright (C) 2019 xuexiangjys(xuexiangjys@163.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.xuexiang.imageprocess.core.batch;
+
+import com.xuexiang.imageprocess.core.decode.ImageDecoder;
+import com.xuexiang.imageprocess.core.memory.NativeMemoryGovernor;
+import com.xuexiang.imageprocess.core.pipeline.ImagePipeline;
+import com.xuexiang.imageprocess.core.pool.MatPool;
+import com.xuexiang.xutil.file.FileUtils;
+
+import org.opencv.core.Mat;
+import org.opencv.imgcodecs.Imgcodecs;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.opencv.core.CvType.CV_8UC1;
+
+/**
+ * 批量处理器
+ * <p>
+ * 按顺序读取图片并交给流水线处理，结果通过{@link Imgcodecs#imwrite(String, Mat)}直接写入磁盘，全程不创建Bitmap。
+ * 同时处理的图片数不超过maxInFlight，因此内存占用与批量的大小无关；每张图片还需通过{@link NativeMemoryGovernor}的预算控制，
+ * 与界面上的处理共用同一份native内存预算。
+ * {@link #process(List, File, OnBatchListener)}会阻塞直到全部处理完成，需在后台线程中调用。
+ * <p>
+ * 输出文件名保留原扩展名，例如a.jpg输出为a_jpg.png，同一批次内重名时追加序号，因此不会互相覆盖；
+ * 输出目录不能是任一输入图片所在的目录，避免覆盖源文件。
+ *
+ * @author xuexiang
+ * @since 2026-10-18 17:25
+ */
+public class BatchProcessor {
+
+    /**
+     * 默认的输出格式，二值化等结果使用无损的png
+     */
+    public static final String DEFAULT_OUTPUT_EXTENSION = "png";
+
+    private static final List<String> IMAGE_EXTENSIONS = Arrays.asList("jpg", "jpeg", "png", "bmp", "webp", "tif", "tiff");
+
+    private final ImagePipeline mPipeline;
+    private final int mMaxInFlight;
+    private String mOutputExtension = DEFAULT_OUTPUT_EXTENSION;
+    private volatile boolean mCancelled;
+
+    /**
+     * 构造
+     *
+     * @param pipeline    处理流水线
+     * @param maxInFlight 同时处理的最大图片数
+     */
+    public BatchProcessor(ImagePipeline pipeline, int maxInFlight) {
+        if (pipeline == null) {
+            throw new NullPointerException("pipeline == null");
+        }
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("maxInFlight must be positive!");
+        }
+        mPipeline = pipeline;
+        mMaxInFlight = maxInFlight;
+    }
+
+    /**
+     * 设置输出文件的扩展名，决定imwrite的编码格式
+     *
+     * @param outputExtension 扩展名，例如png、jpg
+     * @return
+     */
+    public BatchProcessor setOutputExtension(String outputExtension) {
+        mOutputExtension = outputExtension;
+        return this;
+    }
+
+    /**
+     * 取消批量处理，正在处理的图片会处理完，未开始的不再处理。
+     * 在批量处理开始前调用同样有效，取消标记在本次批量处理结束时才清除
+     */
+    public void cancel() {
+        mCancelled = true;
+    }
+
+    /**
+     * 处理目录下的所有图片（不包括子目录）
+     *
+     * @param inputDir  输入目录
+     * @param outputDir 输出目录
+     * @param listener  单张图片处理完成的监听，可为null
+     * @return
+     * @throws IllegalArgumentException 输出目录与输入目录相同
+     */
+    public BatchResult processDirectory(File inputDir, File outputDir, OnBatchListener listener) {
+        if (getCanonicalFile(inputDir).equals(getCanonicalFile(outputDir))) {
+            throw new IllegalArgumentException("outputDir must not be the inputDir:" + outputDir);
+        }
+        File[] files = inputDir.listFiles(new FileFilter() {
+            @Override
+            public boolean accept(File file) {
+                return file.isFile() && isImage(file.getName());
+            }
+        });
+        List<String> imgPaths = new ArrayList<>();
+        if (files != null) {
+            Arrays.sort(files);
+            for (File file : files) {
+                imgPaths.add(file.getPath());
+            }
+        }
+        return process(imgPaths, outputDir, listener);
+    }
+
+    /**
+     * 批量处理图片
+     *
+     * @param imgPaths  图片路径
+     * @param outputDir 输出目录
+     * @param listener  单张图片处理完成的监听，在工作线程中回调，可为null
+     * @return
+     * @throws IllegalArgumentException 输出目录是某张输入图片所在的目录，或无法创建
+     * @throws Error                    处理中出现{@link OutOfMemoryError}等错误时，停止提交剩余图片，等待正在处理的图片完成后重新抛出
+     */
+    public BatchResult process(List<String> imgPaths, final File outputDir, final OnBatchListener listener) {
+        long startTime = System.currentTimeMillis();
+        if (imgPaths == null) {
+            imgPaths = Collections.emptyList();
+        }
+        checkOutputDir(imgPaths, outputDir);
+        if (!FileUtils.createOrExistsDir(outputDir)) {
+            throw new IllegalArgumentException("can't create output dir:" + outputDir);
+        }
+        Set<String> usedNames = new HashSet<>();
+        final Semaphore inFlight = new Semaphore(mMaxInFlight);
+        final AtomicInteger succeeded = new AtomicInteger();
+        final AtomicInteger failed = new AtomicInteger();
+        final AtomicReference<Error> fatal = new AtomicReference<>();
+        ExecutorService executor = Executors.newFixedThreadPool(mMaxInFlight, new BatchThreadFactory());
+        int total = 0;
+        boolean cancelled;
+        try {
+            for (final String imgPath : imgPaths) {
+                //超出同时处理的上限时等待，保证内存占用恒定
+                inFlight.acquireUninterruptibly();
+                //等待期间可能已被取消或出错
+                if (mCancelled || fatal.get() != null) {
+                    inFlight.release();
+                    break;
+                }
+                total++;
+                //输出名在提交线程中分配，保证同一批次内不重名
+                final File output = new File(outputDir, getOutputName(imgPath, mOutputExtension, usedNames));
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            processOne(imgPath, output, succeeded, failed, listener);
+                        } catch (Error e) {
+                            //虚拟机已不可靠，不再继续处理
+                            fatal.compareAndSet(null, e);
+                        } finally {
+                            inFlight.release();
+                        }
+                    }
+                });
+            }
+        } finally {
+            //等待所有正在处理的图片完成
+            inFlight.acquireUninterruptibly(mMaxInFlight);
+            inFlight.release(mMaxInFlight);
+            executor.shutdown();
+            //批量处理结束后才清除取消标记，处理开始前或进行中的取消都不会丢失
+            cancelled = mCancelled;
+            mCancelled = false;
+        }
+        Error error = fatal.get();
+        if (error != null) {
+            throw error;
+        }
+        return new BatchResult(total, succeeded.get(), failed.get(), cancelled, System.currentTimeMillis() - startTime);
+    }
+
+    private void processOne(String imgPath, File output, AtomicInteger succeeded, AtomicInteger failed, OnBatchListener listener) {
+        Mat src = null;
+        Mat dst = null;
+        Exception error = null;
+        long nativeBytes = 0;
+        try {
+            //与其他处理共用native内存预算，大图会等待其他处理完成后再解码
+            long estimated = mPipeline.estimateNativeBytes(imgPath, ImageDecoder.ORIGINAL_SIZE, ImageDecoder.ORIGINAL_SIZE);
+            NativeMemoryGovernor.getDefault().acquire(estimated);
+            nativeBytes = estimated;
+            //批量处理的图片只读一次，不经过解码缓存
+            src = ImageDecoder.decode(imgPath);
+            if (src.empty()) {
+                throw new IllegalArgumentException("can't decode image:" + imgPath);
+            }
+            dst = MatPool.getDefault().acquire(src, CV_8UC1);
+            mPipeline.process(src, dst);
+            if (!Imgcodecs.imwrite(output.getPath(), dst)) {
+                throw new IllegalStateException("can't write image:" + output);
+            }
+        } catch (Exception e) {
+            //只有单张图片的失败计入failed，Error交给process中止整个批量处理
+            error = e;
+        } finally {
+            if (src != null) {
+                src.release();
+            }
+            MatPool.getDefault().release(dst);
+            NativeMemoryGovernor.getDefault().release(nativeBytes);
+        }
+
+        if (error == null) {
+            succeeded.incrementAndGet();
+        } else {
+            failed.incrementAndGet();
+        }
+        if (listener != null) {
+            listener.onCompleted(imgPath, error == null ? output : null, error);
+        }
+    }
+
+    /**
+     * 获取输出文件名，原扩展名保留在文件名中，例如a.jpg输出为a_jpg.png，与已使用的文件名重复时追加序号
+     *
+     * @param imgPath   输入图片路径
+     * @param extension 输出扩展名
+     * @param usedNames 本批次已使用的文件名（小写），分配的文件名会加入其中
+     * @return 输出文件名
+     */
+    static String getOutputName(String imgPath, String extension, Set<String> usedNames) {
+        String baseName = new File(imgPath).getName().replace('.', '_');
+        String name = baseName + "." + extension;
+        //按小写判重，兼容大小写不敏感的文件系统
+        for (int i = 1; !usedNames.add(name.toLowerCase(Locale.US)); i++) {
+            name = baseName + "_" + i + "." + extension;
+        }
+        return name;
+    }
+
+    /**
+     * 输出目录不能是任一输入图片所在的目录，否则输出可能覆盖源文件
+     */
+    private static void checkOutputDir(List<String> imgPaths, File outputDir) {
+        File canonicalOutputDir = getCanonicalFile(outputDir);
+        for (String imgPath : imgPaths) {
+            File parent = getCanonicalFile(new File(imgPath)).getParentFile();
+            if (canonicalOutputDir.equals(parent)) {
+                throw new IllegalArgumentException("outputDir must not contain the input image:" + imgPath);
+            }
+        }
+    }
+
+    private static File getCanonicalFile(File file) {
+        try {
+            return file.getCanonicalFile();
+        } catch (IOException e) {
+            return file.getAbsoluteFile();
+        }
+    }
+
+    private static boolean isImage(String fileName) {
+        int index = fileName.lastIndexOf('.');
+        return index > 0 && IMAGE_EXTENSIONS.contains(fileName.substring(index + 1).toLowerCase(Locale.US));
+    }
+
+    /**
+     * 单张图片处理完成的监听
+     */
+    public interface OnBatchListener {
+
+        /**
+         * 单张图片处理完成
+         *
+         * @param imgPath 输入图片路径
+         * @param output  输出文件，失败时为null
+         * @param error   失败原因，成功时为null
+         */
+        void onCompleted(String imgPath, File output, Throwable error);
+    }
+
+    private static class BatchThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger mCount = new AtomicInteger(1);
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "ImageProcess-Batch-" + mCount.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
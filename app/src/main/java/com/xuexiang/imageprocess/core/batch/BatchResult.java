@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2019 xuexiangjys(xuexiangjys@163.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.xuexiang.imageprocess.core.batch;
+
+/**
+ * 批量处理的结果统计
+ *
+ * @author xuexiang
+ * @since 2026-10-18 17:20
+ */
+public class BatchResult {
+
+    private final int mTotal;
+    private final int mSucceeded;
+    private final int mFailed;
+    private final boolean mCancelled;
+    private final long mElapsedMillis;
+
+    BatchResult(int total, int succeeded, int failed, boolean cancelled, long elapsedMillis) {
+        mTotal = total;
+        mSucceeded = succeeded;
+        mFailed = failed;
+        mCancelled = cancelled;
+        mElapsedMillis = elapsedMillis;
+    }
+
+    /**
+     * @return 已提交处理的图片数
+     */
+    public int getTotal() {
+        return mTotal;
+    }
+
+    public int getSucceeded() {
+        return mSucceeded;
+    }
+
+    public int getFailed() {
+        return mFailed;
+    }
+
+    /**
+     * @return 是否被中途取消
+     */
+    public boolean isCancelled() {
+        return mCancelled;
+    }
+
+    public long getElapsedMillis() {
+        return mElapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchResult{" +
+                "total=" + mTotal +
+                ", succeeded=" + mSucceeded +
+                ", failed=" + mFailed +
+                ", cancelled=" + mCancelled +
+                ", elapsedMillis=" + mElapsedMillis +
+                '}';
+    }
+}
@@ -0,0 +1,426 @@
+/*
+ * Copyright (C) 2019 xuexiangjys(xuexiangjys@163.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.xuexiang.imageprocess.core.binary;
+
+import org.opencv.core.Mat;
+
+import static org.opencv.core.CvType.CV_8UC1;
+
+/**
+ * 按位压缩存储的二值图，每个像素占1位，每行按64位对齐存储在long数组中
+ * <p>
+ * 置位（1）表示前景，即二值图中的黑色笔迹（像素值为0），未置位表示白色背景。
+ * 与RGB_565的Bitmap相比内存减少为1/16，适合扫描文档的二值化结果。
+ * <p>
+ * 掩码之间的逻辑运算和前景计数按long整字处理，一次处理64个像素；每行末尾的填充位始终为0。
+ *
+ * @author xuexiang
+ * @since 2026-10-18 22:10
+ */
+public final class BitImage {
+
+    private static final int WORD_SHIFT = 6;
+    private static final int WORD_BITS = 1 << WORD_SHIFT;
+
+    private final int mWidth;
+    private final int mHeight;
+    private final int mWordsPerRow;
+    private final long[] mWords;
+
+    public BitImage(int width, int height) {
+        if (width < 0 || height < 0) {
+            throw new IllegalArgumentException("Invalid size: " + width + "x" + height);
+        }
+        mWidth = width;
+        mHeight = height;
+        mWordsPerRow = (width + WORD_BITS - 1) >>> WORD_SHIFT;
+        mWords = new long[mWordsPerRow * height];
+    }
+
+    /**
+     * 由单通道的灰度数据生成，像素值小于等于thresh的视为前景
+     *
+     * @param data   单通道数据，连续存储
+     * @param width  宽
+     * @param height 高
+     * @param thresh 阈值，二值图一般为0
+     * @return
+     */
+    public static BitImage fromGray(byte[] data, int width, int height, int thresh) {
+        BitImage image = new BitImage(width, height);
+        for (int y = 0; y < height; y++) {
+            image.packRow(y, data, y * width, thresh);
+        }
+        return image;
+    }
+
+    /**
+     * 由二值化后的单通道Mat生成，像素值为0的视为前景。逐行读取，Java堆上只占用一行的临时数组
+     *
+     * @param src 单通道Mat
+     * @return
+     */
+    public static BitImage fromMat(Mat src) {
+        if (src.type() != CV_8UC1) {
+            throw new IllegalArgumentException("BitImage requires CV_8UC1, but was " + src.type());
+        }
+        int width = src.cols();
+        int height = src.rows();
+        BitImage image = new BitImage(width, height);
+        byte[] row = new byte[width];
+        for (int y = 0; y < height; y++) {
+            src.get(y, 0, row);
+            image.packRow(y, row, 0, 0);
+        }
+        return image;
+    }
+
+    /**
+     * 展开为单通道灰度数据：前景为0，背景为255
+     *
+     * @param reuse 可复用的数组，长度不足时新建
+     * @return
+     */
+    public byte[] toGray(byte[] reuse) {
+        int size = mWidth * mHeight;
+        byte[] data = reuse != null && reuse.length >= size ? reuse : new byte[size];
+        for (int y = 0; y < mHeight; y++) {
+            unpackRow(y, data, y * mWidth);
+        }
+        return data;
+    }
+
+    /**
+     * 展开为单通道Mat：前景为0，背景为255。逐行写入，Java堆上只占用一行的临时数组
+     *
+     * @param dst 输出，可复用
+     */
+    public void toMat(Mat dst) {
+        dst.create(mHeight, mWidth, CV_8UC1);
+        byte[] row = new byte[mWidth];
+        for (int y = 0; y < mHeight; y++) {
+            unpackRow(y, row, 0);
+            dst.put(y, 0, row);
+        }
+    }
+
+    /**
+     * 复制一份
+     *
+     * @return
+     */
+    public BitImage copy() {
+        BitImage image = new BitImage(mWidth, mHeight);
+        System.arraycopy(mWords, 0, image.mWords, 0, mWords.length);
+        return image;
+    }
+
+    //====================================逻辑运算===============================================//
+
+    /**
+     * 与运算，结果写入自身：两者均为前景才是前景
+     *
+     * @param other 尺寸需一致
+     * @return 自身
+     */
+    public BitImage and(BitImage other) {
+        checkSameSize(other);
+        long[] words = other.mWords;
+        for (int i = 0; i < mWords.length; i++) {
+            mWords[i] &= words[i];
+        }
+        return this;
+    }
+
+    /**
+     * 或运算，结果写入自身：任一为前景即是前景（如合并去红和去蓝的笔迹）
+     *
+     * @param other 尺寸需一致
+     * @return 自身
+     */
+    public BitImage or(BitImage other) {
+        checkSameSize(other);
+        long[] words = other.mWords;
+        for (int i = 0; i < mWords.length; i++) {
+            mWords[i] |= words[i];
+        }
+        return this;
+    }
+
+    /**
+     * 异或运算，结果写入自身：两者不同的像素为前景（如对比两次处理的差异）
+     *
+     * @param other 尺寸需一致
+     * @return 自身
+     */
+    public BitImage xor(BitImage other) {
+        checkSameSize(other);
+        long[] words = other.mWords;
+        for (int i = 0; i < mWords.length; i++) {
+            mWords[i] ^= words[i];
+        }
+        return this;
+    }
+
+    /**
+     * 差运算，结果写入自身：去除other中的前景
+     *
+     * @param other 尺寸需一致
+     * @return 自身
+     */
+    public BitImage andNot(BitImage other) {
+        checkSameSize(other);
+        long[] words = other.mWords;
+        for (int i = 0; i < mWords.length; i++) {
+            mWords[i] &= ~words[i];
+        }
+        return this;
+    }
+
+    /**
+     * 取反，结果写入自身
+     *
+     * @return 自身
+     */
+    public BitImage not() {
+        if (mWordsPerRow == 0) {
+            return this;
+        }
+        long tailMask = getTailMask();
+        for (int y = 0; y < mHeight; y++) {
+            int rowWord = y * mWordsPerRow;
+            for (int word = 0; word < mWordsPerRow; word++) {
+                mWords[rowWord + word] = ~mWords[rowWord + word];
+            }
+            //保持填充位为0
+            mWords[rowWord + mWordsPerRow - 1] &= tailMask;
+        }
+        return this;
+    }
+
+    //====================================统计===============================================//
+
+    /**
+     * @return 前景像素数
+     */
+    public long countForeground() {
+        long count = 0;
+        for (long word : mWords) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * @param y 行
+     * @return 该行的前景像素数
+     */
+    public int countForeground(int y) {
+        int count = 0;
+        int rowWord = y * mWordsPerRow;
+        for (int word = 0; word < mWordsPerRow; word++) {
+            count += Long.bitCount(mWords[rowWord + word]);
+        }
+        return count;
+    }
+
+    /**
+     * @return 前景占比（墨迹密度），0~1
+     */
+    public double getDensity() {
+        long total = (long) mWidth * mHeight;
+        return total == 0 ? 0 : (double) countForeground() / total;
+    }
+
+    /**
+     * 查找行内从fromX开始的下一个前景像素
+     *
+     * @param y     行
+     * @param fromX 起始列（包含）
+     * @return 列坐标，没有时返回-1
+     */
+    public int nextForeground(int y, int fromX) {
+        if (fromX >= mWidth) {
+            return -1;
+        }
+        int rowWord = y * mWordsPerRow;
+        int word = fromX >>> WORD_SHIFT;
+        long bits = mWords[rowWord + word] & (-1L << (fromX & (WORD_BITS - 1)));
+        while (true) {
+            if (bits != 0) {
+                return (word << WORD_SHIFT) + Long.numberOfTrailingZeros(bits);
+            }
+            if (++word == mWordsPerRow) {
+                return -1;
+            }
+            bits = mWords[rowWord + word];
+        }
+    }
+
+    /**
+     * 查找行内从fromX开始的下一个背景像素
+     *
+     * @param y     行
+     * @param fromX 起始列（包含）
+     * @return 列坐标，没有时返回width
+     */
+    public int nextBackground(int y, int fromX) {
+        if (fromX >= mWidth) {
+            return mWidth;
+        }
+        int rowWord = y * mWordsPerRow;
+        int word = fromX >>> WORD_SHIFT;
+        long bits = ~mWords[rowWord + word] & (-1L << (fromX & (WORD_BITS - 1)));
+        while (true) {
+            if (bits != 0) {
+                return Math.min(mWidth, (word << WORD_SHIFT) + Long.numberOfTrailingZeros(bits));
+            }
+            if (++word == mWordsPerRow) {
+                return mWidth;
+            }
+            bits = ~mWords[rowWord + word];
+        }
+    }
+
+    /**
+     * 逐行遍历连续的前景像素段，整字为0的区域会被直接跳过
+     *
+     * @param listener 回调
+     */
+    public void forEachRun(OnRunListener listener) {
+        for (int y = 0; y < mHeight; y++) {
+            int start = nextForeground(y, 0);
+            while (start >= 0) {
+                int end = nextBackground(y, start);
+                listener.onRun(y, start, end);
+                start = nextForeground(y, end);
+            }
+        }
+    }
+
+    /**
+     * @return 是否为前景
+     */
+    public boolean get(int x, int y) {
+        return (mWords[y * mWordsPerRow + (x >>> WORD_SHIFT)] & (1L << (x & (WORD_BITS - 1)))) != 0;
+    }
+
+    /**
+     * 设置像素
+     *
+     * @param x
+     * @param y
+     * @param foreground 是否为前景
+     */
+    public void set(int x, int y, boolean foreground) {
+        int index = y * mWordsPerRow + (x >>> WORD_SHIFT);
+        long mask = 1L << (x & (WORD_BITS - 1));
+        if (foreground) {
+            mWords[index] |= mask;
+        } else {
+            mWords[index] &= ~mask;
+        }
+    }
+
+    public int getWidth() {
+        return mWidth;
+    }
+
+    public int getHeight() {
+        return mHeight;
+    }
+
+    /**
+     * @return 每行占用的long数
+     */
+    public int getWordsPerRow() {
+        return mWordsPerRow;
+    }
+
+    /**
+     * @return 底层数据，第y行第x个像素位于words[y * wordsPerRow + x / 64]的第x % 64位
+     */
+    public long[] getWords() {
+        return mWords;
+    }
+
+    /**
+     * @return 占用的字节数
+     */
+    public long getByteCount() {
+        return (long) mWords.length * 8;
+    }
+
+    /**
+     * 压缩一行灰度数据，像素值小于等于thresh的视为前景
+     */
+    private void packRow(int y, byte[] data, int offset, int thresh) {
+        int rowWord = y * mWordsPerRow;
+        for (int word = 0; word < mWordsPerRow; word++) {
+            int start = word << WORD_SHIFT;
+            int end = Math.min(mWidth, start + WORD_BITS);
+            long bits = 0;
+            for (int x = start; x < end; x++) {
+                if ((data[offset + x] & 0xFF) <= thresh) {
+                    bits |= 1L << (x - start);
+                }
+            }
+            mWords[rowWord + word] = bits;
+        }
+    }
+
+    /**
+     * 展开一行：前景为0，背景为255
+     */
+    private void unpackRow(int y, byte[] data, int offset) {
+        int rowWord = y * mWordsPerRow;
+        for (int x = 0; x < mWidth; x++) {
+            boolean foreground = (mWords[rowWord + (x >>> WORD_SHIFT)] & (1L << (x & (WORD_BITS - 1)))) != 0;
+            data[offset + x] = foreground ? 0 : (byte) 255;
+        }
+    }
+
+    /**
+     * @return 每行最后一个long中有效位的掩码
+     */
+    private long getTailMask() {
+        int remain = mWidth & (WORD_BITS - 1);
+        return remain == 0 ? -1L : (1L << remain) - 1;
+    }
+
+    private void checkSameSize(BitImage other) {
+        if (other.mWidth != mWidth || other.mHeight != mHeight) {
+            throw new IllegalArgumentException("BitImage size mismatch: " + mWidth + "x" + mHeight
+                    + " and " + other.mWidth + "x" + other.mHeight);
+        }
+    }
+
+    /**
+     * 前景像素段的遍历回调
+     */
+    public interface OnRunListener {
+        /**
+         * 第y行[xStart, xEnd)为连续的前景
+         *
+         * @param y      行
+         * @param xStart 起始列（包含）
+         * @param xEnd   结束列（不包含）
+         */
+        void onRun(int y, int xStart, int xEnd);
+    }
+}
@@ -0,0 +1,403 @@
+/*
+ * Copyright (C) 2019 xuexiangjys(xuexiangjys@163.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.xuexiang.imageprocess.core.cache;
+
+import com.xuexiang.imageprocess.core.decode.ImageDecoder;
+import com.xuexiang.imageprocess.core.metrics.ProcessMetrics;
+import com.xuexiang.imageprocess.core.raw.RawImageFile;
+import com.xuexiang.imageprocess.core.threshold.Histogram;
+import com.xuexiang.xutil.common.logger.Logger;
+import com.xuexiang.xutil.file.FileUtils;
+
+import org.opencv.core.Mat;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 解码后原图的LRU缓存，key为：路径 + 文件修改时间 + 降采样倍数
+ * <p>
+ * 1.缓存的总字节数不超过上限，超出时按最近最少使用淘汰，并释放native内存<br>
+ * 2.{@link #acquire(String, int, int)}返回的Mat为多处共享的只读数据，不能修改，用完必须调用{@link #release(Mat)}<br>
+ * 3.被淘汰时仍在使用中的Mat，会在最后一次release时才真正释放<br>
+ * 4.可选开启磁盘缓存，解码结果以{@link RawImageFile}保存，内存未命中时直接映射文件而不用重新解码
+ *
+ * @author xuexiang
+ * @since 2026-10-18 15:50
+ */
+public final class DecodedImageCache {
+
+    /**
+     * 默认缓存的最大字节数
+     */
+    public static final long DEFAULT_MAX_BYTES = 96 * 1024 * 1024;
+
+    private static volatile DecodedImageCache sDefault;
+
+    private final LinkedHashMap<Key, Entry> mCache = new LinkedHashMap<>(16, 0.75F, true);
+    private final IdentityHashMap<Mat, Entry> mInUse = new IdentityHashMap<>();
+    private long mMaxBytes;
+    private long mSize;
+    private File mDiskCacheDir;
+    private long mMaxDiskBytes;
+
+    private long mHitCount;
+    private long mMissCount;
+    private long mDiskHitCount;
+    private long mEvictionCount;
+
+    public DecodedImageCache(long maxBytes) {
+        mMaxBytes = maxBytes;
+    }
+
+    /**
+     * @return 默认的缓存
+     */
+    public static DecodedImageCache getDefault() {
+        if (sDefault == null) {
+            synchronized (DecodedImageCache.class) {
+                if (sDefault == null) {
+                    sDefault = new DecodedImageCache(DEFAULT_MAX_BYTES);
+                }
+            }
+        }
+        return sDefault;
+    }
+
+    /**
+     * 开启磁盘缓存，解码结果以未压缩的{@link RawImageFile}保存，再次使用时映射文件即可，无需重新解码
+     *
+     * @param diskCacheDir 缓存目录
+     * @param maxDiskBytes 磁盘缓存的最大字节数
+     * @return
+     */
+    public synchronized DecodedImageCache setDiskCache(File diskCacheDir, long maxDiskBytes) {
+        if (diskCacheDir != null && FileUtils.createOrExistsDir(diskCacheDir)) {
+            mDiskCacheDir = diskCacheDir;
+            mMaxDiskBytes = maxDiskBytes;
+        } else {
+            mDiskCacheDir = null;
+        }
+        return this;
+    }
+
+    /**
+     * 获取原图尺寸的解码结果
+     *
+     * @param imgPath 图片路径
+     * @return 只读的Mat，用完需调用{@link #release(Mat)}
+     */
+    public Mat acquire(String imgPath) {
+        return acquire(imgPath, ImageDecoder.ORIGINAL_SIZE, ImageDecoder.ORIGINAL_SIZE);
+    }
+
+    /**
+     * 获取按目标尺寸降采样的解码结果，未命中时解码并加入缓存
+     *
+     * @param imgPath   图片路径
+     * @param reqWidth  目标宽度，不大于0时按原图解码
+     * @param reqHeight 目标高度，不大于0时按原图解码
+     * @return 只读的Mat，用完需调用{@link #release(Mat)}
+     */
+    public Mat acquire(String imgPath, int reqWidth, int reqHeight) {
+        return acquireReduced(imgPath, ImageDecoder.getReduceFactor(imgPath, reqWidth, reqHeight));
+    }
+
+    /**
+     * 获取按指定倍数降采样的解码结果。已通过{@link ImageDecoder#getDecodedSize(String, int, int)}读取过文件头时使用，
+     * 不再重复读取
+     *
+     * @param imgPath      图片路径
+     * @param reduceFactor 降采样倍数，1、2、4或8
+     * @return 只读的Mat，用完需调用{@link #release(Mat)}
+     */
+    public Mat acquireReduced(String imgPath, int reduceFactor) {
+        Key key = new Key(imgPath, new File(imgPath).lastModified(), reduceFactor);
+        synchronized (this) {
+            Entry entry = mCache.get(key);
+            if (entry != null) {
+                mHitCount++;
+                return entry.obtain(mInUse);
+            }
+            mMissCount++;
+        }
+
+        //解码较慢，不在锁内进行；开启磁盘缓存时优先映射之前保存的解码结果
+        Mat mat;
+        RawImageFile raw = loadFromDisk(key);
+        if (raw != null) {
+            mat = raw.wrap();
+        } else {
+            mat = ImageDecoder.decodeReduced(imgPath, key.mReduceFactor);
+            saveToDisk(key, mat);
+        }
+        synchronized (this) {
+            if (raw != null) {
+                mDiskHitCount++;
+            }
+            Entry entry = mCache.get(key);
+            if (entry != null) {
+                //其他线程已经解码并放入缓存
+                mat.release();
+                return entry.obtain(mInUse);
+            }
+            entry = new Entry(mat, raw);
+            if (mat.empty() || entry.mBytes > mMaxBytes) {
+                //解码失败或单张图片超出缓存上限，不缓存，release时直接释放
+                entry.mEvicted = true;
+            } else {
+                mCache.put(key, entry);
+                mSize += entry.mBytes;
+                trimToSize(mMaxBytes);
+            }
+            return entry.obtain(mInUse);
+        }
+    }
+
+    /**
+     * 归还通过{@link #acquire(String, int, int)}获取的Mat。非本缓存中的Mat将直接释放
+     *
+     * @param mat
+     */
+    public synchronized void release(Mat mat) {
+        if (mat == null) {
+            return;
+        }
+        Entry entry = mInUse.get(mat);
+        if (entry == null) {
+            mat.release();
+            return;
+        }
+        entry.mRefCount--;
+        if (entry.mRefCount <= 0) {
+            mInUse.remove(mat);
+            if (entry.mEvicted) {
+                mat.release();
+            }
+        }
+    }
+
+    /**
+     * 获取解码结果的直方图。同一张图片只统计一次，多个通道、多次处理的自动阈值共用
+     *
+     * @param mat 通过{@link #acquire(String, int, int)}获取且尚未归还的Mat，其他Mat每次重新统计
+     * @return
+     */
+    public Histogram getHistogram(Mat mat) {
+        Entry entry;
+        synchronized (this) {
+            entry = mInUse.get(mat);
+            if (entry != null && entry.mHistogram != null) {
+                return entry.mHistogram;
+            }
+        }
+        //统计需要遍历整张图片，不在锁内进行
+        long begin = ProcessMetrics.getDefault().begin();
+        Histogram histogram = Histogram.compute(mat);
+        ProcessMetrics.getDefault().end("histogram", begin);
+        if (entry != null) {
+            synchronized (this) {
+                entry.mHistogram = histogram;
+            }
+        }
+        return histogram;
+    }
+
+    /**
+     * 移除指定图片的所有缓存（例如图片文件被修改后）
+     *
+     * @param imgPath 图片路径
+     */
+    public synchronized void remove(String imgPath) {
+        Iterator<Map.Entry<Key, Entry>> iterator = mCache.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Key, Entry> next = iterator.next();
+            if (next.getKey().mPath.equals(imgPath)) {
+                iterator.remove();
+                evict(next.getValue());
+            }
+        }
+    }
+
+    /**
+     * 清空缓存
+     */
+    public synchronized void evictAll() {
+        trimToSize(-1);
+    }
+
+    public synchronized DecodedImageCache setMaxBytes(long maxBytes) {
+        mMaxBytes = maxBytes;
+        trimToSize(mMaxBytes);
+        return this;
+    }
+
+    /**
+     * @return 缓存的字节数
+     */
+    public synchronized long size() {
+        return mSize;
+    }
+
+    public synchronized long getHitCount() {
+        return mHitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return mMissCount;
+    }
+
+    /**
+     * @return 内存未命中、从磁盘缓存映射的次数（包含在{@link #getMissCount()}中）
+     */
+    public synchronized long getDiskHitCount() {
+        return mDiskHitCount;
+    }
+
+    public synchronized long getEvictionCount() {
+        return mEvictionCount;
+    }
+
+    private RawImageFile loadFromDisk(Key key) {
+        File file = getDiskCacheFile(key);
+        if (file == null || !file.exists()) {
+            return null;
+        }
+        try {
+            RawImageFile raw = RawImageFile.open(file);
+            //更新修改时间，磁盘缓存按修改时间淘汰
+            file.setLastModified(System.currentTimeMillis());
+            return raw;
+        } catch (IOException e) {
+            Logger.e(e);
+            file.delete();
+            return null;
+        }
+    }
+
+    private void saveToDisk(Key key, Mat mat) {
+        File file = getDiskCacheFile(key);
+        if (file == null || mat.empty()) {
+            return;
+        }
+        try {
+            RawImageFile.write(mat, file);
+        } catch (IOException e) {
+            Logger.e(e);
+            return;
+        }
+        long maxDiskBytes;
+        synchronized (this) {
+            maxDiskBytes = mMaxDiskBytes;
+        }
+        DiskCacheUtils.trim(file.getParentFile(), maxDiskBytes);
+    }
+
+    private synchronized File getDiskCacheFile(Key key) {
+        if (mDiskCacheDir == null) {
+            return null;
+        }
+        String diskKey = key.mPath + "|" + key.mLastModified + "|" + key.mReduceFactor;
+        return new File(mDiskCacheDir, DiskCacheUtils.hashKey(diskKey) + "." + RawImageFile.EXTENSION);
+    }
+
+    private void trimToSize(long maxBytes) {
+        Iterator<Map.Entry<Key, Entry>> iterator = mCache.entrySet().iterator();
+        while (mSize > maxBytes && iterator.hasNext()) {
+            Entry eldest = iterator.next().getValue();
+            iterator.remove();
+            evict(eldest);
+        }
+    }
+
+    private void evict(Entry entry) {
+        mSize -= entry.mBytes;
+        mEvictionCount++;
+        entry.mEvicted = true;
+        if (entry.mRefCount <= 0) {
+            entry.mMat.release();
+        }
+    }
+
+    /**
+     * 缓存的key
+     */
+    private static final class Key {
+
+        private final String mPath;
+        private final long mLastModified;
+        private final int mReduceFactor;
+
+        Key(String path, long lastModified, int reduceFactor) {
+            mPath = path;
+            mLastModified = lastModified;
+            mReduceFactor = reduceFactor;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return mLastModified == key.mLastModified && mReduceFactor == key.mReduceFactor && mPath.equals(key.mPath);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = mPath.hashCode();
+            result = 31 * result + (int) (mLastModified ^ (mLastModified >>> 32));
+            return 31 * result + mReduceFactor;
+        }
+    }
+
+    /**
+     * 缓存项，带引用计数
+     */
+    private static final class Entry {
+
+        private final Mat mMat;
+        /**
+         * 从磁盘缓存映射时，持有映射的文件，保证Mat使用的内存不被解除映射
+         */
+        private final RawImageFile mRaw;
+        private final long mBytes;
+        private int mRefCount;
+        private boolean mEvicted;
+        private Histogram mHistogram;
+
+        Entry(Mat mat, RawImageFile raw) {
+            mMat = mat;
+            mRaw = raw;
+            mBytes = mat.total() * mat.elemSize();
+        }
+
+        Mat obtain(IdentityHashMap<Mat, Entry> inUse) {
+            mRefCount++;
+            inUse.put(mMat, this);
+            return mMat;
+        }
+    }
+}
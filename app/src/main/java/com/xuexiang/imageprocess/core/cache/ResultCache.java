@@ -0,0 +1,282 @@
+/*
+ * Copyright (C) 2019 xuexiangjys(xuexiangjys@163.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.xuexiang.imageprocess.core.cache;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.support.annotation.Nullable;
+import android.util.LruCache;
+
+import com.xuexiang.imageprocess.core.pipeline.ImagePipeline;
+import com.xuexiang.xutil.common.logger.Logger;
+import com.xuexiang.xutil.file.FileUtils;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * 处理结果缓存，key为：图片标识（路径 + 文件修改时间 + 目标尺寸） + 处理流水线（操作及参数）
+ * <p>
+ * 1.内存中按Bitmap字节数进行LRU淘汰<br>
+ * 2.可选开启磁盘缓存，被内存淘汰的结果会以PNG无损写入磁盘，再次获取时从磁盘解码而不用重新计算
+ *
+ * @author xuexiang
+ * @since 2026-10-18 16:30
+ */
+public final class ResultCache {
+
+    private static final String DISK_CACHE_SUFFIX = ".png";
+
+    private static volatile ResultCache sDefault;
+
+    private final LruCache<String, Bitmap> mMemoryCache;
+    private File mDiskCacheDir;
+    private long mMaxDiskBytes;
+    /**
+     * 为true时被内存淘汰的结果不写入磁盘
+     */
+    private boolean mSpillDisabled;
+
+    private long mHitCount;
+    private long mDiskHitCount;
+    private long mMissCount;
+
+    public ResultCache(int maxMemoryBytes) {
+        mMemoryCache = new LruCache<String, Bitmap>(maxMemoryBytes) {
+            @Override
+            protected int sizeOf(String key, Bitmap value) {
+                return value.getByteCount();
+            }
+
+            @Override
+            protected void entryRemoved(boolean evicted, String key, Bitmap oldValue, Bitmap newValue) {
+                if (evicted) {
+                    spillToDisk(key, oldValue);
+                }
+            }
+        };
+    }
+
+    /**
+     * @return 默认的缓存，内存上限为最大堆内存的1/8
+     */
+    public static ResultCache getDefault() {
+        if (sDefault == null) {
+            synchronized (ResultCache.class) {
+                if (sDefault == null) {
+                    sDefault = new ResultCache((int) (Runtime.getRuntime().maxMemory() / 8));
+                }
+            }
+        }
+        return sDefault;
+    }
+
+    /**
+     * 开启磁盘缓存
+     *
+     * @param diskCacheDir 缓存目录
+     * @param maxDiskBytes 磁盘缓存的最大字节数
+     * @return
+     */
+    public synchronized ResultCache setDiskCache(File diskCacheDir, long maxDiskBytes) {
+        if (diskCacheDir != null && FileUtils.createOrExistsDir(diskCacheDir)) {
+            mDiskCacheDir = diskCacheDir;
+            mMaxDiskBytes = maxDiskBytes;
+        } else {
+            mDiskCacheDir = null;
+        }
+        return this;
+    }
+
+    /**
+     * 获取处理结果，未命中缓存时执行处理并加入缓存
+     *
+     * @param imgPath   图片路径
+     * @param reqWidth  目标宽度，不大于0时按原图处理
+     * @param reqHeight 目标高度，不大于0时按原图处理
+     * @param pipeline  处理流水线
+     * @return
+     */
+    @Nullable
+    public Bitmap process(String imgPath, int reqWidth, int reqHeight, ImagePipeline pipeline) {
+        String key = buildKey(imgPath, reqWidth, reqHeight, pipeline.getName());
+        Bitmap result = get(key);
+        if (result == null) {
+            result = pipeline.process(imgPath, reqWidth, reqHeight);
+            if (result != null) {
+                put(key, result);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 构建缓存的key
+     *
+     * @param imgPath   图片路径
+     * @param reqWidth  目标宽度
+     * @param reqHeight 目标高度
+     * @param operation 操作及参数，例如{@link ImagePipeline#getName()}
+     * @return
+     */
+    public static String buildKey(String imgPath, int reqWidth, int reqHeight, String operation) {
+        return imgPath + "|" + new File(imgPath).lastModified() + "|" + reqWidth + "x" + reqHeight + "|" + operation;
+    }
+
+    /**
+     * 获取缓存，依次查找内存和磁盘
+     *
+     * @param key
+     * @return
+     */
+    @Nullable
+    public Bitmap get(String key) {
+        Bitmap bitmap = mMemoryCache.get(key);
+        if (bitmap != null) {
+            synchronized (this) {
+                mHitCount++;
+            }
+            return bitmap;
+        }
+        bitmap = loadFromDisk(key);
+        synchronized (this) {
+            if (bitmap != null) {
+                mDiskHitCount++;
+            } else {
+                mMissCount++;
+            }
+        }
+        if (bitmap != null) {
+            mMemoryCache.put(key, bitmap);
+        }
+        return bitmap;
+    }
+
+    /**
+     * 加入缓存
+     *
+     * @param key
+     * @param bitmap
+     */
+    public void put(String key, Bitmap bitmap) {
+        if (key != null && bitmap != null) {
+            mMemoryCache.put(key, bitmap);
+        }
+    }
+
+    /**
+     * 清空内存缓存（不写入磁盘）
+     */
+    public synchronized void clearMemory() {
+        mSpillDisabled = true;
+        try {
+            mMemoryCache.evictAll();
+        } finally {
+            mSpillDisabled = false;
+        }
+    }
+
+    public synchronized long getHitCount() {
+        return mHitCount;
+    }
+
+    public synchronized long getDiskHitCount() {
+        return mDiskHitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return mMissCount;
+    }
+
+    private void spillToDisk(String key, Bitmap bitmap) {
+        File dir;
+        synchronized (this) {
+            dir = mSpillDisabled ? null : mDiskCacheDir;
+        }
+        if (dir == null || bitmap.isRecycled()) {
+            return;
+        }
+        File file = new File(dir, DiskCacheUtils.hashKey(key) + DISK_CACHE_SUFFIX);
+        if (file.exists()) {
+            return;
+        }
+        //先写入临时文件再重命名，读取时不会遇到写了一半的文件，中途失败也不会留下不完整的缓存
+        File temp = null;
+        OutputStream out = null;
+        boolean written = false;
+        try {
+            temp = File.createTempFile(file.getName(), ".tmp", dir);
+            out = new FileOutputStream(temp);
+            boolean compressed = bitmap.compress(Bitmap.CompressFormat.PNG, 100, out);
+            //关闭失败时数据可能不完整，不能重命名
+            out.close();
+            out = null;
+            written = compressed && temp.renameTo(file);
+        } catch (IOException e) {
+            Logger.e(e);
+        } finally {
+            closeQuietly(out);
+            if (!written && temp != null) {
+                temp.delete();
+            }
+        }
+        long maxDiskBytes;
+        synchronized (this) {
+            maxDiskBytes = mMaxDiskBytes;
+        }
+        DiskCacheUtils.trim(dir, maxDiskBytes);
+    }
+
+    @Nullable
+    private Bitmap loadFromDisk(String key) {
+        File dir = getDiskCacheDir();
+        if (dir == null) {
+            return null;
+        }
+        File file = new File(dir, DiskCacheUtils.hashKey(key) + DISK_CACHE_SUFFIX);
+        if (!file.exists()) {
+            return null;
+        }
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inPreferredConfig = Bitmap.Config.RGB_565;
+        Bitmap bitmap = BitmapFactory.decodeFile(file.getPath(), options);
+        if (bitmap != null) {
+            //更新修改时间，磁盘缓存按修改时间淘汰
+            file.setLastModified(System.currentTimeMillis());
+        } else {
+            //无法解码的缓存文件直接删除，下次重新计算
+            file.delete();
+        }
+        return bitmap;
+    }
+
+    private synchronized File getDiskCacheDir() {
+        return mDiskCacheDir;
+    }
+
+    private static void closeQuietly(OutputStream out) {
+        if (out != null) {
+            try {
+                out.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2019 xuexiangjys(xuexiangjys@163.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.xuexiang.imageprocess.core.component;
+
+/**
+ * 连通域的统计结果：面积、外接矩形和质心
+ * <p>
+ * 按数组存储（每个统计量一个数组），数十万个连通域也不会为每个连通域创建对象。
+ * 连通域按其第一个像素的光栅顺序（从上到下、从左到右）编号，从0开始。
+ *
+ * @author xuexiang
+ * @since 2026-10-19 02:10
+ */
+public final class ComponentStats {
+
+    private final int mCount;
+    private final int[] mArea;
+    private final int[] mLeft;
+    private final int[] mTop;
+    private final int[] mRight;
+    private final int[] mBottom;
+    private final long[] mSumX;
+    private final long[] mSumY;
+
+    ComponentStats(int count) {
+        mCount = count;
+        mArea = new int[count];
+        mLeft = new int[count];
+        mTop = new int[count];
+        mRight = new int[count];
+        mBottom = new int[count];
+        mSumX = new long[count];
+        mSumY = new long[count];
+        for (int i = 0; i < count; i++) {
+            mLeft[i] = Integer.MAX_VALUE;
+            mTop[i] = Integer.MAX_VALUE;
+            mRight[i] = -1;
+            mBottom[i] = -1;
+        }
+    }
+
+    /**
+     * 合并一个临时标签的统计
+     */
+    void merge(int index, int area, int left, int top, int right, int bottom, long sumX, long sumY) {
+        mArea[index] += area;
+        mLeft[index] = Math.min(mLeft[index], left);
+        mTop[index] = Math.min(mTop[index], top);
+        mRight[index] = Math.max(mRight[index], right);
+        mBottom[index] = Math.max(mBottom[index], bottom);
+        mSumX[index] += sumX;
+        mSumY[index] += sumY;
+    }
+
+    /**
+     * @return 连通域个数
+     */
+    public int getCount() {
+        return mCount;
+    }
+
+    /**
+     * @return 像素数
+     */
+    public int getArea(int index) {
+        return mArea[index];
+    }
+
+    /**
+     * @return 外接矩形的左边界（包含）
+     */
+    public int getLeft(int index) {
+        return mLeft[index];
+    }
+
+    /**
+     * @return 外接矩形的上边界（包含）
+     */
+    public int getTop(int index) {
+        return mTop[index];
+    }
+
+    /**
+     * @return 外接矩形的右边界（包含）
+     */
+    public int getRight(int index) {
+        return mRight[index];
+    }
+
+    /**
+     * @return 外接矩形的下边界（包含）
+     */
+    public int getBottom(int index) {
+        return mBottom[index];
+    }
+
+    public int getWidth(int index) {
+        return mRight[index] - mLeft[index] + 1;
+    }
+
+    public int getHeight(int index) {
+        return mBottom[index] - mTop[index] + 1;
+    }
+
+    public double getCentroidX(int index) {
+        return (double) mSumX[index] / mArea[index];
+    }
+
+    public double getCentroidY(int index) {
+        return (double) mSumY[index] / mArea[index];
+    }
+
+    /**
+     * @return 所有连通域的像素总数（墨迹总量）
+     */
+    public long getTotalArea() {
+        long total = 0;
+        for (int i = 0; i < mCount; i++) {
+            total += mArea[i];
+        }
+        return total;
+    }
+}
@@ -0,0 +1,383 @@
+/*
+ * Copyright (C) 2019 xuexiangjys(xuexiangjys@163.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.xuexiang.imageprocess.core.component;
+
+import com.xuexiang.imageprocess.core.parallel.RowBands;
+
+import org.opencv.core.Mat;
+
+import java.util.Arrays;
+
+/**
+ * 连通域标记：在二值图（黑色笔迹为前景，即像素值为0）中查找连通的笔迹，并统计面积、外接矩形和质心
+ * <p>
+ * 1.两遍扫描的并查集算法，临时标签、并查集和统计量都存储在int/long数组中，不为像素或连通域创建对象<br>
+ * 2.第一遍扫描时直接把统计量累加到临时标签上，第二遍只需遍历标签而不是像素，不需要标签图时内存只占两行<br>
+ * 3.并行时按行切分为多个条带分别标记，再合并条带边界上相连的标签
+ *
+ * @author xuexiang
+ * @since 2026-10-19 02:20
+ */
+public final class ConnectedComponents {
+
+    private final boolean mEightConnected;
+    /**
+     * 条带数，0表示按并行度自动划分
+     */
+    private final int mStripeCount;
+
+    /**
+     * 8连通，并行处理
+     */
+    public ConnectedComponents() {
+        this(true, true);
+    }
+
+    /**
+     * @param eightConnected true为8连通，false为4连通
+     * @param parallel       是否按条带并行处理
+     */
+    public ConnectedComponents(boolean eightConnected, boolean parallel) {
+        this(eightConnected, parallel ? 0 : 1);
+    }
+
+    /**
+     * @param eightConnected true为8连通，false为4连通
+     * @param stripeCount    条带数，0表示按并行度自动划分
+     */
+    ConnectedComponents(boolean eightConnected, int stripeCount) {
+        mEightConnected = eightConnected;
+        mStripeCount = stripeCount;
+    }
+
+    /**
+     * 标记单通道Mat中的连通域
+     *
+     * @param mask 单通道二值图，像素值为0的是前景
+     * @return
+     */
+    public ComponentStats label(Mat mask) {
+        return label(mask, null);
+    }
+
+    /**
+     * 标记单通道Mat中的连通域
+     *
+     * @param mask   单通道二值图，像素值为0的是前景
+     * @param labels 输出的标签图，长度需不小于像素数，背景为0，第i个连通域为i+1；为null时不输出
+     * @return
+     */
+    public ComponentStats label(final Mat mask, int[] labels) {
+        if (mask.channels() != 1) {
+            throw new IllegalArgumentException("ConnectedComponents requires a single channel mask, but was " + mask.channels());
+        }
+        return label(new RowSource() {
+            @Override
+            public void read(int y, byte[] row) {
+                mask.get(y, 0, row);
+            }
+        }, mask.cols(), mask.rows(), labels);
+    }
+
+    /**
+     * 标记单通道数据中的连通域
+     *
+     * @param mask   单通道二值图，连续存储，像素值为0的是前景
+     * @param width  宽
+     * @param height 高
+     * @param labels 输出的标签图，长度需不小于像素数，背景为0，第i个连通域为i+1；为null时不输出
+     * @return
+     */
+    public ComponentStats label(final byte[] mask, final int width, int height, int[] labels) {
+        return label(new RowSource() {
+            @Override
+            public void read(int y, byte[] row) {
+                System.arraycopy(mask, y * width, row, 0, width);
+            }
+        }, width, height, labels);
+    }
+
+    private ComponentStats label(final RowSource source, final int width, int height, final int[] labels) {
+        if (labels != null && labels.length < width * height) {
+            throw new IllegalArgumentException("labels is too small: " + labels.length + " < " + width * height);
+        }
+        int stripeCount = Math.max(1, Math.min(height, mStripeCount > 0 ? mStripeCount : RowBands.getParallelism()));
+        final Stripe[] stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe(height * i / stripeCount, height * (i + 1) / stripeCount, width);
+        }
+        //第一遍：各条带独立标记（每个条带作为RowBands的一"行"）
+        RowBands.forEach(stripeCount, 1, new RowBands.BandTask() {
+            @Override
+            public void run(int worker, int rowStart, int rowEnd) {
+                for (int i = rowStart; i < rowEnd; i++) {
+                    stripes[i].label(source, labels, mEightConnected);
+                }
+            }
+        });
+
+        //合并：全局标签 = 条带的起始偏移 + 条带内标签
+        final int[] bases = new int[stripeCount];
+        int total = 0;
+        for (int i = 0; i < stripeCount; i++) {
+            bases[i] = total;
+            total += stripes[i].mCount;
+        }
+        int[] parent = new int[total + 1];
+        for (int i = 0; i < stripeCount; i++) {
+            Stripe stripe = stripes[i];
+            for (int local = 1; local <= stripe.mCount; local++) {
+                parent[bases[i] + local] = bases[i] + stripe.mParent[local];
+            }
+        }
+        for (int i = 1; i < stripeCount; i++) {
+            mergeBoundary(parent, stripes[i - 1].mLastRow, bases[i - 1], stripes[i].mFirstRow, bases[i], width);
+        }
+
+        //第二遍：只遍历标签，根标签按光栅顺序编号，并汇总统计量
+        final int[] index = new int[total + 1];
+        int count = 0;
+        for (int label = 1; label <= total; label++) {
+            int root = find(parent, label);
+            index[label] = root == label ? count++ : index[root];
+        }
+        ComponentStats stats = new ComponentStats(count);
+        for (int i = 0; i < stripeCount; i++) {
+            Stripe stripe = stripes[i];
+            for (int local = 1; local <= stripe.mCount; local++) {
+                stats.merge(index[bases[i] + local], stripe.mArea[local], stripe.mLeft[local], stripe.mTop[local],
+                        stripe.mRight[local], stripe.mBottom[local], stripe.mSumX[local], stripe.mSumY[local]);
+            }
+        }
+
+        if (labels != null) {
+            //标签图中的条带内标签替换为最终编号
+            RowBands.forEach(stripeCount, 1, new RowBands.BandTask() {
+                @Override
+                public void run(int worker, int rowStart, int rowEnd) {
+                    for (int i = rowStart; i < rowEnd; i++) {
+                        Stripe stripe = stripes[i];
+                        int end = stripe.mRowEnd * width;
+                        for (int p = stripe.mRowStart * width; p < end; p++) {
+                            if (labels[p] != 0) {
+                                labels[p] = index[bases[i] + labels[p]] + 1;
+                            }
+                        }
+                    }
+                }
+            });
+        }
+        return stats;
+    }
+
+    /**
+     * 合并上一条带最后一行与下一条带第一行中相连的标签
+     */
+    private void mergeBoundary(int[] parent, int[] upper, int upperBase, int[] lower, int lowerBase, int width) {
+        if (upper == null || lower == null) {
+            return;
+        }
+        for (int x = 0; x < width; x++) {
+            if (lower[x] == 0) {
+                continue;
+            }
+            int label = lowerBase + lower[x];
+            if (upper[x] != 0) {
+                union(parent, label, upperBase + upper[x]);
+            }
+            if (mEightConnected) {
+                if (x > 0 && upper[x - 1] != 0) {
+                    union(parent, label, upperBase + upper[x - 1]);
+                }
+                if (x < width - 1 && upper[x + 1] != 0) {
+                    union(parent, label, upperBase + upper[x + 1]);
+                }
+            }
+        }
+    }
+
+    /**
+     * 查找根标签，同时进行路径减半
+     */
+    static int find(int[] parent, int label) {
+        while (parent[label] != label) {
+            parent[label] = parent[parent[label]];
+            label = parent[label];
+        }
+        return label;
+    }
+
+    /**
+     * 合并两个标签，始终以较小的标签为根，保证根是连通域中光栅顺序的第一个标签
+     *
+     * @return 合并后的根
+     */
+    static int union(int[] parent, int a, int b) {
+        int rootA = find(parent, a);
+        int rootB = find(parent, b);
+        if (rootA < rootB) {
+            parent[rootB] = rootA;
+            return rootA;
+        } else {
+            parent[rootA] = rootB;
+            return rootB;
+        }
+    }
+
+    /**
+     * 按行读取像素
+     */
+    private interface RowSource {
+        void read(int y, byte[] row);
+    }
+
+    /**
+     * 一个条带的标记结果，临时标签从1开始
+     */
+    private static final class Stripe {
+
+        private static final int INITIAL_CAPACITY = 256;
+
+        private final int mRowStart;
+        private final int mRowEnd;
+        private final int mWidth;
+
+        private int mCount;
+        private int[] mParent = new int[INITIAL_CAPACITY];
+        private int[] mArea = new int[INITIAL_CAPACITY];
+        private int[] mLeft = new int[INITIAL_CAPACITY];
+        private int[] mTop = new int[INITIAL_CAPACITY];
+        private int[] mRight = new int[INITIAL_CAPACITY];
+        private int[] mBottom = new int[INITIAL_CAPACITY];
+        private long[] mSumX = new long[INITIAL_CAPACITY];
+        private long[] mSumY = new long[INITIAL_CAPACITY];
+        /**
+         * 条带第一行和最后一行的临时标签，用于合并条带边界
+         */
+        private int[] mFirstRow;
+        private int[] mLastRow;
+
+        Stripe(int rowStart, int rowEnd, int width) {
+            mRowStart = rowStart;
+            mRowEnd = rowEnd;
+            mWidth = width;
+        }
+
+        void label(RowSource source, int[] labels, boolean eightConnected) {
+            if (mRowStart >= mRowEnd) {
+                return;
+            }
+            int width = mWidth;
+            byte[] row = new byte[width];
+            int[] prev = new int[width];
+            int[] cur = new int[width];
+            for (int y = mRowStart; y < mRowEnd; y++) {
+                source.read(y, row);
+                boolean hasPrev = y > mRowStart;
+                for (int x = 0; x < width; x++) {
+                    if (row[x] != 0) {
+                        cur[x] = 0;
+                        continue;
+                    }
+                    int label = x > 0 ? cur[x - 1] : 0;
+                    if (hasPrev) {
+                        label = connect(label, prev[x]);
+                        if (eightConnected) {
+                            if (x > 0) {
+                                label = connect(label, prev[x - 1]);
+                            }
+                            if (x < width - 1) {
+                                label = connect(label, prev[x + 1]);
+                            }
+                        }
+                    }
+                    if (label == 0) {
+                        label = newLabel();
+                    }
+                    cur[x] = label;
+                    accumulate(label, x, y);
+                }
+                if (y == mRowStart) {
+                    mFirstRow = cur.clone();
+                }
+                if (labels != null) {
+                    System.arraycopy(cur, 0, labels, y * width, width);
+                }
+                int[] temp = prev;
+                prev = cur;
+                cur = temp;
+            }
+            mLastRow = prev;
+        }
+
+        /**
+         * 当前像素与相邻的标签相连
+         *
+         * @param label    当前像素的标签，0表示还没有
+         * @param neighbor 相邻像素的标签，0表示背景
+         * @return 当前像素的标签
+         */
+        private int connect(int label, int neighbor) {
+            if (neighbor == 0 || neighbor == label) {
+                return label;
+            }
+            if (label == 0) {
+                return neighbor;
+            }
+            union(mParent, label, neighbor);
+            return label;
+        }
+
+        private int newLabel() {
+            int label = ++mCount;
+            if (label == mParent.length) {
+                int capacity = mParent.length * 2;
+                mParent = Arrays.copyOf(mParent, capacity);
+                mArea = Arrays.copyOf(mArea, capacity);
+                mLeft = Arrays.copyOf(mLeft, capacity);
+                mTop = Arrays.copyOf(mTop, capacity);
+                mRight = Arrays.copyOf(mRight, capacity);
+                mBottom = Arrays.copyOf(mBottom, capacity);
+                mSumX = Arrays.copyOf(mSumX, capacity);
+                mSumY = Arrays.copyOf(mSumY, capacity);
+            }
+            mParent[label] = label;
+            mLeft[label] = Integer.MAX_VALUE;
+            mTop[label] = Integer.MAX_VALUE;
+            mRight[label] = -1;
+            mBottom[label] = -1;
+            return label;
+        }
+
+        private void accumulate(int label, int x, int y) {
+            mArea[label]++;
+            if (x < mLeft[label]) {
+                mLeft[label] = x;
+            }
+            if (x > mRight[label]) {
+                mRight[label] = x;
+            }
+            if (y < mTop[label]) {
+                mTop[label] = y;
+            }
+            mBottom[label] = y;
+            mSumX[label] += x;
+            mSumY[label] += y;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2019 xuexiangjys(xuexiangjys@163.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.xuexiang.imageprocess.core.convert;
+
+import android.graphics.Bitmap;
+
+import com.xuexiang.imageprocess.utils.ImageProcessUtils;
+
+import org.opencv.core.Mat;
+
+/**
+ * 连续帧的Bitmap与Mat转换器，适用于实时预览等同一分辨率反复处理的场景
+ * <p>
+ * 输入Mat和输出Bitmap在帧之间复用，分辨率不变时每帧只有像素拷贝而不再分配内存。
+ * 输出Bitmap轮流使用多个缓冲，避免界面还在绘制上一帧时被下一帧覆盖。非线程安全，需在同一线程中使用。
+ *
+ * @author xuexiang
+ * @since 2026-10-18 21:40
+ */
+public final class FrameConverter {
+
+    /**
+     * 默认输出缓冲数：一个显示中，一个写入中
+     */
+    public static final int DEFAULT_BUFFER_COUNT = 2;
+
+    private final Mat mMat = new Mat();
+    private final Bitmap[] mBitmaps;
+    private final Bitmap.Config mConfig;
+    /**
+     * ALPHA_8输出的中转数组
+     */
+    private byte[] mGrayBuffer;
+    private int mIndex;
+
+    public FrameConverter() {
+        this(DEFAULT_BUFFER_COUNT, Bitmap.Config.RGB_565);
+    }
+
+    /**
+     * @param bufferCount 输出bitmap的缓冲数
+     * @param config      输出bitmap的格式，RGB_565、ARGB_8888，单通道结果可使用ALPHA_8
+     */
+    public FrameConverter(int bufferCount, Bitmap.Config config) {
+        mBitmaps = new Bitmap[Math.max(1, bufferCount)];
+        mConfig = config;
+    }
+
+    /**
+     * bitmap转Mat
+     *
+     * @param src
+     * @return 复用的Mat，下一次调用前有效，不可释放
+     */
+    public Mat toMat(Bitmap src) {
+        ImageProcessUtils.bitmap2Mat(src, mMat);
+        return mMat;
+    }
+
+    /**
+     * Mat转bitmap，依次写入下一个输出缓冲
+     *
+     * @param mat
+     * @return 复用的bitmap，在之后的bufferCount-1次调用内有效
+     */
+    public Bitmap toBitmap(Mat mat) {
+        mIndex = (mIndex + 1) % mBitmaps.length;
+        Bitmap bitmap = mBitmaps[mIndex];
+        if (bitmap == null || bitmap.getWidth() != mat.width() || bitmap.getHeight() != mat.height()) {
+            if (bitmap != null) {
+                bitmap.recycle();
+            }
+            bitmap = Bitmap.createBitmap(mat.width(), mat.height(), mConfig);
+            mBitmaps[mIndex] = bitmap;
+        }
+        if (mConfig == Bitmap.Config.ALPHA_8) {
+            mGrayBuffer = ImageProcessUtils.mat2AlphaBitmap(mat, bitmap, mGrayBuffer);
+            return bitmap;
+        }
+        return ImageProcessUtils.mat2Bitmap(mat, bitmap);
+    }
+
+    /**
+     * 释放所有缓冲
+     */
+    public void release() {
+        mMat.release();
+        mGrayBuffer = null;
+        for (int i = 0; i < mBitmaps.length; i++) {
+            if (mBitmaps[i] != null) {
+                mBitmaps[i].recycle();
+                mBitmaps[i] = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2019 xuexiangjys(xuexiangjys@163.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.xuexiang.imageprocess.core.convert;
+
+import android.graphics.Bitmap;
+
+/**
+ * 处理结果转换为Bitmap时的格式
+ *
+ * @author xuexiang
+ * @since 2026-10-18 22:00
+ */
+public enum OutputFormat {
+
+    /**
+     * 16位，体积小但灰度会有抖动损失，默认格式
+     */
+    RGB_565(Bitmap.Config.RGB_565, 2),
+    /**
+     * 32位，无损
+     */
+    ARGB_8888(Bitmap.Config.ARGB_8888, 4),
+    /**
+     * 8位，直接存储单通道结果的灰度值，无需扩展为RGB。
+     * 注意：ALPHA_8绘制时灰度值作为透明度使用，适合存储和作为遮罩，直接显示需配合Paint着色
+     */
+    ALPHA_8(Bitmap.Config.ALPHA_8, 1);
+
+    private final Bitmap.Config mConfig;
+    private final int mBytesPerPixel;
+
+    OutputFormat(Bitmap.Config config, int bytesPerPixel) {
+        mConfig = config;
+        mBytesPerPixel = bytesPerPixel;
+    }
+
+    public Bitmap.Config getConfig() {
+        return mConfig;
+    }
+
+    public int getBytesPerPixel() {
+        return mBytesPerPixel;
+    }
+
+    /**
+     * 获取bitmap格式对应的输出格式
+     *
+     * @param config
+     * @return 不支持的格式返回null
+     */
+    public static OutputFormat of(Bitmap.Config config) {
+        for (OutputFormat format : values()) {
+            if (format.mConfig == config) {
+                return format;
+            }
+        }
+        return null;
+    }
+}
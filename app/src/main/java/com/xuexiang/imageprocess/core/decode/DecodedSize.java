@@ -0,0 +1,59 @@
+/*
+ * Copyright (C) 2019 xuexiangjys(xuexiangjys@163.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.xuexiang.imageprocess.core.decode;
+
+/**
+ * 降采样解码的尺寸信息，由{@link ImageDecoder#getDecodedSize(String, int, int)}读取一次文件头得到，
+ * 可同时用于native内存预算的估计和解码缓存的key，避免重复读取文件头
+ *
+ * @author xuexiang
+ * @since 2026-10-19 14:10
+ */
+public final class DecodedSize {
+
+    private final int mWidth;
+    private final int mHeight;
+    private final int mReduceFactor;
+
+    DecodedSize(int width, int height, int reduceFactor) {
+        mWidth = width;
+        mHeight = height;
+        mReduceFactor = reduceFactor;
+    }
+
+    /**
+     * @return 解码后的宽度，无法读取时为0
+     */
+    public int getWidth() {
+        return mWidth;
+    }
+
+    /**
+     * @return 解码后的高度，无法读取时为0
+     */
+    public int getHeight() {
+        return mHeight;
+    }
+
+    /**
+     * @return 降采样倍数，1、2、4或8
+     */
+    public int getReduceFactor() {
+        return mReduceFactor;
+    }
+}
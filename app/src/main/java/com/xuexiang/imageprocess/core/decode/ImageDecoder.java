@@ -0,0 +1,168 @@
+/*
+ * Copyright (C) 2019 xuexiangjys(xuexiangjys@163.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.xuexiang.imageprocess.core.decode;
+
+import android.graphics.BitmapFactory;
+
+import com.xuexiang.imageprocess.core.metrics.ProcessMetrics;
+
+import org.opencv.core.Mat;
+import org.opencv.imgcodecs.Imgcodecs;
+
+/**
+ * 图片解码器，支持按目标尺寸降采样解码
+ * <p>
+ * 预览只需要显示尺寸的像素，使用IMREAD_REDUCED_*在解码阶段直接缩小1/2、1/4、1/8，
+ * 后续处理的像素数相应减少到1/4、1/16、1/64。目标尺寸不大于0时按原图解码（用于最终导出）。
+ *
+ * @author xuexiang
+ * @since 2026-10-18 15:10
+ */
+public final class ImageDecoder {
+
+    /**
+     * 按原图尺寸解码
+     */
+    public static final int ORIGINAL_SIZE = 0;
+    /**
+     * OpenCV支持的最大降采样倍数
+     */
+    private static final int MAX_REDUCE_FACTOR = 8;
+
+    private ImageDecoder() {
+        throw new UnsupportedOperationException("u can't instantiate me...");
+    }
+
+    /**
+     * 按原图解码
+     *
+     * @param imgPath 图片路径
+     * @return BGR图片
+     */
+    public static Mat decode(String imgPath) {
+        return decodeReduced(imgPath, 1);
+    }
+
+    /**
+     * 按目标尺寸降采样解码，解码结果的宽高不小于目标尺寸
+     *
+     * @param imgPath   图片路径
+     * @param reqWidth  目标宽度，不大于0时按原图解码
+     * @param reqHeight 目标高度，不大于0时按原图解码
+     * @return BGR图片
+     */
+    public static Mat decode(String imgPath, int reqWidth, int reqHeight) {
+        return decodeReduced(imgPath, getReduceFactor(imgPath, reqWidth, reqHeight));
+    }
+
+    /**
+     * 按指定的降采样倍数解码
+     *
+     * @param imgPath      图片路径
+     * @param reduceFactor 降采样倍数，1、2、4或8
+     * @return BGR图片
+     */
+    public static Mat decodeReduced(String imgPath, int reduceFactor) {
+        long begin = ProcessMetrics.getDefault().begin();
+        Mat mat = Imgcodecs.imread(imgPath, getReadFlag(reduceFactor));
+        ProcessMetrics.getDefault().end(ProcessMetrics.STAGE_DECODE, begin, ProcessMetrics.sizeOf(mat));
+        return mat;
+    }
+
+    /**
+     * 计算降采样倍数
+     *
+     * @param imgPath   图片路径
+     * @param reqWidth  目标宽度
+     * @param reqHeight 目标高度
+     * @return 1、2、4或8
+     */
+    public static int getReduceFactor(String imgPath, int reqWidth, int reqHeight) {
+        if (reqWidth <= ORIGINAL_SIZE || reqHeight <= ORIGINAL_SIZE) {
+            return 1;
+        }
+        BitmapFactory.Options options = decodeBounds(imgPath);
+        return calculateReduceFactor(options.outWidth, options.outHeight, reqWidth, reqHeight);
+    }
+
+    /**
+     * 获取按目标尺寸降采样解码后的尺寸及降采样倍数，只读取一次文件头，不解码像素
+     *
+     * @param imgPath   图片路径
+     * @param reqWidth  目标宽度，不大于0时按原图解码
+     * @param reqHeight 目标高度，不大于0时按原图解码
+     * @return 尺寸信息，无法读取时宽高为0
+     */
+    public static DecodedSize getDecodedSize(String imgPath, int reqWidth, int reqHeight) {
+        BitmapFactory.Options options = decodeBounds(imgPath);
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            return new DecodedSize(0, 0, 1);
+        }
+        int factor = calculateReduceFactor(options.outWidth, options.outHeight, reqWidth, reqHeight);
+        //与imread的降采样一致，向上取整
+        return new DecodedSize((options.outWidth + factor - 1) / factor, (options.outHeight + factor - 1) / factor, factor);
+    }
+
+    private static BitmapFactory.Options decodeBounds(String imgPath) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(imgPath, options);
+        return options;
+    }
+
+    /**
+     * 计算降采样倍数：在保证缩小后的宽高均不小于目标尺寸的前提下取最大的倍数
+     *
+     * @param width     原图宽度
+     * @param height    原图高度
+     * @param reqWidth  目标宽度
+     * @param reqHeight 目标高度
+     * @return 1、2、4或8
+     */
+    public static int calculateReduceFactor(int width, int height, int reqWidth, int reqHeight) {
+        int factor = 1;
+        if (width <= 0 || height <= 0 || reqWidth <= ORIGINAL_SIZE || reqHeight <= ORIGINAL_SIZE) {
+            return factor;
+        }
+        while (factor < MAX_REDUCE_FACTOR
+                && width / (factor * 2) >= reqWidth
+                && height / (factor * 2) >= reqHeight) {
+            factor *= 2;
+        }
+        return factor;
+    }
+
+    /**
+     * 获取降采样倍数对应的imread标志
+     *
+     * @param reduceFactor 降采样倍数
+     * @return
+     */
+    public static int getReadFlag(int reduceFactor) {
+        switch (reduceFactor) {
+            case 2:
+                return Imgcodecs.IMREAD_REDUCED_COLOR_2;
+            case 4:
+                return Imgcodecs.IMREAD_REDUCED_COLOR_4;
+            case 8:
+                return Imgcodecs.IMREAD_REDUCED_COLOR_8;
+            default:
+                return Imgcodecs.IMREAD_COLOR;
+        }
+    }
+}
@@ -0,0 +1,263 @@
+/*
+ * Copyright (C) 2019 xuexiangjys(xuexiangjys@163.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.xuexiang.imageprocess.core.deskew;
+
+import com.xuexiang.imageprocess.core.pool.MatPool;
+
+import org.opencv.core.Core;
+import org.opencv.core.Mat;
+import org.opencv.core.Point;
+import org.opencv.core.Scalar;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+
+import java.util.Arrays;
+
+import static org.opencv.core.CvType.CV_8UC1;
+
+/**
+ * 文档图片的倾斜校正
+ * <p>
+ * 1.估计角度：将图片缩小到不超过{@link #DEFAULT_WORK_SIZE}后用Otsu二值化，按候选角度把黑色像素投影到行上，
+ * 文字行与投影方向一致时投影最集中（各行像素数的平方和最大）<br>
+ * 2.由粗到细搜索：先以1°为步长搜索整个范围，再在最优角度附近逐级缩小步长，总共只需几十次投影<br>
+ * 3.校正：在原图上只做一次仿射旋转，图片外的区域填充为白色
+ * <p>
+ * 需对整张图片估计角度，不能用于分块处理。
+ *
+ * @author xuexiang
+ * @since 2026-10-19 03:00
+ */
+public final class Deskew {
+
+    /**
+     * 默认的最大校正角度（度）
+     */
+    public static final double DEFAULT_MAX_ANGLE = 15;
+    /**
+     * 默认的角度精度（度）
+     */
+    public static final double DEFAULT_PRECISION = 0.05;
+    /**
+     * 默认估计角度时图片缩小后的最大边长
+     */
+    public static final int DEFAULT_WORK_SIZE = 1024;
+
+    /**
+     * 粗搜索的步长（度）
+     */
+    private static final double COARSE_STEP = 1;
+    /**
+     * 每一级细化时步长缩小的倍数
+     */
+    private static final double REFINE_FACTOR = 5;
+
+    private final double mMaxAngle;
+    private final double mPrecision;
+    private final int mWorkSize;
+
+    public Deskew() {
+        this(DEFAULT_MAX_ANGLE, DEFAULT_PRECISION, DEFAULT_WORK_SIZE);
+    }
+
+    /**
+     * @param maxAngle  最大校正角度（度），范围(0, 45]
+     * @param precision 角度精度（度），角度小于该值时不做旋转
+     * @param workSize  估计角度时图片缩小后的最大边长
+     */
+    public Deskew(double maxAngle, double precision, int workSize) {
+        if (maxAngle <= 0 || maxAngle > 45) {
+            throw new IllegalArgumentException("Max angle must be in (0, 45], but was " + maxAngle);
+        }
+        if (precision <= 0) {
+            throw new IllegalArgumentException("Precision must be positive, but was " + precision);
+        }
+        if (workSize < 64) {
+            throw new IllegalArgumentException("Work size must not be less than 64, but was " + workSize);
+        }
+        mMaxAngle = maxAngle;
+        mPrecision = precision;
+        mWorkSize = workSize;
+    }
+
+    /**
+     * 估计并校正倾斜
+     *
+     * @param src 单通道或三通道（BGR）图片
+     * @param dst 输出，可复用，不支持原地处理
+     */
+    public void process(Mat src, Mat dst) {
+        double angle = estimate(src);
+        if (Math.abs(angle) < mPrecision) {
+            src.copyTo(dst);
+        } else {
+            rotate(src, dst, angle);
+        }
+    }
+
+    /**
+     * 估计图片的倾斜角度
+     *
+     * @param src 单通道或三通道（BGR）图片
+     * @return 文字行相对水平方向的角度（度），顺时针倾斜（向右下方）为正；即需要逆时针旋转的角度
+     */
+    public double estimate(Mat src) {
+        int channels = src.channels();
+        if (channels != 1 && channels != 3) {
+            throw new IllegalArgumentException("Deskew requires a single or three channel image, but was " + channels);
+        }
+        int width = src.cols();
+        int height = src.rows();
+        if (width == 0 || height == 0) {
+            return 0;
+        }
+        double scale = Math.min(1D, (double) mWorkSize / Math.max(width, height));
+        int workWidth = Math.max(1, (int) Math.round(width * scale));
+        int workHeight = Math.max(1, (int) Math.round(height * scale));
+
+        Mat small = MatPool.getDefault().acquire(workHeight, workWidth, src.type());
+        Mat mask = MatPool.getDefault().acquire(workHeight, workWidth, CV_8UC1);
+        try {
+            Imgproc.resize(src, small, new Size(workWidth, workHeight), 0, 0, Imgproc.INTER_AREA);
+            if (channels == 3) {
+                Imgproc.cvtColor(small, mask, Imgproc.COLOR_BGR2GRAY);
+            } else {
+                small.copyTo(mask);
+            }
+            Imgproc.threshold(mask, mask, 0, 255, Imgproc.THRESH_BINARY | Imgproc.THRESH_OTSU);
+            byte[] data = new byte[workWidth * workHeight];
+            mask.get(0, 0, data);
+            return estimate(data, workWidth, workHeight);
+        } finally {
+            MatPool.getDefault().release(small);
+            MatPool.getDefault().release(mask);
+        }
+    }
+
+    /**
+     * 估计二值图的倾斜角度
+     *
+     * @param mask   单通道二值图，连续存储，像素值为0的是前景（笔迹）
+     * @param width  宽
+     * @param height 高
+     * @return 文字行相对水平方向的角度（度），顺时针倾斜为正；没有前景时为0
+     */
+    public double estimate(byte[] mask, int width, int height) {
+        int count = 0;
+        for (int i = 0, size = width * height; i < size; i++) {
+            if (mask[i] == 0) {
+                count++;
+            }
+        }
+        if (count == 0) {
+            return 0;
+        }
+        //以图片中心为原点的前景坐标
+        int[] xs = new int[count];
+        int[] ys = new int[count];
+        int n = 0;
+        int cx = width / 2;
+        int cy = height / 2;
+        for (int y = 0; y < height; y++) {
+            int offset = y * width;
+            for (int x = 0; x < width; x++) {
+                if (mask[offset + x] == 0) {
+                    xs[n] = x - cx;
+                    ys[n] = y - cy;
+                    n++;
+                }
+            }
+        }
+        //投影后的行坐标不超过半对角线
+        int radius = (int) Math.ceil(Math.hypot(width, height) / 2) + 1;
+        int[] bins = new int[radius * 2 + 1];
+
+        double best = 0;
+        long bestScore = score(xs, ys, 0, bins, radius);
+        double low = -mMaxAngle;
+        double high = mMaxAngle;
+        double step = Math.max(COARSE_STEP, mPrecision);
+        while (true) {
+            int steps = (int) Math.round((high - low) / step);
+            for (int i = 0; i <= steps; i++) {
+                double angle = low + i * step;
+                long score = score(xs, ys, angle, bins, radius);
+                if (score > bestScore || (score == bestScore && Math.abs(angle) < Math.abs(best))) {
+                    bestScore = score;
+                    best = angle;
+                }
+            }
+            if (step <= mPrecision) {
+                break;
+            }
+            low = Math.max(-mMaxAngle, best - step);
+            high = Math.min(mMaxAngle, best + step);
+            step = Math.max(step / REFINE_FACTOR, mPrecision);
+        }
+        return best;
+    }
+
+    /**
+     * 按角度投影，返回各行像素数的平方和
+     */
+    private static long score(int[] xs, int[] ys, double angle, int[] bins, int radius) {
+        double radians = Math.toRadians(angle);
+        double sin = Math.sin(radians);
+        double cos = Math.cos(radians);
+        Arrays.fill(bins, 0);
+        for (int i = 0; i < xs.length; i++) {
+            bins[(int) Math.round(ys[i] * cos - xs[i] * sin) + radius]++;
+        }
+        long score = 0;
+        for (int bin : bins) {
+            score += (long) bin * bin;
+        }
+        return score;
+    }
+
+    /**
+     * 以图片中心旋转，尺寸不变，图片外的区域填充为白色
+     *
+     * @param src   图片
+     * @param dst   输出，可复用，不支持原地处理
+     * @param angle 逆时针旋转的角度（度）
+     */
+    public static void rotate(Mat src, Mat dst, double angle) {
+        Mat matrix = Imgproc.getRotationMatrix2D(new Point(src.cols() / 2D, src.rows() / 2D), angle, 1);
+        try {
+            Imgproc.warpAffine(src, dst, matrix, src.size(), Imgproc.INTER_LINEAR, Core.BORDER_CONSTANT, Scalar.all(255));
+        } finally {
+            matrix.release();
+        }
+    }
+
+    public double getMaxAngle() {
+        return mMaxAngle;
+    }
+
+    public double getPrecision() {
+        return mPrecision;
+    }
+
+    /**
+     * @return 名称（包含参数），用于日志及标识
+     */
+    public String getName() {
+        return "deskew(" + mMaxAngle + "," + mPrecision + "," + mWorkSize + ")";
+    }
+}
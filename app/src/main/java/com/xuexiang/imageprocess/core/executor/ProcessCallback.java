@@ -0,0 +1,46 @@
+/*
+ * Copyright (C) 2019 xuexiangjys(xuexiangjys@163.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.xuexiang.imageprocess.core.executor;
+
+/**
+ * 图片处理任务的回调，在ProcessScheduler指定的回调线程中执行
+ *
+ * @author xuexiang
+ * @since 2026-10-18 11:02
+ */
+public interface ProcessCallback<T> {
+
+    /**
+     * 处理成功
+     *
+     * @param result 处理结果
+     */
+    void onSuccess(T result);
+
+    /**
+     * 处理失败
+     *
+     * @param e 异常
+     */
+    void onFailed(Throwable e);
+
+    /**
+     * 任务被取消（被同一key的新任务顶替、被主动取消或被挤出队列）
+     */
+    void onCancelled();
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2019 xuexiangjys(xuexiangjys@163.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.xuexiang.imageprocess.core.executor;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+
+/**
+ * 图片处理任务
+ *
+ * @author xuexiang
+ * @since 2026-10-18 11:05
+ */
+public class ProcessJob<T> extends FutureTask<T> {
+
+    private final String mKey;
+    private final ProcessCallback<T> mCallback;
+    private final Executor mCallbackExecutor;
+    private final ProcessScheduler mScheduler;
+    /**
+     * 任务被取消的标志。任务计算完成后再被取消时，FutureTask本身已无法取消，需靠该标志丢弃结果
+     */
+    private volatile boolean mCancelled;
+
+    ProcessJob(ProcessScheduler scheduler, String key, Callable<T> callable, ProcessCallback<T> callback, Executor callbackExecutor) {
+        super(callable);
+        mScheduler = scheduler;
+        mKey = key;
+        mCallback = callback;
+        mCallbackExecutor = callbackExecutor;
+    }
+
+    /**
+     * @return 任务的key，同一key的任务只会保留最新的一个
+     */
+    public String getKey() {
+        return mKey;
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        mCancelled = true;
+        return super.cancel(mayInterruptIfRunning);
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return mCancelled || super.isCancelled();
+    }
+
+    @Override
+    protected void done() {
+        mScheduler.onJobDone(this);
+        if (mCallback == null) {
+            return;
+        }
+        mCallbackExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                deliver();
+            }
+        });
+    }
+
+    /**
+     * 分发结果，在回调线程中执行。分发前再次检查是否已被取消，保证被顶替的任务不会覆盖新任务的结果
+     */
+    private void deliver() {
+        if (isCancelled()) {
+            mCallback.onCancelled();
+            return;
+        }
+        T result;
+        try {
+            result = get();
+        } catch (CancellationException e) {
+            mCallback.onCancelled();
+            return;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof CancellationException) {
+                mCallback.onCancelled();
+            } else {
+                mCallback.onFailed(cause);
+            }
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            mCallback.onCancelled();
+            return;
+        }
+        if (isCancelled()) {
+            mCallback.onCancelled();
+        } else {
+            mCallback.onSuccess(result);
+        }
+    }
+}
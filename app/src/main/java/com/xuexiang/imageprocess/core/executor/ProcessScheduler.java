@@ -0,0 +1,198 @@
+/*
+ * Copyright (C) 2019 xuexiangjys(xuexiangjys@163.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.xuexiang.imageprocess.core.executor;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 图片处理调度器（纯Java实现，可在JVM上直接测试）
+ * <p>
+ * 1.固定数量的工作线程 + 有界任务队列，队列满时挤掉最老的排队任务<br>
+ * 2.同一key只保留最新的任务，新任务提交时会取消旧任务（如快速连续点击不同的处理按钮）<br>
+ * 3.结果通过回调执行器分发，Android上一般使用{@link MainThreadExecutor}回到主线程
+ *
+ * @author xuexiang
+ * @since 2026-10-18 11:10
+ */
+public class ProcessScheduler {
+
+    /**
+     * 默认的任务队列容量
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 16;
+
+    private final ThreadPoolExecutor mExecutor;
+    private final Executor mCallbackExecutor;
+    private final ConcurrentHashMap<String, ProcessJob<?>> mActiveJobs = new ConcurrentHashMap<>();
+
+    /**
+     * 构造
+     *
+     * @param callbackExecutor 回调执行器
+     */
+    public ProcessScheduler(Executor callbackExecutor) {
+        this(getDefaultWorkerCount(), DEFAULT_QUEUE_CAPACITY, callbackExecutor);
+    }
+
+    /**
+     * 构造
+     *
+     * @param workerCount      工作线程数
+     * @param queueCapacity    任务队列容量
+     * @param callbackExecutor 回调执行器
+     */
+    public ProcessScheduler(int workerCount, int queueCapacity, Executor callbackExecutor) {
+        if (workerCount <= 0 || queueCapacity <= 0) {
+            throw new IllegalArgumentException("workerCount and queueCapacity must be positive!");
+        }
+        if (callbackExecutor == null) {
+            throw new NullPointerException("callbackExecutor == null");
+        }
+        mCallbackExecutor = callbackExecutor;
+        mExecutor = new ThreadPoolExecutor(workerCount, workerCount, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(queueCapacity), new ProcessThreadFactory(), new DiscardOldestJobPolicy());
+        mExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * 提交任务。若已有相同key的任务未完成，旧任务将被取消
+     *
+     * @param key      任务的key
+     * @param task     任务
+     * @param callback 回调
+     * @return 任务
+     */
+    public <T> ProcessJob<T> submit(String key, Callable<T> task, ProcessCallback<T> callback) {
+        ProcessJob<T> job = new ProcessJob<>(this, key, task, callback, mCallbackExecutor);
+        if (key != null) {
+            ProcessJob<?> previous = mActiveJobs.put(key, job);
+            if (previous != null && previous.cancel(true)) {
+                //还在排队的旧任务直接移出队列
+                mExecutor.remove(previous);
+            }
+        }
+        mExecutor.execute(job);
+        return job;
+    }
+
+    /**
+     * 取消指定key的任务
+     *
+     * @param key 任务的key
+     * @return 是否有任务被取消
+     */
+    public boolean cancel(String key) {
+        ProcessJob<?> job = mActiveJobs.remove(key);
+        if (job != null && job.cancel(true)) {
+            mExecutor.remove(job);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 取消所有任务
+     */
+    public void cancelAll() {
+        for (String key : mActiveJobs.keySet()) {
+            cancel(key);
+        }
+        for (Runnable runnable : mExecutor.getQueue().toArray(new Runnable[0])) {
+            if (mExecutor.remove(runnable) && runnable instanceof ProcessJob) {
+                ((ProcessJob<?>) runnable).cancel(true);
+            }
+        }
+    }
+
+    /**
+     * 取消所有任务并关闭调度器
+     */
+    public void shutdown() {
+        cancelAll();
+        mExecutor.shutdown();
+    }
+
+    /**
+     * @return 正在排队的任务数
+     */
+    public int getQueuedCount() {
+        return mExecutor.getQueue().size();
+    }
+
+    /**
+     * @return 正在执行的任务数
+     */
+    public int getRunningCount() {
+        return mExecutor.getActiveCount();
+    }
+
+    /**
+     * 任务结束（完成、失败或取消）
+     */
+    void onJobDone(ProcessJob<?> job) {
+        if (job.getKey() != null) {
+            mActiveJobs.remove(job.getKey(), job);
+        }
+    }
+
+    private static int getDefaultWorkerCount() {
+        return Math.max(1, Math.min(Runtime.getRuntime().availableProcessors() - 1, 4));
+    }
+
+    /**
+     * 队列满时，取消最老的排队任务以腾出空间
+     */
+    private static class DiscardOldestJobPolicy implements RejectedExecutionHandler {
+
+        @Override
+        public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+            if (executor.isShutdown()) {
+                if (r instanceof ProcessJob) {
+                    ((ProcessJob<?>) r).cancel(true);
+                }
+                return;
+            }
+            Runnable oldest = executor.getQueue().poll();
+            if (oldest instanceof ProcessJob) {
+                ((ProcessJob<?>) oldest).cancel(true);
+            }
+            executor.execute(r);
+        }
+    }
+
+    private static class ProcessThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger mCount = new AtomicInteger(1);
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "ImageProcess-" + mCount.getAndIncrement());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            return thread;
+        }
+    }
+}
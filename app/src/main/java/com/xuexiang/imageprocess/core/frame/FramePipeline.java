@@ -0,0 +1,315 @@
+/*
+ * Copyright (C) 2019 xuexiangjys(xuexiangjys@163.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.xuexiang.imageprocess.core.frame;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 实时帧处理流水线（纯Java实现），适用于相机预览等持续产生帧的场景
+ * <p>
+ * 1.固定数量的帧在"空闲 -> 填充 -> 待处理 -> 处理中 -> 空闲"之间循环复用，运行中不再分配<br>
+ * 2.只保留最新的一帧待处理：处理跟不上时，旧的待处理帧直接丢弃而不是排队，保证显示的总是最新画面<br>
+ * 3.统计接收、处理、丢弃的帧数和处理帧率
+ * <p>
+ * 使用方式（生产者线程，如相机回调）：
+ * <pre>
+ *     F frame = pipeline.obtainFrame();
+ *     //填充frame
+ *     pipeline.submitFrame(frame);
+ * </pre>
+ *
+ * @param <F> 帧类型
+ * @author xuexiang
+ * @since 2026-10-19 00:10
+ */
+public final class FramePipeline<F> {
+
+    /**
+     * 默认帧数：填充中、待处理、处理中各一帧
+     */
+    public static final int DEFAULT_CAPACITY = 3;
+    /**
+     * 帧率的统计周期
+     */
+    private static final long FPS_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final IFrameFactory<F> mFactory;
+    private final IFrameProcessor<F> mProcessor;
+    private final int mCapacity;
+
+    private final Object mLock = new Object();
+    private final ArrayDeque<F> mFreeFrames = new ArrayDeque<>();
+    private F mPendingFrame;
+    private Thread mWorker;
+    private boolean mRunning;
+
+    private long mReceivedCount;
+    private long mProcessedCount;
+    private long mDroppedCount;
+    private long mFailedCount;
+    private RuntimeException mLastError;
+    private long mFpsWindowStart;
+    private int mFpsWindowFrames;
+    private float mFps;
+
+    public FramePipeline(IFrameFactory<F> factory, IFrameProcessor<F> processor) {
+        this(factory, processor, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param factory   帧的创建与释放
+     * @param processor 帧处理器
+     * @param capacity  循环复用的帧数，不小于2
+     */
+    public FramePipeline(IFrameFactory<F> factory, IFrameProcessor<F> processor, int capacity) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("capacity must be >= 2, but was " + capacity);
+        }
+        mFactory = factory;
+        mProcessor = processor;
+        mCapacity = capacity;
+    }
+
+    /**
+     * 分配帧并启动处理线程
+     */
+    public void start() {
+        synchronized (mLock) {
+            if (mRunning) {
+                return;
+            }
+            for (int i = 0; i < mCapacity; i++) {
+                mFreeFrames.add(mFactory.create());
+            }
+            mRunning = true;
+            mFpsWindowStart = System.nanoTime();
+            mWorker = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    processLoop();
+                }
+            }, "FramePipeline");
+            mWorker.start();
+        }
+    }
+
+    /**
+     * 停止处理线程并释放所有帧，等待正在处理的帧处理完成后才返回，
+     * 因此返回后处理器不会再被调用，可以安全地释放处理器使用的资源
+     */
+    public void stop() {
+        Thread worker;
+        synchronized (mLock) {
+            if (!mRunning) {
+                return;
+            }
+            mRunning = false;
+            worker = mWorker;
+            mWorker = null;
+            if (mPendingFrame != null) {
+                mFactory.release(mPendingFrame);
+                mPendingFrame = null;
+            }
+            while (!mFreeFrames.isEmpty()) {
+                mFactory.release(mFreeFrames.poll());
+            }
+            mLock.notifyAll();
+        }
+        worker.interrupt();
+        if (worker != Thread.currentThread()) {
+            join(worker);
+        }
+    }
+
+    /**
+     * 等待处理线程结束，期间的中断延后到结束后恢复
+     */
+    private static void join(Thread worker) {
+        boolean interrupted = false;
+        while (worker.isAlive()) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 获取一个空闲帧用于填充。没有空闲帧时回收尚未处理的旧帧（计为丢弃）
+     *
+     * @return 未运行时，或所有帧都在使用中（生产者未提交已获取的帧）时返回null
+     */
+    public F obtainFrame() {
+        synchronized (mLock) {
+            if (!mRunning) {
+                return null;
+            }
+            F frame = mFreeFrames.poll();
+            if (frame == null && mPendingFrame != null) {
+                frame = mPendingFrame;
+                mPendingFrame = null;
+                mDroppedCount++;
+            }
+            return frame;
+        }
+    }
+
+    /**
+     * 提交填充好的帧，替换掉尚未处理的旧帧（计为丢弃）
+     *
+     * @param frame 通过{@link #obtainFrame()}获取的帧
+     */
+    public void submitFrame(F frame) {
+        if (frame == null) {
+            return;
+        }
+        synchronized (mLock) {
+            if (!mRunning) {
+                mFactory.release(frame);
+                return;
+            }
+            mReceivedCount++;
+            if (mPendingFrame != null) {
+                mFreeFrames.add(mPendingFrame);
+                mDroppedCount++;
+            }
+            mPendingFrame = frame;
+            mLock.notifyAll();
+        }
+    }
+
+    private void processLoop() {
+        while (true) {
+            F frame;
+            synchronized (mLock) {
+                while (mRunning && mPendingFrame == null) {
+                    try {
+                        mLock.wait();
+                    } catch (InterruptedException e) {
+                        //由stop唤醒，重新检查状态
+                    }
+                }
+                if (!mRunning) {
+                    return;
+                }
+                frame = mPendingFrame;
+                mPendingFrame = null;
+            }
+
+            RuntimeException error = null;
+            try {
+                mProcessor.process(frame);
+            } catch (RuntimeException e) {
+                //单帧处理失败不影响后续帧
+                error = e;
+            }
+
+            synchronized (mLock) {
+                if (error == null) {
+                    mProcessedCount++;
+                    updateFps();
+                } else {
+                    mFailedCount++;
+                    mLastError = error;
+                }
+                if (mRunning) {
+                    mFreeFrames.add(frame);
+                } else {
+                    mFactory.release(frame);
+                    return;
+                }
+            }
+        }
+    }
+
+    private void updateFps() {
+        mFpsWindowFrames++;
+        long now = System.nanoTime();
+        long elapsed = now - mFpsWindowStart;
+        if (elapsed >= FPS_WINDOW_NANOS) {
+            mFps = mFpsWindowFrames * (float) TimeUnit.SECONDS.toNanos(1) / elapsed;
+            mFpsWindowStart = now;
+            mFpsWindowFrames = 0;
+        }
+    }
+
+    public boolean isRunning() {
+        synchronized (mLock) {
+            return mRunning;
+        }
+    }
+
+    /**
+     * @return 提交的帧数
+     */
+    public long getReceivedCount() {
+        synchronized (mLock) {
+            return mReceivedCount;
+        }
+    }
+
+    /**
+     * @return 处理完成的帧数
+     */
+    public long getProcessedCount() {
+        synchronized (mLock) {
+            return mProcessedCount;
+        }
+    }
+
+    /**
+     * @return 因处理不及时被丢弃的帧数
+     */
+    public long getDroppedCount() {
+        synchronized (mLock) {
+            return mDroppedCount;
+        }
+    }
+
+    /**
+     * @return 处理时抛出异常的帧数
+     */
+    public long getFailedCount() {
+        synchronized (mLock) {
+            return mFailedCount;
+        }
+    }
+
+    /**
+     * @return 最近一次处理失败的异常
+     */
+    public RuntimeException getLastError() {
+        synchronized (mLock) {
+            return mLastError;
+        }
+    }
+
+    /**
+     * @return 最近一个统计周期内的处理帧率
+     */
+    public float getFps() {
+        synchronized (mLock) {
+            return mFps;
+        }
+    }
+}
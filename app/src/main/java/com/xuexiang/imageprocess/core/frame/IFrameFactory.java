@@ -0,0 +1,42 @@
+/*
+ * Copyright (C) 2019 xuexiangjys(xuexiangjys@163.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.xuexiang.imageprocess.core.frame;
+
+/**
+ * 帧的创建与释放，帧在FramePipeline中循环复用
+ *
+ * @param <F> 帧类型
+ * @author xuexiang
+ * @since 2026-10-19 00:00
+ */
+public interface IFrameFactory<F> {
+
+    /**
+     * 创建一个空帧，尺寸由填充时决定
+     *
+     * @return
+     */
+    F create();
+
+    /**
+     * 释放帧占用的资源
+     *
+     * @param frame
+     */
+    void release(F frame);
+}
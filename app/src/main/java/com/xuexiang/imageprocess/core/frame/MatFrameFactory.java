@@ -0,0 +1,39 @@
+/*
+ * Copyright (C) 2019 xuexiangjys(xuexiangjys@163.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.xuexiang.imageprocess.core.frame;
+
+import org.opencv.core.Mat;
+
+/**
+ * Mat帧的创建与释放
+ *
+ * @author xuexiang
+ * @since 2026-10-19 00:05
+ */
+public class MatFrameFactory implements IFrameFactory<Mat> {
+
+    @Override
+    public Mat create() {
+        return new Mat();
+    }
+
+    @Override
+    public void release(Mat frame) {
+        frame.release();
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright (C) 2019 xuexiangjys(xuexiangjys@163.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.xuexiang.imageprocess.core.kernel;
+
+/**
+ * 像素级处理内核（纯Java实现），直接操作原始的字节缓冲，循环内不产生任何对象
+ *
+ * @author xuexiang
+ * @since 2026-10-18 14:20
+ */
+public final class PixelKernels {
+
+    private PixelKernels() {
+        throw new UnsupportedOperationException("u can't instantiate me...");
+    }
+
+    /**
+     * BGR转灰度的定点系数，与OpenCV的COLOR_BGR2GRAY一致（Y = 0.114B + 0.587G + 0.299R）
+     */
+    private static final int GRAY_SHIFT = 14;
+    private static final int GRAY_B = 1868;
+    private static final int GRAY_G = 9617;
+    private static final int GRAY_R = 4899;
+    private static final int GRAY_ROUND = 1 << (GRAY_SHIFT - 1);
+
+    /**
+     * 灰度化，结果与OpenCV的COLOR_BGR2GRAY逐像素一致
+     *
+     * @param src       BGR/BGRA像素
+     * @param srcOffset src起始下标
+     * @param channels  通道数，3或4（多余的通道被忽略）
+     * @param dst       单通道输出
+     * @param dstOffset dst起始下标
+     * @param pixels    像素数
+     */
+    public static void grayScale(byte[] src, int srcOffset, int channels, byte[] dst, int dstOffset, int pixels) {
+        int s = srcOffset;
+        int end = dstOffset + pixels;
+        for (int d = dstOffset; d < end; d++, s += channels) {
+            dst[d] = (byte) (((src[s] & 0xFF) * GRAY_B + (src[s + 1] & 0xFF) * GRAY_G
+                    + (src[s + 2] & 0xFF) * GRAY_R + GRAY_ROUND) >> GRAY_SHIFT);
+        }
+    }
+
+    /**
+     * 阈值处理（THRESH_BINARY），大于thresh为maxval，否则为0。支持原地处理
+     *
+     * @param src       输入
+     * @param srcOffset src起始下标
+     * @param dst       输出
+     * @param dstOffset dst起始下标
+     * @param count     元素个数
+     * @param thresh    阈值
+     * @param maxval    最大值
+     */
+    public static void threshold(byte[] src, int srcOffset, byte[] dst, int dstOffset, int count, int thresh, byte maxval) {
+        int s = srcOffset;
+        int end = dstOffset + count;
+        for (int d = dstOffset; d < end; d++, s++) {
+            dst[d] = (src[s] & 0xFF) > thresh ? maxval : 0;
+        }
+    }
+
+    /**
+     * 提取指定通道并进行阈值处理，一次遍历完成
+     *
+     * @param src          多通道像素
+     * @param srcOffset    src起始下标
+     * @param channels     通道数
+     * @param channelIndex 通道序号
+     * @param dst          单通道输出
+     * @param dstOffset    dst起始下标
+     * @param pixels       像素数
+     * @param thresh       阈值
+     * @param maxval       最大值
+     */
+    public static void extractThreshold(byte[] src, int srcOffset, int channels, int channelIndex, byte[] dst, int dstOffset,
+                                        int pixels, int thresh, byte maxval) {
+        int s = srcOffset + channelIndex;
+        int end = dstOffset + pixels;
+        for (int d = dstOffset; d < end; d++, s += channels) {
+            dst[d] = (src[s] & 0xFF) > thresh ? maxval : 0;
+        }
+    }
+
+    /**
+     * 去除彩色，只保留黑色的笔迹。单次遍历，像素满足以下任一条件即视为背景(maxval)，否则为笔迹(0)：
+     * <ul>
+     * <li>最亮的通道值大于thresh（亮色或彩色印章）</li>
+     * <li>通道间的最大差值大于spread（深色但有明显色彩，如蓝色笔迹）</li>
+     * </ul>
+     *
+     * @param src       BGR/BGRA像素
+     * @param srcOffset src起始下标
+     * @param channels  通道数，3或4（多余的通道被忽略）
+     * @param dst       单通道输出
+     * @param dstOffset dst起始下标
+     * @param pixels    像素数
+     * @param thresh    亮度阈值
+     * @param spread    色彩阈值
+     * @param maxval    背景值
+     */
+    public static void clearColour(byte[] src, int srcOffset, int channels, byte[] dst, int dstOffset, int pixels,
+                                   int thresh, int spread, byte maxval) {
+        int s = srcOffset;
+        int end = dstOffset + pixels;
+        for (int d = dstOffset; d < end; d++, s += channels) {
+            int b = src[s] & 0xFF;
+            int g = src[s + 1] & 0xFF;
+            int r = src[s + 2] & 0xFF;
+            int max = b > g ? (b > r ? b : r) : (g > r ? g : r);
+            int min = b < g ? (b < r ? b : r) : (g < r ? g : r);
+            dst[d] = max > thresh || max - min > spread ? maxval : 0;
+        }
+    }
+
+    /**
+     * 统计直方图，所有通道在一次遍历中完成
+     *
+     * @param src       像素
+     * @param srcOffset src起始下标
+     * @param channels  通道数
+     * @param pixels    像素数
+     * @param counts    输出，第c个通道值为v的像素数累加到counts[c * 256 + v]
+     */
+    public static void histogram(byte[] src, int srcOffset, int channels, int pixels, int[] counts) {
+        int end = srcOffset + pixels * channels;
+        if (channels == 1) {
+            for (int s = srcOffset; s < end; s++) {
+                counts[src[s] & 0xFF]++;
+            }
+            return;
+        }
+        for (int s = srcOffset; s < end; s += channels) {
+            for (int c = 0; c < channels; c++) {
+                counts[(c << 8) + (src[s + c] & 0xFF)]++;
+            }
+        }
+    }
+
+    /**
+     * 将double类型的阈值转换为与{@code THRESH_BINARY}一致的整数阈值（像素值大于该值即为maxval）
+     *
+     * @param thresh 阈值
+     * @return
+     */
+    public static int toIntThresh(double thresh) {
+        return (int) Math.floor(thresh);
+    }
+
+    /**
+     * 将double类型的最大值饱和转换为字节
+     *
+     * @param maxval 最大值
+     * @return
+     */
+    public static byte toByte(double maxval) {
+        long value = Math.round(maxval);
+        return (byte) (value < 0 ? 0 : (value > 255 ? 255 : value));
+    }
+}
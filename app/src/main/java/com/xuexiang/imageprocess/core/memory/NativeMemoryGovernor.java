@@ -0,0 +1,228 @@
+/*
+ * Copyright (C) 2019 xuexiangjys(xuexiangjys@163.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.xuexiang.imageprocess.core.memory;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.CancellationException;
+
+/**
+ * native内存的预算控制（纯Java实现，可在JVM上直接测试）
+ * <p>
+ * OpenCV的Mat分配在Java堆外，GC和堆上限都感知不到，多张大图同时处理时容易被系统的低内存机制杀掉进程。
+ * 处理前先按宽 × 高 × 通道数 × 阶段数估计占用并申请，超出预算时等待其他任务归还：<br>
+ * 1.小图可以同时处理多张，大图则自动排队，并发度随图片大小变化<br>
+ * 2.按申请顺序放行，大图不会被源源不断的小图饿死<br>
+ * 3.没有其他任务占用时总会放行，因此单张超出预算的图片也能处理，不会死锁
+ *
+ * @author xuexiang
+ * @since 2026-10-19 04:00
+ */
+public final class NativeMemoryGovernor {
+
+    /**
+     * 默认的预算字节数
+     */
+    public static final long DEFAULT_BUDGET_BYTES = 256 * 1024 * 1024;
+
+    private static volatile NativeMemoryGovernor sDefault;
+
+    /**
+     * 等待放行的申请（每个等待的线程一个标识对象），按申请顺序排列
+     */
+    private final ArrayDeque<Object> mWaiting = new ArrayDeque<>();
+    private long mBudget;
+    private long mUsed;
+    private long mPeak;
+    private long mAdmittedCount;
+    private long mWaitedCount;
+
+    public NativeMemoryGovernor(long budget) {
+        setBudgetInternal(budget);
+    }
+
+    /**
+     * @return 默认的预算控制
+     */
+    public static NativeMemoryGovernor getDefault() {
+        if (sDefault == null) {
+            synchronized (NativeMemoryGovernor.class) {
+                if (sDefault == null) {
+                    sDefault = new NativeMemoryGovernor(DEFAULT_BUDGET_BYTES);
+                }
+            }
+        }
+        return sDefault;
+    }
+
+    /**
+     * 估计处理一张图片的native内存：输入加上每个阶段一份同尺寸的输出（偏保守）
+     *
+     * @param width      宽
+     * @param height     高
+     * @param channels   输入的通道数
+     * @param stageCount 处理阶段数
+     * @return 字节数
+     */
+    public static long estimate(int width, int height, int channels, int stageCount) {
+        if (width <= 0 || height <= 0) {
+            return 0;
+        }
+        return (long) width * height * Math.max(1, channels) * (Math.max(0, stageCount) + 1);
+    }
+
+    /**
+     * 申请内存，超出预算时阻塞等待
+     *
+     * @param bytes 字节数，不大于0时直接返回
+     * @throws CancellationException 等待时线程被中断（所在的任务已被取消），线程的中断标志会被保留
+     */
+    public void acquire(long bytes) {
+        if (bytes <= 0) {
+            return;
+        }
+        synchronized (this) {
+            if (mWaiting.isEmpty() && fits(bytes)) {
+                admit(bytes);
+                return;
+            }
+            Object request = new Object();
+            mWaiting.addLast(request);
+            mWaitedCount++;
+            try {
+                while (mWaiting.peekFirst() != request || !fits(bytes)) {
+                    wait();
+                }
+            } catch (InterruptedException e) {
+                mWaiting.remove(request);
+                //队首可能正好是自己，需通知后面的申请
+                notifyAll();
+                Thread.currentThread().interrupt();
+                throw new CancellationException("Interrupted while waiting for " + bytes + " native bytes");
+            }
+            mWaiting.pollFirst();
+            admit(bytes);
+            //后面的申请可能也放得下
+            notifyAll();
+        }
+    }
+
+    /**
+     * 尝试申请内存，不等待
+     *
+     * @param bytes 字节数
+     * @return 是否申请成功
+     */
+    public synchronized boolean tryAcquire(long bytes) {
+        if (bytes <= 0) {
+            return true;
+        }
+        if (mWaiting.isEmpty() && fits(bytes)) {
+            admit(bytes);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 归还通过{@link #acquire(long)}申请的内存
+     *
+     * @param bytes 字节数，需与申请时一致
+     */
+    public synchronized void release(long bytes) {
+        if (bytes <= 0) {
+            return;
+        }
+        mUsed = Math.max(0, mUsed - bytes);
+        notifyAll();
+    }
+
+    /**
+     * 设置预算，调小不影响已放行的任务
+     *
+     * @param budget 预算字节数
+     * @return
+     */
+    public synchronized NativeMemoryGovernor setBudget(long budget) {
+        setBudgetInternal(budget);
+        notifyAll();
+        return this;
+    }
+
+    public synchronized long getBudget() {
+        return mBudget;
+    }
+
+    /**
+     * @return 当前已放行的字节数
+     */
+    public synchronized long getUsedBytes() {
+        return mUsed;
+    }
+
+    /**
+     * @return 已放行字节数的峰值
+     */
+    public synchronized long getPeakBytes() {
+        return mPeak;
+    }
+
+    /**
+     * @return 正在等待的申请数
+     */
+    public synchronized int getWaitingCount() {
+        return mWaiting.size();
+    }
+
+    /**
+     * @return 放行的申请数
+     */
+    public synchronized long getAdmittedCount() {
+        return mAdmittedCount;
+    }
+
+    /**
+     * @return 需要等待才放行（或被取消）的申请数
+     */
+    public synchronized long getWaitedCount() {
+        return mWaitedCount;
+    }
+
+    /**
+     * 重置峰值为当前值
+     */
+    public synchronized void resetPeak() {
+        mPeak = mUsed;
+    }
+
+    private void setBudgetInternal(long budget) {
+        if (budget <= 0) {
+            throw new IllegalArgumentException("budget must be positive!");
+        }
+        mBudget = budget;
+    }
+
+    private boolean fits(long bytes) {
+        return mUsed == 0 || mUsed + bytes <= mBudget;
+    }
+
+    private void admit(long bytes) {
+        mUsed += bytes;
+        mPeak = Math.max(mPeak, mUsed);
+        mAdmittedCount++;
+    }
+}
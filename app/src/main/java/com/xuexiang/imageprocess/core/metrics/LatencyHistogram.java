@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2019 xuexiangjys(xuexiangjys@163.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.xuexiang.imageprocess.core.metrics;
+
+import java.util.Locale;
+
+/**
+ * 耗时直方图，按2的幂次划分微秒级的桶（[0,1)、[1,2)、[2,4)...），同时记录各阶段产生的native内存
+ *
+ * @author xuexiang
+ * @since 2026-10-18 21:00
+ */
+public final class LatencyHistogram {
+
+    /**
+     * 最大的桶覆盖到2^31微秒（约36分钟）
+     */
+    private static final int BUCKET_COUNT = 32;
+
+    private final String mName;
+    private final long[] mBuckets = new long[BUCKET_COUNT];
+    private long mCount;
+    private long mTotalNanos;
+    private long mMaxNanos;
+    private long mNativeBytes;
+
+    public LatencyHistogram(String name) {
+        mName = name;
+    }
+
+    /**
+     * 记录一次耗时
+     *
+     * @param costNanos   耗时（纳秒）
+     * @param nativeBytes 本次产生的native内存，未知时为0
+     */
+    public synchronized void record(long costNanos, long nativeBytes) {
+        if (costNanos < 0) {
+            costNanos = 0;
+        }
+        mBuckets[getBucketIndex(costNanos / 1000)]++;
+        mCount++;
+        mTotalNanos += costNanos;
+        if (costNanos > mMaxNanos) {
+            mMaxNanos = costNanos;
+        }
+        mNativeBytes += nativeBytes;
+    }
+
+    /**
+     * 估算分位值，返回所在桶的上界
+     *
+     * @param percentile 0~100
+     * @return 耗时（微秒）
+     */
+    public synchronized long getPercentileMicros(double percentile) {
+        if (mCount == 0) {
+            return 0;
+        }
+        long target = (long) Math.ceil(mCount * Math.min(100D, Math.max(0D, percentile)) / 100D);
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += mBuckets[i];
+            if (seen >= Math.max(1, target)) {
+                //最后一个桶的上界就是最大值
+                return Math.min(1L << i, mMaxNanos / 1000 + 1);
+            }
+        }
+        return mMaxNanos / 1000;
+    }
+
+    public String getName() {
+        return mName;
+    }
+
+    public synchronized long getCount() {
+        return mCount;
+    }
+
+    public synchronized long getTotalNanos() {
+        return mTotalNanos;
+    }
+
+    public synchronized long getMaxNanos() {
+        return mMaxNanos;
+    }
+
+    /**
+     * @return 累计产生的native内存（字节）
+     */
+    public synchronized long getNativeBytes() {
+        return mNativeBytes;
+    }
+
+    public synchronized void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            mBuckets[i] = 0;
+        }
+        mCount = 0;
+        mTotalNanos = 0;
+        mMaxNanos = 0;
+        mNativeBytes = 0;
+    }
+
+    @Override
+    public synchronized String toString() {
+        long avg = mCount == 0 ? 0 : mTotalNanos / mCount / 1000;
+        return String.format(Locale.US, "%s: count=%d, avg=%dus, p50=%dus, p90=%dus, p99=%dus, max=%dus, native=%dKB",
+                mName, mCount, avg, getPercentileMicros(50), getPercentileMicros(90), getPercentileMicros(99),
+                mMaxNanos / 1000, mNativeBytes / 1024);
+    }
+
+    /**
+     * [2^(i-1), 2^i)微秒落在第i个桶
+     */
+    private static int getBucketIndex(long micros) {
+        if (micros <= 0) {
+            return 0;
+        }
+        return Math.min(BUCKET_COUNT - 1, 64 - Long.numberOfLeadingZeros(micros));
+    }
+}
@@ -0,0 +1,259 @@
+/*
+ * Copyright (C) 2019 xuexiangjys(xuexiangjys@163.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.xuexiang.imageprocess.core.metrics;
+
+import com.xuexiang.imageprocess.core.cache.DecodedImageCache;
+import com.xuexiang.imageprocess.core.cache.ResultCache;
+import com.xuexiang.imageprocess.core.pool.MatPool;
+import com.xuexiang.xutil.common.logger.Logger;
+
+import org.opencv.core.Mat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 图片处理的统计中心：记录解码、Mat/Bitmap转换、各处理阶段的耗时直方图和产生的native内存，
+ * 并汇总解码缓存、结果缓存和Mat缓冲池的命中率
+ * <p>
+ * 使用方式：
+ * <pre>
+ *     long begin = ProcessMetrics.getDefault().begin();
+ *     ...
+ *     ProcessMetrics.getDefault().end(ProcessMetrics.STAGE_DECODE, begin, ProcessMetrics.sizeOf(mat));
+ * </pre>
+ * 关闭后begin返回0，end直接返回，不产生额外开销。
+ *
+ * @author xuexiang
+ * @since 2026-10-18 21:10
+ */
+public final class ProcessMetrics {
+
+    /**
+     * 解码
+     */
+    public static final String STAGE_DECODE = "decode";
+    /**
+     * Bitmap转Mat
+     */
+    public static final String STAGE_BITMAP_TO_MAT = "bitmap2Mat";
+    /**
+     * Mat转Bitmap
+     */
+    public static final String STAGE_MAT_TO_BITMAP = "mat2Bitmap";
+    /**
+     * 整个处理流水线
+     */
+    public static final String STAGE_PIPELINE = "pipeline";
+    /**
+     * 流水线中单个处理阶段的前缀
+     */
+    public static final String STAGE_PREFIX = "stage:";
+
+    private static volatile ProcessMetrics sInstance;
+
+    private final Map<String, LatencyHistogram> mHistograms = new TreeMap<>();
+    private final List<OnMetricsListener> mListeners = new CopyOnWriteArrayList<>();
+    private volatile boolean mEnabled = true;
+
+    public ProcessMetrics() {
+
+    }
+
+    public static ProcessMetrics getDefault() {
+        if (sInstance == null) {
+            synchronized (ProcessMetrics.class) {
+                if (sInstance == null) {
+                    sInstance = new ProcessMetrics();
+                }
+            }
+        }
+        return sInstance;
+    }
+
+    /**
+     * 开始计时
+     *
+     * @return 开始时间，未开启统计时为0
+     */
+    public long begin() {
+        return mEnabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * 结束计时
+     *
+     * @param stage      阶段名
+     * @param beginNanos {@link #begin()}的返回值
+     */
+    public void end(String stage, long beginNanos) {
+        end(stage, beginNanos, 0);
+    }
+
+    /**
+     * 结束计时
+     *
+     * @param stage       阶段名
+     * @param beginNanos  {@link #begin()}的返回值
+     * @param nativeBytes 该阶段产生的native内存
+     */
+    public void end(String stage, long beginNanos, long nativeBytes) {
+        if (beginNanos == 0 || !mEnabled) {
+            return;
+        }
+        long costNanos = System.nanoTime() - beginNanos;
+        getHistogram(stage).record(costNanos, nativeBytes);
+        for (OnMetricsListener listener : mListeners) {
+            listener.onStageFinished(stage, costNanos, nativeBytes);
+        }
+    }
+
+    /**
+     * 获取阶段对应的直方图
+     *
+     * @param stage 阶段名
+     * @return
+     */
+    public LatencyHistogram getHistogram(String stage) {
+        synchronized (mHistograms) {
+            LatencyHistogram histogram = mHistograms.get(stage);
+            if (histogram == null) {
+                histogram = new LatencyHistogram(stage);
+                mHistograms.put(stage, histogram);
+            }
+            return histogram;
+        }
+    }
+
+    /**
+     * @return 所有已记录的直方图，按阶段名排序
+     */
+    public List<LatencyHistogram> getHistograms() {
+        synchronized (mHistograms) {
+            return Collections.unmodifiableList(new ArrayList<>(mHistograms.values()));
+        }
+    }
+
+    /**
+     * 清空统计数据
+     */
+    public void reset() {
+        synchronized (mHistograms) {
+            mHistograms.clear();
+        }
+    }
+
+    public ProcessMetrics setEnabled(boolean enabled) {
+        mEnabled = enabled;
+        return this;
+    }
+
+    public boolean isEnabled() {
+        return mEnabled;
+    }
+
+    public ProcessMetrics addListener(OnMetricsListener listener) {
+        if (listener != null && !mListeners.contains(listener)) {
+            mListeners.add(listener);
+        }
+        return this;
+    }
+
+    public ProcessMetrics removeListener(OnMetricsListener listener) {
+        mListeners.remove(listener);
+        return this;
+    }
+
+    /**
+     * 导出统计报告：各阶段耗时、native内存以及缓存命中率
+     *
+     * @return
+     */
+    public String dump() {
+        StringBuilder sb = new StringBuilder("ProcessMetrics:");
+        for (LatencyHistogram histogram : getHistograms()) {
+            sb.append("\n  ").append(histogram);
+        }
+        DecodedImageCache decodedCache = DecodedImageCache.getDefault();
+        sb.append(String.format(Locale.US, "\n  DecodedImageCache: hit=%d, miss=%d, hitRate=%s, eviction=%d, size=%dKB",
+                decodedCache.getHitCount(), decodedCache.getMissCount(),
+                formatRate(decodedCache.getHitCount(), decodedCache.getMissCount()),
+                decodedCache.getEvictionCount(), decodedCache.size() / 1024));
+        ResultCache resultCache = ResultCache.getDefault();
+        sb.append(String.format(Locale.US, "\n  ResultCache: hit=%d, diskHit=%d, miss=%d, hitRate=%s",
+                resultCache.getHitCount(), resultCache.getDiskHitCount(), resultCache.getMissCount(),
+                formatRate(resultCache.getHitCount() + resultCache.getDiskHitCount(), resultCache.getMissCount())));
+        MatPool matPool = MatPool.getDefault();
+        sb.append(String.format(Locale.US, "\n  MatPool: hit=%d, miss=%d, hitRate=%s, pooled=%dKB, outstanding=%d",
+                matPool.getHitCount(), matPool.getMissCount(),
+                formatRate(matPool.getHitCount(), matPool.getMissCount()),
+                matPool.getPooledBytes() / 1024, matPool.getOutstandingCount()));
+        return sb.toString();
+    }
+
+    /**
+     * 将统计报告输出到日志
+     */
+    public void dumpToLogger() {
+        Logger.i(dump());
+    }
+
+    /**
+     * 计算Mat占用的native内存
+     *
+     * @param mat
+     * @return 字节数
+     */
+    public static long sizeOf(Mat mat) {
+        return mat == null ? 0 : mat.total() * mat.elemSize();
+    }
+
+    private static String formatRate(long hit, long miss) {
+        long total = hit + miss;
+        return total == 0 ? "-" : String.format(Locale.US, "%.1f%%", hit * 100D / total);
+    }
+
+    /**
+     * 统计监听，回调在执行处理的线程
+     */
+    public interface OnMetricsListener {
+        /**
+         * 某个阶段执行完毕
+         *
+         * @param stage       阶段名
+         * @param costNanos   耗时（纳秒）
+         * @param nativeBytes 产生的native内存
+         */
+        void onStageFinished(String stage, long costNanos, long nativeBytes);
+    }
+
+    /**
+     * 将每个阶段的耗时实时输出到日志
+     */
+    public static class LoggerListener implements OnMetricsListener {
+        @Override
+        public void onStageFinished(String stage, long costNanos, long nativeBytes) {
+            Logger.d(String.format(Locale.US, "[%s] cost=%.2fms, native=%dKB", stage, costNanos / 1000000D, nativeBytes / 1024));
+        }
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright (C) 2019 xuexiangjys(xuexiangjys@163.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.xuexiang.imageprocess.core.parallel;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 按行分带的并行执行工具（纯Java实现）
+ * <p>
+ * 图片按固定行数切分为若干行带，由共享线程池中的线程和调用线程一起动态领取执行，
+ * 调用线程会等待所有行带执行完毕再返回。每个执行者拥有固定的worker序号，可用于索引各自的临时缓冲。
+ *
+ * @author xuexiang
+ * @since 2026-10-18 14:05
+ */
+public final class RowBands {
+
+    /**
+     * 默认每个行带的行数
+     */
+    public static final int DEFAULT_BAND_ROWS = 64;
+
+    private static final int PARALLELISM = Math.max(1, Runtime.getRuntime().availableProcessors());
+
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(Math.max(1, PARALLELISM - 1), new BandThreadFactory());
+
+    /**
+     * 标记当前线程是否正在执行行带任务，嵌套调用时直接串行执行，避免线程池互相等待造成死锁
+     */
+    private static final ThreadLocal<Boolean> IN_BAND = new ThreadLocal<>();
+
+    private RowBands() {
+        throw new UnsupportedOperationException("u can't instantiate me...");
+    }
+
+    /**
+     * 行带任务
+     */
+    public interface BandTask {
+
+        /**
+         * 处理[rowStart, rowEnd)行
+         *
+         * @param worker   执行者序号，范围[0, {@link #getParallelism()})
+         * @param rowStart 起始行（包含）
+         * @param rowEnd   结束行（不包含）
+         */
+        void run(int worker, int rowStart, int rowEnd);
+    }
+
+    /**
+     * @return 最大并行数，即worker序号的上限
+     */
+    public static int getParallelism() {
+        return PARALLELISM;
+    }
+
+    /**
+     * 使用默认行带大小并行处理
+     *
+     * @param rows 总行数
+     * @param task 行带任务
+     */
+    public static void forEach(int rows, BandTask task) {
+        forEach(rows, DEFAULT_BAND_ROWS, task);
+    }
+
+    /**
+     * 并行处理所有行带，所有行带执行完毕后返回。任一行带抛出异常时，该异常将在调用线程中重新抛出
+     *
+     * @param rows     总行数
+     * @param bandRows 每个行带的行数
+     * @param task     行带任务
+     */
+    public static void forEach(final int rows, final int bandRows, final BandTask task) {
+        if (rows <= 0) {
+            return;
+        }
+        if (bandRows <= 0) {
+            throw new IllegalArgumentException("bandRows must be positive!");
+        }
+        final int bandCount = (rows + bandRows - 1) / bandRows;
+        int workers = Math.min(PARALLELISM, bandCount);
+        if (workers == 1 || Boolean.TRUE.equals(IN_BAND.get())) {
+            task.run(0, 0, rows);
+            return;
+        }
+
+        final AtomicInteger nextBand = new AtomicInteger();
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+        final CountDownLatch latch = new CountDownLatch(workers - 1);
+        for (int i = 1; i < workers; i++) {
+            final int worker = i;
+            EXECUTOR.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        runBands(worker, rows, bandRows, bandCount, nextBand, error, task);
+                    } finally {
+                        latch.countDown();
+                    }
+                }
+            });
+        }
+        runBands(0, rows, bandRows, bandCount, nextBand, error, task);
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            //让其他行带尽快结束
+            nextBand.set(bandCount);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("RowBands interrupted", e);
+        }
+
+        Throwable throwable = error.get();
+        if (throwable instanceof RuntimeException) {
+            throw (RuntimeException) throwable;
+        } else if (throwable instanceof Error) {
+            throw (Error) throwable;
+        } else if (throwable != null) {
+            throw new IllegalStateException(throwable);
+        }
+    }
+
+    private static void runBands(int worker, int rows, int bandRows, int bandCount, AtomicInteger nextBand,
+                                 AtomicReference<Throwable> error, BandTask task) {
+        Boolean previous = IN_BAND.get();
+        IN_BAND.set(Boolean.TRUE);
+        try {
+            int band;
+            while (error.get() == null && (band = nextBand.getAndIncrement()) < bandCount) {
+                int rowStart = band * bandRows;
+                task.run(worker, rowStart, Math.min(rows, rowStart + bandRows));
+            }
+        } catch (Throwable e) {
+            error.compareAndSet(null, e);
+        } finally {
+            IN_BAND.set(previous);
+        }
+    }
+
+    private static class BandThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger mCount = new AtomicInteger(1);
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "ImageProcess-Band-" + mCount.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
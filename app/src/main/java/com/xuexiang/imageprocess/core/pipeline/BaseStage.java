@@ -0,0 +1,35 @@
+/*
+ * Copyright (C) 2019 xuexiangjys(xuexiangjys@163.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.xuexiang.imageprocess.core.pipeline;
+
+/**
+ * 处理阶段的基类，默认为逐像素处理（不需要重叠像素）
+ * <p>
+ * 自定义阶段建议继承该类，{@link IStage}以后增加方法时无需修改。
+ * 名称是结果缓存key的一部分，子类必须实现{@link #getName()}，并包含所有参数
+ *
+ * @author xuexiang
+ * @since 2026-10-19 06:30
+ */
+public abstract class BaseStage implements IStage {
+
+    @Override
+    public int getHalo() {
+        return 0;
+    }
+}
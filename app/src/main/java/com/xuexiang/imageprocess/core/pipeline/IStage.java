@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) 2019 xuexiangjys(xuexiangjys@163.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.xuexiang.imageprocess.core.pipeline;
+
+import org.opencv.core.Mat;
+
+/**
+ * 图片处理流水线中的一个处理阶段，一般继承{@link BaseStage}实现
+ *
+ * @author xuexiang
+ * @since 2026-10-18 10:12
+ */
+public interface IStage {
+
+    /**
+     * {@link #getHalo()}的特殊值，表示阶段依赖整张图片（如全局直方图、旋转），不能分块处理
+     */
+    int HALO_GLOBAL = -1;
+
+    /**
+     * 执行处理。src不允许被修改，结果写入dst（dst可能是上一次复用的缓冲，尺寸不一定匹配）
+     *
+     * @param src 输入
+     * @param dst 输出
+     */
+    void process(Mat src, Mat dst);
+
+    /**
+     * 分块处理时需要的重叠像素数（邻域半径）。逐像素处理的阶段返回0，依赖整张图片的阶段返回{@link #HALO_GLOBAL}
+     *
+     * @return 重叠像素数，或{@link #HALO_GLOBAL}
+     */
+    int getHalo();
+
+    /**
+     * 阶段名称，用于日志及结果缓存的key（见{@link ImagePipeline#getName()}），
+     * 必须包含所有参数，参数不同的两个阶段名称不能相同
+     *
+     * @return 阶段名称（包含参数）
+     */
+    String getName();
+}
@@ -0,0 +1,614 @@
+/*
+ * Copyright (C) 2019 xuexiangjys(xuexiangjys@163.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.xuexiang.imageprocess.core.pipeline;
+
+import android.graphics.Bitmap;
+import android.support.annotation.Nullable;
+
+import com.xuexiang.imageprocess.core.binary.BitImage;
+import com.xuexiang.imageprocess.core.cache.DecodedImageCache;
+import com.xuexiang.imageprocess.core.convert.OutputFormat;
+import com.xuexiang.imageprocess.core.decode.DecodedSize;
+import com.xuexiang.imageprocess.core.decode.ImageDecoder;
+import com.xuexiang.imageprocess.core.deskew.Deskew;
+import com.xuexiang.imageprocess.core.memory.NativeMemoryGovernor;
+import com.xuexiang.imageprocess.core.metrics.ProcessMetrics;
+import com.xuexiang.imageprocess.core.morphology.Morphology;
+import com.xuexiang.imageprocess.core.pool.MatPool;
+import com.xuexiang.imageprocess.core.raw.RawImageFile;
+import com.xuexiang.imageprocess.core.threshold.AdaptiveThreshold;
+import com.xuexiang.imageprocess.core.threshold.IThresholdSelector;
+import com.xuexiang.imageprocess.core.threshold.ThresholdSelectors;
+import com.xuexiang.imageprocess.utils.ImageProcessUtils;
+import com.xuexiang.xutil.file.FileUtils;
+
+import org.opencv.core.Mat;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+import static com.xuexiang.imageprocess.utils.ImageProcessUtils.BLUE_CHANNEL_INDEX;
+import static com.xuexiang.imageprocess.utils.ImageProcessUtils.DEFAULT_COLOUR_SPREAD;
+import static com.xuexiang.imageprocess.utils.ImageProcessUtils.DEFAULT_THRESH_MAX_VALUE;
+import static com.xuexiang.imageprocess.utils.ImageProcessUtils.RED_CHANNEL_INDEX;
+import static org.opencv.core.CvType.CV_8UC1;
+import static org.opencv.core.CvType.CV_8UC4;
+
+/**
+ * 图片处理流水线
+ * <p>
+ * 所有阶段在同一份Mat数据上依次执行，中间结果在输出Mat和一个临时缓冲（来自{@link MatPool}）之间交替复用，
+ * 只在最后转换一次Bitmap。用法：
+ * <pre>
+ * Bitmap bitmap = ImagePipeline.builder().gray().threshold(125).build().process(imgPath);
+ * </pre>
+ *
+ * @author xuexiang
+ * @since 2026-10-18 10:20
+ */
+public final class ImagePipeline {
+
+    private final List<IStage> mStages;
+
+    private ImagePipeline(Builder builder) {
+        mStages = Collections.unmodifiableList(new ArrayList<>(builder.mStages));
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * 处理图片（原图尺寸）
+     *
+     * @param imgPath 图片路径
+     * @return
+     */
+    @Nullable
+    public Bitmap process(String imgPath) {
+        return process(imgPath, ImageDecoder.ORIGINAL_SIZE, ImageDecoder.ORIGINAL_SIZE);
+    }
+
+    /**
+     * 按目标尺寸降采样解码后再处理
+     *
+     * @param imgPath   图片路径
+     * @param reqWidth  目标宽度，不大于0时按原图处理
+     * @param reqHeight 目标高度，不大于0时按原图处理
+     * @return
+     */
+    @Nullable
+    public Bitmap process(String imgPath, int reqWidth, int reqHeight) {
+        return process(imgPath, reqWidth, reqHeight, OutputFormat.RGB_565);
+    }
+
+    /**
+     * 按目标尺寸降采样解码后再处理，并指定输出格式
+     *
+     * @param imgPath   图片路径
+     * @param reqWidth  目标宽度，不大于0时按原图处理
+     * @param reqHeight 目标高度，不大于0时按原图处理
+     * @param format    输出格式，画质优先时使用ARGB_8888，单通道结果可使用ALPHA_8
+     * @return
+     */
+    @Nullable
+    public Bitmap process(String imgPath, int reqWidth, int reqHeight, OutputFormat format) {
+        if (!FileUtils.isFileExists(imgPath)) {
+            return null;
+        }
+        //超出native内存预算时等待其他处理完成，文件头只读取一次，同时用于解码缓存
+        DecodedSize size = ImageDecoder.getDecodedSize(imgPath, reqWidth, reqHeight);
+        long nativeBytes = ImageProcessUtils.estimateNativeBytes(size, mStages.size());
+        NativeMemoryGovernor.getDefault().acquire(nativeBytes);
+        Mat src = null;
+        Mat dst = null;
+        try {
+            src = DecodedImageCache.getDefault().acquireReduced(imgPath, size.getReduceFactor());
+            dst = MatPool.getDefault().acquire(src, CV_8UC1);
+            process(src, dst);
+            return ImageProcessUtils.mat2Bitmap(dst, format);
+        } finally {
+            DecodedImageCache.getDefault().release(src);
+            MatPool.getDefault().release(dst);
+            NativeMemoryGovernor.getDefault().release(nativeBytes);
+        }
+    }
+
+    /**
+     * 处理图片并输出按位压缩的二值图，流水线的结果需为二值图（如binary之后）
+     *
+     * @param imgPath   图片路径
+     * @param reqWidth  目标宽度，不大于0时按原图处理
+     * @param reqHeight 目标高度，不大于0时按原图处理
+     * @return
+     */
+    @Nullable
+    public BitImage processToBitImage(String imgPath, int reqWidth, int reqHeight) {
+        if (!FileUtils.isFileExists(imgPath)) {
+            return null;
+        }
+        //超出native内存预算时等待其他处理完成，文件头只读取一次，同时用于解码缓存
+        DecodedSize size = ImageDecoder.getDecodedSize(imgPath, reqWidth, reqHeight);
+        long nativeBytes = ImageProcessUtils.estimateNativeBytes(size, mStages.size());
+        NativeMemoryGovernor.getDefault().acquire(nativeBytes);
+        Mat src = null;
+        Mat dst = null;
+        try {
+            src = DecodedImageCache.getDefault().acquireReduced(imgPath, size.getReduceFactor());
+            dst = MatPool.getDefault().acquire(src, CV_8UC1);
+            process(src, dst);
+            return BitImage.fromMat(dst);
+        } finally {
+            DecodedImageCache.getDefault().release(src);
+            MatPool.getDefault().release(dst);
+            NativeMemoryGovernor.getDefault().release(nativeBytes);
+        }
+    }
+
+    /**
+     * 处理图片并将结果保存为内存映射的未压缩文件，用作后续处理的输入时无需再次解码：
+     * <pre>
+     * RawImageFile gray = ImagePipeline.builder().gray().build().processToRaw(imgPath, 0, 0, file);
+     * ImagePipeline.builder().binary(125).build().process(gray.wrap(), dst);
+     * </pre>
+     *
+     * @param imgPath   图片路径
+     * @param reqWidth  目标宽度，不大于0时按原图处理
+     * @param reqHeight 目标高度，不大于0时按原图处理
+     * @param output    输出文件，已存在时覆盖
+     * @return
+     * @throws IOException
+     */
+    @Nullable
+    public RawImageFile processToRaw(String imgPath, int reqWidth, int reqHeight, File output) throws IOException {
+        if (!FileUtils.isFileExists(imgPath)) {
+            return null;
+        }
+        //超出native内存预算时等待其他处理完成，文件头只读取一次，同时用于解码缓存
+        DecodedSize size = ImageDecoder.getDecodedSize(imgPath, reqWidth, reqHeight);
+        long nativeBytes = ImageProcessUtils.estimateNativeBytes(size, mStages.size());
+        NativeMemoryGovernor.getDefault().acquire(nativeBytes);
+        Mat src = null;
+        Mat dst = null;
+        try {
+            src = DecodedImageCache.getDefault().acquireReduced(imgPath, size.getReduceFactor());
+            dst = MatPool.getDefault().acquire(src, CV_8UC1);
+            process(src, dst);
+            return RawImageFile.write(dst, output);
+        } finally {
+            DecodedImageCache.getDefault().release(src);
+            MatPool.getDefault().release(dst);
+            NativeMemoryGovernor.getDefault().release(nativeBytes);
+        }
+    }
+
+    /**
+     * 处理图片
+     *
+     * @param srcBitmap
+     * @return
+     */
+    @Nullable
+    public Bitmap process(Bitmap srcBitmap) {
+        return process(srcBitmap, null);
+    }
+
+    /**
+     * 处理图片，结果尽量写入reuse，中间的Mat均从缓冲池获取
+     *
+     * @param srcBitmap
+     * @param reuse     可复用的输出bitmap，可为null
+     * @return 处理结果，可能是reuse
+     */
+    @Nullable
+    public Bitmap process(Bitmap srcBitmap, @Nullable Bitmap reuse) {
+        if (srcBitmap == null) {
+            return null;
+        }
+        //超出native内存预算时等待其他处理完成
+        long nativeBytes = ImageProcessUtils.estimateNativeBytes(srcBitmap, mStages.size());
+        NativeMemoryGovernor.getDefault().acquire(nativeBytes);
+        Mat src = null;
+        Mat dst = null;
+        try {
+            src = MatPool.getDefault().acquire(srcBitmap.getHeight(), srcBitmap.getWidth(), CV_8UC4);
+            ImageProcessUtils.bitmap2Mat(srcBitmap, src);
+            dst = MatPool.getDefault().acquire(src, CV_8UC1);
+            process(src, dst);
+            return ImageProcessUtils.mat2Bitmap(dst, reuse);
+        } finally {
+            MatPool.getDefault().release(src);
+            MatPool.getDefault().release(dst);
+            NativeMemoryGovernor.getDefault().release(nativeBytes);
+        }
+    }
+
+    /**
+     * 处理图片
+     *
+     * @param src
+     * @return 处理结果，需调用者释放
+     */
+    public Mat process(Mat src) {
+        if (src == null) {
+            return null;
+        }
+        Mat dst = new Mat();
+        process(src, dst);
+        return dst;
+    }
+
+    /**
+     * 处理图片，结果写入dst。src不会被修改
+     *
+     * @param src
+     * @param dst 输出，可复用
+     */
+    public void process(Mat src, Mat dst) {
+        int size = mStages.size();
+        if (size == 0) {
+            src.copyTo(dst);
+            return;
+        }
+        ProcessMetrics metrics = ProcessMetrics.getDefault();
+        long pipelineBegin = metrics.begin();
+        //中间结果在dst和buffer之间交替，并保证最后一个阶段正好写入dst
+        Mat buffer = size > 1 ? MatPool.getDefault().acquire(src, CV_8UC1) : null;
+        long nativeBytes;
+        try {
+            Mat input = src;
+            for (int i = 0; i < size; i++) {
+                if (Thread.currentThread().isInterrupted()) {
+                    //所在的后台任务已被取消，不再继续执行后续阶段
+                    throw new CancellationException("ImagePipeline interrupted before stage: " + mStages.get(i).getName());
+                }
+                Mat output = (size - 1 - i) % 2 == 0 ? dst : buffer;
+                IStage stage = mStages.get(i);
+                long begin = metrics.begin();
+                stage.process(input, output);
+                metrics.end(ProcessMetrics.STAGE_PREFIX + stage.getName(), begin);
+                input = output;
+            }
+            nativeBytes = ProcessMetrics.sizeOf(dst) + ProcessMetrics.sizeOf(buffer);
+        } finally {
+            //阶段抛出异常或被取消时同样归还缓冲
+            MatPool.getDefault().release(buffer);
+        }
+        metrics.end(ProcessMetrics.STAGE_PIPELINE, pipelineBegin, nativeBytes);
+    }
+
+    /**
+     * 估计处理图片需要的native内存，用于{@link NativeMemoryGovernor}的预算控制
+     *
+     * @param imgPath   图片路径
+     * @param reqWidth  目标宽度，不大于0时按原图处理
+     * @param reqHeight 目标高度，不大于0时按原图处理
+     * @return 字节数
+     */
+    public long estimateNativeBytes(String imgPath, int reqWidth, int reqHeight) {
+        return ImageProcessUtils.estimateNativeBytes(imgPath, reqWidth, reqHeight, mStages.size());
+    }
+
+    /**
+     * @return 所有处理阶段
+     */
+    public List<IStage> getStages() {
+        return mStages;
+    }
+
+    /**
+     * @return 分块处理时需要的重叠像素数，为各阶段之和；任一阶段依赖整张图片时返回{@link IStage#HALO_GLOBAL}
+     */
+    public int getHalo() {
+        int halo = 0;
+        for (IStage stage : mStages) {
+            int stageHalo = stage.getHalo();
+            if (stageHalo < 0) {
+                return IStage.HALO_GLOBAL;
+            }
+            halo += stageHalo;
+        }
+        return halo;
+    }
+
+    /**
+     * @return 流水线的描述，由各阶段的名称组成
+     */
+    public String getName() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < mStages.size(); i++) {
+            if (i > 0) {
+                sb.append("->");
+            }
+            sb.append(mStages.get(i).getName());
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return "ImagePipeline{" + getName() + "}";
+    }
+
+    /**
+     * 构建者
+     */
+    public static final class Builder {
+
+        private final List<IStage> mStages = new ArrayList<>();
+
+        private Builder() {
+
+        }
+
+        /**
+         * 灰度化
+         *
+         * @return
+         */
+        public Builder gray() {
+            return stage(Stages.gray());
+        }
+
+        /**
+         * 阈值处理，输入需为单通道（一般在gray之后）
+         *
+         * @param thresh 阈值
+         * @return
+         */
+        public Builder threshold(double thresh) {
+            return threshold(thresh, DEFAULT_THRESH_MAX_VALUE);
+        }
+
+        /**
+         * 阈值处理，输入需为单通道（一般在gray之后）
+         *
+         * @param thresh 阈值
+         * @param maxval 最大阈值， 一般为255
+         * @return
+         */
+        public Builder threshold(double thresh, double maxval) {
+            return stage(Stages.threshold(thresh, maxval));
+        }
+
+        /**
+         * 二值化，等同于gray().threshold(thresh)
+         *
+         * @param thresh 阈值
+         * @return
+         */
+        public Builder binary(double thresh) {
+            return gray().threshold(thresh);
+        }
+
+        /**
+         * 局部自适应二值化，适合光照不均匀的拍照文档
+         *
+         * @param threshold 自适应阈值的参数，见{@link AdaptiveThreshold#sauvola()}
+         * @return
+         */
+        public Builder adaptiveBinary(AdaptiveThreshold threshold) {
+            return gray().stage(Stages.adaptiveThreshold(threshold));
+        }
+
+        /**
+         * 去除指定通道上的颜色，输入需为三通道
+         *
+         * @param channelIndex 颜色通道：0-蓝色，1-绿色，2-红色
+         * @param thresh       阈值
+         * @return
+         */
+        public Builder clearChannel(int channelIndex, double thresh) {
+            return clearChannel(channelIndex, thresh, DEFAULT_THRESH_MAX_VALUE);
+        }
+
+        /**
+         * 去除指定通道上的颜色，输入需为三通道
+         *
+         * @param channelIndex 颜色通道：0-蓝色，1-绿色，2-红色
+         * @param thresh       阈值
+         * @param maxval       最大阈值， 一般为255
+         * @return
+         */
+        public Builder clearChannel(int channelIndex, double thresh, double maxval) {
+            return stage(Stages.clearChannel(channelIndex, thresh, maxval));
+        }
+
+        /**
+         * 去红
+         *
+         * @param thresh 阈值
+         * @return
+         */
+        public Builder clearRed(double thresh) {
+            return clearChannel(RED_CHANNEL_INDEX, thresh);
+        }
+
+        /**
+         * 去蓝
+         *
+         * @param thresh 阈值
+         * @return
+         */
+        public Builder clearBlue(double thresh) {
+            return clearChannel(BLUE_CHANNEL_INDEX, thresh);
+        }
+
+        /**
+         * 自动阈值处理，输入需为单通道（一般在gray之后）
+         *
+         * @param selector 阈值选择器，见{@link ThresholdSelectors}
+         * @return
+         */
+        public Builder threshold(IThresholdSelector selector) {
+            return stage(Stages.threshold(selector, DEFAULT_THRESH_MAX_VALUE));
+        }
+
+        /**
+         * 自动阈值二值化，等同于gray().threshold(selector)
+         *
+         * @param selector 阈值选择器，见{@link ThresholdSelectors}
+         * @return
+         */
+        public Builder binary(IThresholdSelector selector) {
+            return gray().threshold(selector);
+        }
+
+        /**
+         * 自动阈值去除指定通道上的颜色，输入需为三通道
+         *
+         * @param channelIndex 颜色通道：0-蓝色，1-绿色，2-红色
+         * @param selector     阈值选择器，见{@link ThresholdSelectors}
+         * @return
+         */
+        public Builder clearChannel(int channelIndex, IThresholdSelector selector) {
+            return stage(Stages.clearChannel(channelIndex, selector, DEFAULT_THRESH_MAX_VALUE));
+        }
+
+        /**
+         * 自动阈值去红
+         *
+         * @param selector 阈值选择器，见{@link ThresholdSelectors}
+         * @return
+         */
+        public Builder clearRed(IThresholdSelector selector) {
+            return clearChannel(RED_CHANNEL_INDEX, selector);
+        }
+
+        /**
+         * 自动阈值去蓝
+         *
+         * @param selector 阈值选择器，见{@link ThresholdSelectors}
+         * @return
+         */
+        public Builder clearBlue(IThresholdSelector selector) {
+            return clearChannel(BLUE_CHANNEL_INDEX, selector);
+        }
+
+        /**
+         * 腐蚀（取最小值，白底黑字时笔迹变粗），输入需为单通道
+         *
+         * @param kernelSize 结构元素的边长，正奇数
+         * @return
+         */
+        public Builder erode(int kernelSize) {
+            return morphology(new Morphology(Morphology.Operation.ERODE, kernelSize));
+        }
+
+        /**
+         * 膨胀（取最大值，白底黑字时笔迹变细），输入需为单通道
+         *
+         * @param kernelSize 结构元素的边长，正奇数
+         * @return
+         */
+        public Builder dilate(int kernelSize) {
+            return morphology(new Morphology(Morphology.Operation.DILATE, kernelSize));
+        }
+
+        /**
+         * 开运算（先腐蚀后膨胀，白底黑字时填补笔画中的白色空洞），输入需为单通道
+         *
+         * @param kernelSize 结构元素的边长，正奇数
+         * @return
+         */
+        public Builder open(int kernelSize) {
+            return morphology(new Morphology(Morphology.Operation.OPEN, kernelSize));
+        }
+
+        /**
+         * 闭运算（先膨胀后腐蚀，白底黑字时去除小于结构元素的黑色噪点），输入需为单通道
+         *
+         * @param kernelSize 结构元素的边长，正奇数
+         * @return
+         */
+        public Builder close(int kernelSize) {
+            return morphology(new Morphology(Morphology.Operation.CLOSE, kernelSize));
+        }
+
+        /**
+         * 形态学处理，输入需为单通道
+         *
+         * @param morphology 形态学处理的参数
+         * @return
+         */
+        public Builder morphology(Morphology morphology) {
+            return stage(Stages.morphology(morphology));
+        }
+
+        /**
+         * 倾斜校正，一般作为第一个阶段。需对整张图片估计角度，不能用于分块处理
+         *
+         * @return
+         */
+        public Builder deskew() {
+            return deskew(new Deskew());
+        }
+
+        /**
+         * 倾斜校正，一般作为第一个阶段。需对整张图片估计角度，不能用于分块处理
+         *
+         * @param deskew 倾斜校正的参数
+         * @return
+         */
+        public Builder deskew(Deskew deskew) {
+            return stage(Stages.deskew(deskew));
+        }
+
+        /**
+         * 去除彩色，只保留黑色笔迹，输入需为三通道
+         *
+         * @param thresh 亮度阈值
+         * @return
+         */
+        public Builder clearColour(double thresh) {
+            return clearColour(thresh, DEFAULT_COLOUR_SPREAD);
+        }
+
+        /**
+         * 去除彩色，只保留黑色笔迹，输入需为三通道
+         *
+         * @param thresh 亮度阈值
+         * @param spread 色彩阈值，通道间差值大于该值即视为彩色
+         * @return
+         */
+        public Builder clearColour(double thresh, double spread) {
+            return stage(Stages.clearColour(thresh, spread, DEFAULT_THRESH_MAX_VALUE));
+        }
+
+        /**
+         * 增加自定义的处理阶段
+         *
+         * @param stage
+         * @return
+         */
+        public Builder stage(IStage stage) {
+            if (stage != null) {
+                mStages.add(stage);
+            }
+            return this;
+        }
+
+        public ImagePipeline build() {
+            return new ImagePipeline(this);
+        }
+    }
+}
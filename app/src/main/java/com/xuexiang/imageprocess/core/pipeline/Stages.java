@@ -0,0 +1,413 @@
+/*
+ * Copyright (C) 2019 xuexiangjys(xuexiangjys@163.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.xuexiang.imageprocess.core.pipeline;
+
+import com.xuexiang.imageprocess.core.backend.OpenCVImageBackend;
+import com.xuexiang.imageprocess.core.deskew.Deskew;
+import com.xuexiang.imageprocess.core.morphology.Morphology;
+import com.xuexiang.imageprocess.core.pool.MatPool;
+import com.xuexiang.imageprocess.core.threshold.AdaptiveThreshold;
+import com.xuexiang.imageprocess.core.threshold.IThresholdSelector;
+import com.xuexiang.imageprocess.utils.ImageProcessUtils;
+
+import org.opencv.core.Mat;
+
+import static org.opencv.core.CvType.CV_8UC1;
+
+/**
+ * 内置的处理阶段
+ * <p>
+ * 各阶段直接调用处理实现，而不是{@link ImageProcessUtils}中带耗时统计的方法：
+ * 流水线已按阶段记录耗时（stage:名称），避免同一次处理被统计两次
+ *
+ * @author xuexiang
+ * @since 2026-10-18 10:15
+ */
+public final class Stages {
+
+    private static final OpenCVImageBackend BACKEND = new OpenCVImageBackend();
+
+    private Stages() {
+        throw new UnsupportedOperationException("u can't instantiate me...");
+    }
+
+    /**
+     * 灰度化
+     *
+     * @return
+     */
+    public static IStage gray() {
+        return new GrayStage();
+    }
+
+    /**
+     * 阈值处理（单通道）
+     *
+     * @param thresh 阈值
+     * @param maxval 最大阈值， 一般为255
+     * @return
+     */
+    public static IStage threshold(double thresh, double maxval) {
+        return new ThresholdStage(thresh, maxval);
+    }
+
+    /**
+     * 去除指定通道上的颜色（三通道）
+     *
+     * @param channelIndex 颜色通道：0-蓝色，1-绿色，2-红色
+     * @param thresh       阈值
+     * @param maxval       最大阈值， 一般为255
+     * @return
+     */
+    public static IStage clearChannel(int channelIndex, double thresh, double maxval) {
+        return new ClearChannelStage(channelIndex, thresh, maxval);
+    }
+
+    /**
+     * 自动阈值处理（单通道），阈值由输入图片的直方图计算
+     *
+     * @param selector 阈值选择器
+     * @param maxval   最大阈值， 一般为255
+     * @return
+     */
+    public static IStage threshold(IThresholdSelector selector, double maxval) {
+        return new AutoThresholdStage(selector, maxval);
+    }
+
+    /**
+     * 去除指定通道上的颜色（三通道），阈值由该通道的直方图计算
+     *
+     * @param channelIndex 颜色通道：0-蓝色，1-绿色，2-红色
+     * @param selector     阈值选择器
+     * @param maxval       最大阈值， 一般为255
+     * @return
+     */
+    public static IStage clearChannel(int channelIndex, IThresholdSelector selector, double maxval) {
+        return new AutoClearChannelStage(channelIndex, selector, maxval);
+    }
+
+    /**
+     * 局部自适应二值化，多通道输入会先灰度化
+     *
+     * @param threshold 自适应阈值的参数
+     * @return
+     */
+    public static IStage adaptiveThreshold(AdaptiveThreshold threshold) {
+        return new AdaptiveThresholdStage(threshold);
+    }
+
+    /**
+     * 形态学处理（单通道）
+     *
+     * @param morphology 形态学处理的参数
+     * @return
+     */
+    public static IStage morphology(Morphology morphology) {
+        return new MorphologyStage(morphology);
+    }
+
+    /**
+     * 倾斜校正（单通道或三通道），需对整张图片估计角度，不能用于分块处理
+     *
+     * @param deskew 倾斜校正的参数
+     * @return
+     */
+    public static IStage deskew(Deskew deskew) {
+        return new DeskewStage(deskew);
+    }
+
+    /**
+     * 去除彩色，只保留黑色笔迹（三通道）
+     *
+     * @param thresh 亮度阈值
+     * @param spread 色彩阈值
+     * @param maxval 最大阈值， 一般为255
+     * @return
+     */
+    public static IStage clearColour(double thresh, double spread, double maxval) {
+        return new ClearColourStage(thresh, spread, maxval);
+    }
+
+    /**
+     * 灰度化
+     */
+    private static class GrayStage implements IStage {
+
+        @Override
+        public void process(Mat src, Mat dst) {
+            BACKEND.grayScale(src, dst);
+        }
+
+        @Override
+        public int getHalo() {
+            return 0;
+        }
+
+        @Override
+        public String getName() {
+            return "gray";
+        }
+    }
+
+    /**
+     * 阈值处理
+     */
+    private static class ThresholdStage implements IStage {
+
+        private final double mThresh;
+        private final double mMaxVal;
+
+        ThresholdStage(double thresh, double maxval) {
+            mThresh = thresh;
+            mMaxVal = maxval;
+        }
+
+        @Override
+        public void process(Mat src, Mat dst) {
+            BACKEND.threshold(src, dst, mThresh, mMaxVal);
+        }
+
+        @Override
+        public int getHalo() {
+            return 0;
+        }
+
+        @Override
+        public String getName() {
+            return "threshold(" + mThresh + "," + mMaxVal + ")";
+        }
+    }
+
+    /**
+     * 去除指定通道上的颜色
+     */
+    private static class ClearChannelStage implements IStage {
+
+        private final int mChannelIndex;
+        private final double mThresh;
+        private final double mMaxVal;
+
+        ClearChannelStage(int channelIndex, double thresh, double maxval) {
+            mChannelIndex = channelIndex;
+            mThresh = thresh;
+            mMaxVal = maxval;
+        }
+
+        @Override
+        public void process(Mat src, Mat dst) {
+            BACKEND.clearColor(src, dst, mChannelIndex, mThresh, mMaxVal);
+        }
+
+        @Override
+        public int getHalo() {
+            return 0;
+        }
+
+        @Override
+        public String getName() {
+            return "clearChannel(" + mChannelIndex + "," + mThresh + "," + mMaxVal + ")";
+        }
+    }
+
+    /**
+     * 自动阈值处理
+     */
+    private static class AutoThresholdStage implements IStage {
+
+        private final IThresholdSelector mSelector;
+        private final double mMaxVal;
+
+        AutoThresholdStage(IThresholdSelector selector, double maxval) {
+            mSelector = selector;
+            mMaxVal = maxval;
+        }
+
+        @Override
+        public void process(Mat src, Mat dst) {
+            int thresh = ImageProcessUtils.autoThreshold(src, 0, mSelector);
+            BACKEND.threshold(src, dst, thresh, mMaxVal);
+        }
+
+        @Override
+        public int getHalo() {
+            //阈值由整张图片的直方图选出
+            return HALO_GLOBAL;
+        }
+
+        @Override
+        public String getName() {
+            return "threshold(" + mSelector.getName() + "," + mMaxVal + ")";
+        }
+    }
+
+    /**
+     * 自动阈值去除指定通道上的颜色
+     */
+    private static class AutoClearChannelStage implements IStage {
+
+        private final int mChannelIndex;
+        private final IThresholdSelector mSelector;
+        private final double mMaxVal;
+
+        AutoClearChannelStage(int channelIndex, IThresholdSelector selector, double maxval) {
+            mChannelIndex = channelIndex;
+            mSelector = selector;
+            mMaxVal = maxval;
+        }
+
+        @Override
+        public void process(Mat src, Mat dst) {
+            int thresh = ImageProcessUtils.autoThreshold(src, mChannelIndex, mSelector);
+            BACKEND.clearColor(src, dst, mChannelIndex, thresh, mMaxVal);
+        }
+
+        @Override
+        public int getHalo() {
+            //阈值由整张图片的直方图选出
+            return HALO_GLOBAL;
+        }
+
+        @Override
+        public String getName() {
+            return "clearChannel(" + mChannelIndex + "," + mSelector.getName() + "," + mMaxVal + ")";
+        }
+    }
+
+    /**
+     * 局部自适应二值化
+     */
+    private static class AdaptiveThresholdStage implements IStage {
+
+        private final AdaptiveThreshold mThreshold;
+
+        AdaptiveThresholdStage(AdaptiveThreshold threshold) {
+            mThreshold = threshold;
+        }
+
+        @Override
+        public void process(Mat src, Mat dst) {
+            if (src.channels() == 1) {
+                mThreshold.process(src, dst);
+                return;
+            }
+            Mat gray = MatPool.getDefault().acquire(src, CV_8UC1);
+            try {
+                BACKEND.grayScale(src, gray);
+                mThreshold.process(gray, dst);
+            } finally {
+                MatPool.getDefault().release(gray);
+            }
+        }
+
+        @Override
+        public int getHalo() {
+            return mThreshold.getHalo();
+        }
+
+        @Override
+        public String getName() {
+            return mThreshold.getName();
+        }
+    }
+
+    /**
+     * 形态学处理
+     */
+    private static class MorphologyStage implements IStage {
+
+        private final Morphology mMorphology;
+
+        MorphologyStage(Morphology morphology) {
+            mMorphology = morphology;
+        }
+
+        @Override
+        public void process(Mat src, Mat dst) {
+            mMorphology.process(src, dst);
+        }
+
+        @Override
+        public int getHalo() {
+            return mMorphology.getHalo();
+        }
+
+        @Override
+        public String getName() {
+            return mMorphology.getName();
+        }
+    }
+
+    /**
+     * 倾斜校正
+     */
+    private static class DeskewStage implements IStage {
+
+        private final Deskew mDeskew;
+
+        DeskewStage(Deskew deskew) {
+            mDeskew = deskew;
+        }
+
+        @Override
+        public void process(Mat src, Mat dst) {
+            mDeskew.process(src, dst);
+        }
+
+        @Override
+        public int getHalo() {
+            //倾斜角度由整张图片估计，旋转也会移动远处的像素
+            return HALO_GLOBAL;
+        }
+
+        @Override
+        public String getName() {
+            return mDeskew.getName();
+        }
+    }
+
+    /**
+     * 去除彩色
+     */
+    private static class ClearColourStage implements IStage {
+
+        private final double mThresh;
+        private final double mSpread;
+        private final double mMaxVal;
+
+        ClearColourStage(double thresh, double spread, double maxval) {
+            mThresh = thresh;
+            mSpread = spread;
+            mMaxVal = maxval;
+        }
+
+        @Override
+        public void process(Mat src, Mat dst) {
+            BACKEND.clearColour(src, dst, mThresh, mSpread, mMaxVal);
+        }
+
+        @Override
+        public int getHalo() {
+            return 0;
+        }
+
+        @Override
+        public String getName() {
+            return "clearColour(" + mThresh + "," + mSpread + "," + mMaxVal + ")";
+        }
+    }
+}
@@ -0,0 +1,281 @@
+/*
+ * Copyright (C) 2019 xuexiangjys(xuexiangjys@163.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.xuexiang.imageprocess.core.pool;
+
+import com.xuexiang.xutil.common.logger.Logger;
+
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Mat缓冲池，按尺寸+类型复用Mat，避免每次处理都进行native内存的分配和释放
+ * <p>
+ * 1.{@link #acquire(int, int, int)}获取，{@link #release(Mat)}归还，二者必须成对出现<br>
+ * 2.池中缓存的总字节数不超过上限，超出时直接释放native内存<br>
+ * 3.借出未归还的Mat会被记录，可通过{@link #checkLeaks(long)}检查泄漏
+ *
+ * @author xuexiang
+ * @since 2026-10-18 13:20
+ */
+public final class MatPool {
+
+    /**
+     * 默认池中缓存的最大字节数
+     */
+    public static final long DEFAULT_MAX_POOLED_BYTES = 64 * 1024 * 1024;
+    /**
+     * 同一尺寸+类型最多缓存的Mat数量
+     */
+    public static final int DEFAULT_MAX_PER_KEY = 4;
+
+    private static volatile MatPool sDefault;
+
+    private final Map<Key, ArrayDeque<Mat>> mPool = new HashMap<>();
+    private final IdentityHashMap<Mat, LeakRecord> mOutstanding = new IdentityHashMap<>();
+    private long mMaxPooledBytes;
+    private int mMaxPerKey;
+    private long mPooledBytes;
+    /**
+     * 是否记录借出时的调用栈，用于定位泄漏（有一定性能损耗，仅建议调试时开启）
+     */
+    private boolean mTrackStack;
+
+    private long mHitCount;
+    private long mMissCount;
+
+    public MatPool(long maxPooledBytes) {
+        this(maxPooledBytes, DEFAULT_MAX_PER_KEY);
+    }
+
+    public MatPool(long maxPooledBytes, int maxPerKey) {
+        mMaxPooledBytes = maxPooledBytes;
+        mMaxPerKey = maxPerKey;
+    }
+
+    /**
+     * @return 默认的缓冲池
+     */
+    public static MatPool getDefault() {
+        if (sDefault == null) {
+            synchronized (MatPool.class) {
+                if (sDefault == null) {
+                    sDefault = new MatPool(DEFAULT_MAX_POOLED_BYTES);
+                }
+            }
+        }
+        return sDefault;
+    }
+
+    /**
+     * 获取指定尺寸和类型的Mat
+     *
+     * @param rows 行数（高）
+     * @param cols 列数（宽）
+     * @param type 类型，例如{@link CvType#CV_8UC1}
+     * @return
+     */
+    public synchronized Mat acquire(int rows, int cols, int type) {
+        Key key = new Key(rows, cols, type);
+        ArrayDeque<Mat> mats = mPool.get(key);
+        Mat mat = mats != null ? mats.pollLast() : null;
+        if (mat != null) {
+            mPooledBytes -= key.byteSize();
+            mHitCount++;
+        } else {
+            mat = new Mat(rows, cols, type);
+            mMissCount++;
+        }
+        mOutstanding.put(mat, new LeakRecord(mTrackStack));
+        return mat;
+    }
+
+    /**
+     * 获取与指定Mat尺寸相同的Mat
+     *
+     * @param like 参照的Mat
+     * @param type 类型
+     * @return
+     */
+    public Mat acquire(Mat like, int type) {
+        return acquire(like.rows(), like.cols(), type);
+    }
+
+    /**
+     * 归还Mat。不是从池中借出的Mat将直接释放
+     * <p>
+     * Mat在借出期间可能被OpenCV重新分配为其他尺寸或类型，因此按归还时的实际尺寸和类型入池
+     *
+     * @param mat
+     */
+    public synchronized void release(Mat mat) {
+        if (mat == null) {
+            return;
+        }
+        if (mOutstanding.remove(mat) == null || mat.empty()) {
+            mat.release();
+            return;
+        }
+        Key key = new Key(mat.rows(), mat.cols(), mat.type());
+        ArrayDeque<Mat> mats = mPool.get(key);
+        if (mats == null) {
+            mats = new ArrayDeque<>();
+            mPool.put(key, mats);
+        }
+        if (mats.size() >= mMaxPerKey || mPooledBytes + key.byteSize() > mMaxPooledBytes) {
+            mat.release();
+            return;
+        }
+        mats.addLast(mat);
+        mPooledBytes += key.byteSize();
+    }
+
+    /**
+     * 释放池中缓存的所有Mat（借出的Mat不受影响）
+     */
+    public synchronized void clear() {
+        for (ArrayDeque<Mat> mats : mPool.values()) {
+            for (Mat mat : mats) {
+                mat.release();
+            }
+        }
+        mPool.clear();
+        mPooledBytes = 0;
+    }
+
+    /**
+     * 检查借出超过指定时长仍未归还的Mat，并打印日志
+     *
+     * @param minAgeMillis 借出时长阈值
+     * @return 疑似泄漏的数量
+     */
+    public synchronized int checkLeaks(long minAgeMillis) {
+        long now = System.currentTimeMillis();
+        int count = 0;
+        Iterator<Map.Entry<Mat, LeakRecord>> iterator = mOutstanding.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Mat, LeakRecord> entry = iterator.next();
+            LeakRecord record = entry.getValue();
+            if (now - record.mAcquireTime < minAgeMillis) {
+                continue;
+            }
+            count++;
+            Mat mat = entry.getKey();
+            String message = "MatPool leak: " + mat.cols() + "x" + mat.rows() + " " + CvType.typeToString(mat.type())
+                    + " not released for " + (now - record.mAcquireTime) + "ms";
+            if (record.mStack != null) {
+                Logger.e(message, record.mStack);
+            } else {
+                Logger.e(message);
+            }
+        }
+        return count;
+    }
+
+    public synchronized MatPool setMaxPooledBytes(long maxPooledBytes) {
+        mMaxPooledBytes = maxPooledBytes;
+        return this;
+    }
+
+    public synchronized MatPool setMaxPerKey(int maxPerKey) {
+        mMaxPerKey = maxPerKey;
+        return this;
+    }
+
+    public synchronized MatPool setTrackStack(boolean trackStack) {
+        mTrackStack = trackStack;
+        return this;
+    }
+
+    /**
+     * @return 池中缓存的字节数
+     */
+    public synchronized long getPooledBytes() {
+        return mPooledBytes;
+    }
+
+    /**
+     * @return 借出未归还的数量
+     */
+    public synchronized int getOutstandingCount() {
+        return mOutstanding.size();
+    }
+
+    public synchronized long getHitCount() {
+        return mHitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return mMissCount;
+    }
+
+    /**
+     * 缓存的key：尺寸+类型
+     */
+    private static final class Key {
+
+        private final int mRows;
+        private final int mCols;
+        private final int mType;
+
+        Key(int rows, int cols, int type) {
+            mRows = rows;
+            mCols = cols;
+            mType = type;
+        }
+
+        long byteSize() {
+            return (long) mRows * mCols * CvType.ELEM_SIZE(mType);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return mRows == key.mRows && mCols == key.mCols && mType == key.mType;
+        }
+
+        @Override
+        public int hashCode() {
+            return (mRows * 31 + mCols) * 31 + mType;
+        }
+    }
+
+    /**
+     * 借出记录
+     */
+    private static final class LeakRecord {
+
+        private final long mAcquireTime = System.currentTimeMillis();
+        private final Throwable mStack;
+
+        LeakRecord(boolean trackStack) {
+            mStack = trackStack ? new Throwable("MatPool acquire site") : null;
+        }
+    }
+}
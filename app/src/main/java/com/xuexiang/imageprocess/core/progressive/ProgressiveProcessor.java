@@ -0,0 +1,196 @@
+/*
+ * Copyright (C) 2019 xuexiangjys(xuexiangjys@163.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.xuexiang.imageprocess.core.progressive;
+
+import android.graphics.Bitmap;
+
+import com.xuexiang.imageprocess.core.cache.ResultCache;
+import com.xuexiang.imageprocess.core.decode.ImageDecoder;
+import com.xuexiang.imageprocess.core.executor.ProcessCallback;
+import com.xuexiang.imageprocess.core.executor.ProcessScheduler;
+import com.xuexiang.imageprocess.core.pipeline.ImagePipeline;
+
+import java.util.concurrent.Callable;
+
+/**
+ * 渐进式处理：先对大幅降采样的图片处理并立即显示预览，再在后台处理目标尺寸并替换预览
+ * <p>
+ * 1.预览通过IMREAD_REDUCED_*解码，像素数只有目标尺寸的几十分之一，通常几十毫秒内即可显示<br>
+ * 2.预览和精细结果分别作为{@link ProcessScheduler}中的任务，再次调用{@link #process}或{@link #cancel()}时，未完成的任务会被取消<br>
+ * 3.精细结果先于预览完成时，预览不再显示<br>
+ * 4.两者都经过{@link ResultCache}，已处理过的图片直接命中缓存
+ *
+ * @author xuexiang
+ * @since 2026-10-19 01:00
+ */
+public class ProgressiveProcessor {
+
+    /**
+     * 预览尺寸相对目标尺寸的默认缩小倍数
+     */
+    public static final int DEFAULT_PREVIEW_DIVISOR = 4;
+    /**
+     * 按原图处理时的预览尺寸
+     */
+    private static final int DEFAULT_PREVIEW_SIZE = 480;
+
+    private static final String KEY_PREVIEW = "#preview";
+    private static final String KEY_REFINE = "#refine";
+
+    private final ProcessScheduler mScheduler;
+    private final String mKey;
+    private final int mPreviewDivisor;
+    /**
+     * 每次处理的序号，用于忽略过期的回调（回调均在调度器的回调线程中执行）
+     */
+    private int mGeneration;
+    private boolean mRefined;
+
+    /**
+     * @param scheduler 执行处理的调度器，回调线程即为listener的执行线程
+     * @param key       任务key的前缀，同一调度器中的多个渐进处理需使用不同的key
+     */
+    public ProgressiveProcessor(ProcessScheduler scheduler, String key) {
+        this(scheduler, key, DEFAULT_PREVIEW_DIVISOR);
+    }
+
+    /**
+     * @param scheduler      执行处理的调度器，回调线程即为listener的执行线程
+     * @param key            任务key的前缀，同一调度器中的多个渐进处理需使用不同的key
+     * @param previewDivisor 预览尺寸相对目标尺寸的缩小倍数
+     */
+    public ProgressiveProcessor(ProcessScheduler scheduler, String key, int previewDivisor) {
+        mScheduler = scheduler;
+        mKey = key;
+        mPreviewDivisor = Math.max(1, previewDivisor);
+    }
+
+    /**
+     * 渐进式处理图片，之前未完成的处理将被取消
+     *
+     * @param imgPath   图片路径
+     * @param reqWidth  目标宽度，不大于0时按原图处理
+     * @param reqHeight 目标高度，不大于0时按原图处理
+     * @param pipeline  处理流水线
+     * @param listener  回调
+     */
+    public void process(final String imgPath, final int reqWidth, final int reqHeight, final ImagePipeline pipeline,
+                        final OnProgressiveListener listener) {
+        final int generation = ++mGeneration;
+        mRefined = false;
+        final int previewWidth = getPreviewSize(reqWidth);
+        final int previewHeight = getPreviewSize(reqHeight);
+
+        mScheduler.submit(mKey + KEY_PREVIEW, new Callable<Bitmap>() {
+            @Override
+            public Bitmap call() {
+                //降采样倍数相同时预览与精细结果一样，没有必要重复处理
+                if (ImageDecoder.getReduceFactor(imgPath, previewWidth, previewHeight)
+                        == ImageDecoder.getReduceFactor(imgPath, reqWidth, reqHeight)) {
+                    return null;
+                }
+                return ResultCache.getDefault().process(imgPath, previewWidth, previewHeight, pipeline);
+            }
+        }, new ProcessCallback<Bitmap>() {
+            @Override
+            public void onSuccess(Bitmap result) {
+                if (result != null && generation == mGeneration && !mRefined) {
+                    listener.onPreview(result);
+                }
+            }
+
+            @Override
+            public void onFailed(Throwable e) {
+                //预览失败不影响精细结果
+            }
+
+            @Override
+            public void onCancelled() {
+
+            }
+        });
+
+        mScheduler.submit(mKey + KEY_REFINE, new Callable<Bitmap>() {
+            @Override
+            public Bitmap call() {
+                return ResultCache.getDefault().process(imgPath, reqWidth, reqHeight, pipeline);
+            }
+        }, new ProcessCallback<Bitmap>() {
+            @Override
+            public void onSuccess(Bitmap result) {
+                if (generation != mGeneration) {
+                    return;
+                }
+                mRefined = true;
+                mScheduler.cancel(mKey + KEY_PREVIEW);
+                listener.onRefined(result);
+            }
+
+            @Override
+            public void onFailed(Throwable e) {
+                if (generation == mGeneration) {
+                    listener.onFailed(e);
+                }
+            }
+
+            @Override
+            public void onCancelled() {
+
+            }
+        });
+    }
+
+    /**
+     * 取消未完成的预览和精细处理
+     */
+    public void cancel() {
+        mGeneration++;
+        mScheduler.cancel(mKey + KEY_PREVIEW);
+        mScheduler.cancel(mKey + KEY_REFINE);
+    }
+
+    private int getPreviewSize(int reqSize) {
+        return reqSize <= ImageDecoder.ORIGINAL_SIZE ? DEFAULT_PREVIEW_SIZE : Math.max(1, reqSize / mPreviewDivisor);
+    }
+
+    /**
+     * 渐进式处理的回调，在调度器的回调线程中执行
+     */
+    public interface OnProgressiveListener {
+        /**
+         * 预览结果
+         *
+         * @param preview 低分辨率的处理结果
+         */
+        void onPreview(Bitmap preview);
+
+        /**
+         * 精细结果，将替换预览
+         *
+         * @param result 目标尺寸的处理结果
+         */
+        void onRefined(Bitmap result);
+
+        /**
+         * 处理失败
+         *
+         * @param e 异常
+         */
+        void onFailed(Throwable e);
+    }
+}
@@ -0,0 +1,338 @@
+/*
+ * Copyright (C) 2019 xuexiangjys(xuexiangjys@163.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.xuexiang.imageprocess.core.raw;
+
+import com.xuexiang.imageprocess.core.metrics.ProcessMetrics;
+
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * 未压缩的图片文件（内存映射），用于保存灰度化、二值化等中间结果，重新处理时无需再次解码和转换
+ * <p>
+ * 1.文件格式：64字节的文件头（小端序：标识、版本、宽、高、Mat类型、行字节数、像素偏移）+ 逐行存储的像素<br>
+ * 2.读写均通过{@link FileChannel#map}进行，{@link #wrap()}返回的Mat直接使用映射的内存，不拷贝像素。
+ * 零拷贝依赖OpenCV Java SDK中的{@code Mat(int, int, int, ByteBuffer)}构造方法，较旧的SDK没有该方法时，
+ * 自动退化为逐行{@link Mat#put(int, int, byte[])}拷贝（仅支持8位图片）<br>
+ * 3.以私有（写时复制）方式映射，对Mat的修改不会写回文件<br>
+ * 4.先写入临时文件再重命名，中途失败不会留下不完整的文件
+ * <pre>
+ * RawImageFile raw = RawImageFile.write(grayMat, file);
+ * ...
+ * RawImageFile raw = RawImageFile.open(file);
+ * pipeline.process(raw.wrap(), dst);
+ * </pre>
+ *
+ * @author xuexiang
+ * @since 2026-10-19 05:00
+ */
+public final class RawImageFile {
+
+    /**
+     * 文件的扩展名
+     */
+    public static final String EXTENSION = "raw";
+    /**
+     * 文件头的字节数，像素从该偏移开始（按缓存行对齐）
+     */
+    public static final int HEADER_SIZE = 64;
+
+    /**
+     * 文件标识："IRAW"
+     */
+    private static final int MAGIC = 0x57415249;
+    private static final int VERSION = 1;
+
+    /**
+     * 当前OpenCV SDK是否缺少{@code Mat(int, int, int, ByteBuffer)}构造方法，首次调用失败后不再尝试
+     */
+    private static volatile boolean sBufferMatUnsupported;
+
+    private final File mFile;
+    private final int mWidth;
+    private final int mHeight;
+    private final int mType;
+    private final int mStride;
+    /**
+     * 像素数据，映射的内存在该对象被回收后才会解除映射
+     */
+    private final ByteBuffer mPayload;
+
+    private RawImageFile(File file, int width, int height, int type, int stride, ByteBuffer payload) {
+        mFile = file;
+        mWidth = width;
+        mHeight = height;
+        mType = type;
+        mStride = stride;
+        mPayload = payload;
+    }
+
+    /**
+     * 保存Mat
+     *
+     * @param mat  图片，可以是不连续的子矩阵
+     * @param file 输出文件，已存在时覆盖
+     * @return 写入后重新打开的文件
+     * @throws IOException
+     */
+    public static RawImageFile write(final Mat mat, File file) throws IOException {
+        final int width = mat.cols();
+        final int height = mat.rows();
+        final int type = mat.type();
+        writeFile(file, width, height, type, (int) (width * mat.elemSize()), new PayloadWriter() {
+            @Override
+            public void write(ByteBuffer payload) {
+                //直接拷贝到映射的内存中，不经过Java堆
+                Mat target = wrapBuffer(height, width, type, payload);
+                if (target != null) {
+                    mat.copyTo(target);
+                    target.release();
+                    return;
+                }
+                checkByteDepth(type);
+                byte[] row = new byte[(int) (width * mat.elemSize())];
+                for (int r = 0; r < height; r++) {
+                    mat.get(r, 0, row);
+                    payload.put(row);
+                }
+            }
+        });
+        return open(file);
+    }
+
+    /**
+     * 保存逐行存储的像素
+     *
+     * @param data   像素数据，长度不小于stride × height
+     * @param width  宽
+     * @param height 高
+     * @param type   Mat类型，例如{@link CvType#CV_8UC1}
+     * @param stride 每行的字节数
+     * @param file   输出文件，已存在时覆盖
+     * @return 写入后重新打开的文件
+     * @throws IOException
+     */
+    public static RawImageFile write(final byte[] data, int width, int height, int type, final int stride, File file) throws IOException {
+        final int length = stride * height;
+        if (data.length < length) {
+            throw new IllegalArgumentException("data is too small: " + data.length + " < " + length);
+        }
+        writeFile(file, width, height, type, stride, new PayloadWriter() {
+            @Override
+            public void write(ByteBuffer payload) {
+                payload.put(data, 0, length);
+            }
+        });
+        return open(file);
+    }
+
+    /**
+     * 打开文件并映射到内存，只读取文件头
+     *
+     * @param file 文件
+     * @return
+     * @throws IOException 文件不存在或格式不正确
+     */
+    public static RawImageFile open(File file) throws IOException {
+        long begin = ProcessMetrics.getDefault().begin();
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            long length = raf.length();
+            if (length < HEADER_SIZE) {
+                throw new IOException("Not a raw image file: " + file);
+            }
+            FileChannel channel = raf.getChannel();
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+                throw new IOException("Not a raw image file: " + file);
+            }
+            int width = header.getInt(8);
+            int height = header.getInt(12);
+            int type = header.getInt(16);
+            int stride = header.getInt(20);
+            int offset = header.getInt(24);
+            long payloadSize = (long) stride * height;
+            if (width <= 0 || height <= 0 || stride <= 0 || offset < HEADER_SIZE || offset + payloadSize > length) {
+                throw new IOException("Corrupted raw image file: " + file);
+            }
+            //私有映射（写时复制），被包装的Mat即使被修改也不会写回文件
+            MappedByteBuffer payload = channel.map(FileChannel.MapMode.PRIVATE, offset, payloadSize);
+            ProcessMetrics.getDefault().end("raw_open", begin, payloadSize);
+            return new RawImageFile(file, width, height, type, stride, payload);
+        } finally {
+            //关闭文件不影响已映射的内存
+            raf.close();
+        }
+    }
+
+    /**
+     * 包装为Mat，不拷贝像素
+     * <p>
+     * Mat直接使用映射的内存，使用期间需保持本对象的引用，否则映射可能随本对象被回收而解除。
+     * OpenCV SDK不支持包装ByteBuffer时，返回拷贝了像素的Mat
+     *
+     * @return Mat，用完需调用release
+     */
+    public Mat wrap() {
+        if (mStride != mWidth * CvType.ELEM_SIZE(mType)) {
+            throw new IllegalStateException("Can't wrap a padded raw image, stride:" + mStride);
+        }
+        Mat mat = wrapBuffer(mHeight, mWidth, mType, mPayload);
+        if (mat != null) {
+            return mat;
+        }
+        checkByteDepth(mType);
+        long begin = ProcessMetrics.getDefault().begin();
+        mat = new Mat(mHeight, mWidth, mType);
+        ByteBuffer payload = getPayload();
+        byte[] row = new byte[mStride];
+        for (int r = 0; r < mHeight; r++) {
+            payload.get(row);
+            mat.put(r, 0, row);
+        }
+        ProcessMetrics.getDefault().end("raw_copy", begin, (long) mStride * mHeight);
+        return mat;
+    }
+
+    /**
+     * 使用ByteBuffer构造Mat，当前OpenCV SDK不支持时返回null
+     */
+    private static Mat wrapBuffer(int rows, int cols, int type, ByteBuffer buffer) {
+        if (sBufferMatUnsupported) {
+            return null;
+        }
+        try {
+            return new Mat(rows, cols, type, buffer);
+        } catch (NoSuchMethodError e) {
+            sBufferMatUnsupported = true;
+            return null;
+        }
+    }
+
+    /**
+     * 逐行拷贝使用byte[]，只支持8位图片
+     */
+    private static void checkByteDepth(int type) {
+        int depth = CvType.depth(type);
+        if (depth != CvType.CV_8U && depth != CvType.CV_8S) {
+            throw new UnsupportedOperationException("OpenCV SDK can't wrap ByteBuffer, only 8 bit raw images are supported, but was "
+                    + CvType.typeToString(type));
+        }
+    }
+
+    /**
+     * 拷贝到Mat
+     *
+     * @param dst 输出，可复用
+     */
+    public void copyTo(Mat dst) {
+        Mat mat = wrap();
+        mat.copyTo(dst);
+        mat.release();
+    }
+
+    /**
+     * @return 像素数据（只读），位置为0
+     */
+    public ByteBuffer getPayload() {
+        return mPayload.asReadOnlyBuffer();
+    }
+
+    public File getFile() {
+        return mFile;
+    }
+
+    public int getWidth() {
+        return mWidth;
+    }
+
+    public int getHeight() {
+        return mHeight;
+    }
+
+    /**
+     * @return Mat类型，例如{@link CvType#CV_8UC1}
+     */
+    public int getType() {
+        return mType;
+    }
+
+    /**
+     * @return 每行的字节数
+     */
+    public int getStride() {
+        return mStride;
+    }
+
+    private static void writeFile(File file, int width, int height, int type, int stride, PayloadWriter writer) throws IOException {
+        long begin = ProcessMetrics.getDefault().begin();
+        long payloadSize = (long) stride * height;
+        long size = HEADER_SIZE + payloadSize;
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Raw image is too large: " + size);
+        }
+        //临时文件名唯一，多个线程同时写入同一文件时互不影响，最后一次重命名生效
+        File temp = File.createTempFile(file.getName(), ".tmp", file.getAbsoluteFile().getParentFile());
+        RandomAccessFile raf = new RandomAccessFile(temp, "rw");
+        boolean written = false;
+        try {
+            raf.setLength(size);
+            MappedByteBuffer buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putInt(8, width);
+            buffer.putInt(12, height);
+            buffer.putInt(16, type);
+            buffer.putInt(20, stride);
+            buffer.putInt(24, HEADER_SIZE);
+            buffer.position(HEADER_SIZE);
+            writer.write(buffer.slice());
+            buffer.force();
+            written = temp.renameTo(file);
+        } finally {
+            raf.close();
+            if (!written) {
+                temp.delete();
+            }
+        }
+        if (!written) {
+            throw new IOException("can't write raw image:" + file);
+        }
+        ProcessMetrics.getDefault().end("raw_write", begin, payloadSize);
+    }
+
+    /**
+     * 写入像素数据
+     */
+    private interface PayloadWriter {
+
+        /**
+         * @param payload 映射的像素区域，位置为0
+         */
+        void write(ByteBuffer payload);
+    }
+}
@@ -0,0 +1,313 @@
+/*
+ * Copyright (C) 2019 xuexiangjys(xuexiangjys@163.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.xuexiang.imageprocess.core.threshold;
+
+import com.xuexiang.imageprocess.core.backend.ByteImage;
+import com.xuexiang.imageprocess.core.kernel.PixelKernels;
+import com.xuexiang.imageprocess.core.parallel.RowBands;
+
+import org.opencv.core.Mat;
+
+import java.util.Locale;
+
+import static org.opencv.core.CvType.CV_8UC1;
+
+/**
+ * 局部自适应二值化（Sauvola/Niblack），适合光照不均匀的拍照文档
+ * <p>
+ * 每个像素的阈值由其周围window x window窗口内的均值和标准差决定。均值和方差通过积分图计算，
+ * 每个像素的开销与窗口大小无关。积分图按行带分别构建（只包含行带及上下各半个窗口的行），
+ * 使用long累加避免平方和溢出，每个线程只需一个行带大小的缓冲，整张图片不需要完整的积分图。
+ *
+ * @author xuexiang
+ * @since 2026-10-18 23:20
+ */
+public final class AdaptiveThreshold {
+
+    /**
+     * 默认窗口大小
+     */
+    public static final int DEFAULT_WINDOW_SIZE = 31;
+    /**
+     * Sauvola默认的k值
+     */
+    public static final double DEFAULT_SAUVOLA_K = 0.34;
+    /**
+     * Niblack默认的k值
+     */
+    public static final double DEFAULT_NIBLACK_K = -0.2;
+    /**
+     * 标准差的动态范围，8位灰度图为128
+     */
+    private static final double SAUVOLA_R = 128;
+
+    /**
+     * 计算方法
+     */
+    public enum Method {
+        /**
+         * T = mean * (1 + k * (std / R - 1))，背景噪声小，适合文档
+         */
+        SAUVOLA,
+        /**
+         * T = mean + k * std
+         */
+        NIBLACK
+    }
+
+    private final Method mMethod;
+    private final int mWindowSize;
+    private final double mK;
+    private final double mMaxVal;
+
+    /**
+     * @param method     计算方法
+     * @param windowSize 窗口大小，奇数，一般大于笔画宽度的2倍
+     * @param k          系数
+     * @param maxval     最大阈值， 一般为255
+     */
+    public AdaptiveThreshold(Method method, int windowSize, double k, double maxval) {
+        if (windowSize < 3 || windowSize % 2 == 0) {
+            throw new IllegalArgumentException("windowSize must be an odd number >= 3, but was " + windowSize);
+        }
+        mMethod = method;
+        mWindowSize = windowSize;
+        mK = k;
+        mMaxVal = maxval;
+    }
+
+    /**
+     * @return 默认参数的Sauvola
+     */
+    public static AdaptiveThreshold sauvola() {
+        return sauvola(DEFAULT_WINDOW_SIZE, DEFAULT_SAUVOLA_K);
+    }
+
+    public static AdaptiveThreshold sauvola(int windowSize, double k) {
+        return new AdaptiveThreshold(Method.SAUVOLA, windowSize, k, 255);
+    }
+
+    /**
+     * @return 默认参数的Niblack
+     */
+    public static AdaptiveThreshold niblack() {
+        return niblack(DEFAULT_WINDOW_SIZE, DEFAULT_NIBLACK_K);
+    }
+
+    public static AdaptiveThreshold niblack(int windowSize, double k) {
+        return new AdaptiveThreshold(Method.NIBLACK, windowSize, k, 255);
+    }
+
+    /**
+     * 二值化单通道Mat，不支持原地处理
+     *
+     * @param src 单通道灰度图
+     * @param dst 输出，可复用
+     */
+    public void process(final Mat src, final Mat dst) {
+        if (src.channels() != 1) {
+            throw new IllegalArgumentException("AdaptiveThreshold requires a single channel image, but was " + src.channels());
+        }
+        if (src == dst) {
+            throw new IllegalArgumentException("AdaptiveThreshold does not support in-place processing");
+        }
+        final int width = src.cols();
+        final int height = src.rows();
+        final BandBuffers[] buffers = new BandBuffers[RowBands.getParallelism()];
+        dst.create(height, width, CV_8UC1);
+        RowBands.forEach(height, getBandRows(), new RowBands.BandTask() {
+            @Override
+            public void run(int worker, int rowStart, int rowEnd) {
+                int top = Math.max(0, rowStart - getHalo());
+                int bottom = Math.min(height, rowEnd + getHalo());
+                BandBuffers buffer = obtain(buffers, worker, width, bottom - top, rowEnd - rowStart);
+                src.get(top, 0, buffer.mWindow);
+                thresholdBand(buffer, buffer.mWindow, 0, width, height, top, bottom, rowStart, rowEnd, buffer.mOut, 0);
+                dst.put(rowStart, 0, buffer.mOut);
+            }
+        });
+    }
+
+    /**
+     * 二值化单通道图片（纯Java，可在JVM上运行），不支持原地处理
+     *
+     * @param src 单通道灰度图
+     * @param dst 输出，可复用
+     */
+    public void process(ByteImage src, ByteImage dst) {
+        if (src.getChannels() != 1) {
+            throw new IllegalArgumentException("AdaptiveThreshold requires a single channel image, but was " + src.getChannels());
+        }
+        if (src == dst) {
+            throw new IllegalArgumentException("AdaptiveThreshold does not support in-place processing");
+        }
+        final int width = src.getWidth();
+        final int height = src.getHeight();
+        final byte[] in = src.getData();
+        dst.create(width, height, 1);
+        final byte[] out = dst.getData();
+        final BandBuffers[] buffers = new BandBuffers[RowBands.getParallelism()];
+        RowBands.forEach(height, getBandRows(), new RowBands.BandTask() {
+            @Override
+            public void run(int worker, int rowStart, int rowEnd) {
+                int top = Math.max(0, rowStart - getHalo());
+                int bottom = Math.min(height, rowEnd + getHalo());
+                BandBuffers buffer = obtain(buffers, worker, width, bottom - top, 0);
+                thresholdBand(buffer, in, top * width, width, height, top, bottom, rowStart, rowEnd, out, rowStart * width);
+            }
+        });
+    }
+
+    /**
+     * 处理一个行带
+     *
+     * @param buffer       积分图缓冲
+     * @param window       包含[top, bottom)行的灰度数据
+     * @param windowOffset 第top行在window中的起始下标
+     * @param width        宽
+     * @param height       高
+     * @param top          积分图的起始行
+     * @param bottom       积分图的结束行（不包含）
+     * @param rowStart     输出的起始行
+     * @param rowEnd       输出的结束行（不包含）
+     * @param out          输出
+     * @param outOffset    第rowStart行在out中的起始下标
+     */
+    private void thresholdBand(BandBuffers buffer, byte[] window, int windowOffset, int width, int height,
+                               int top, int bottom, int rowStart, int rowEnd, byte[] out, int outOffset) {
+        int stride = width + 1;
+        long[] sum = buffer.mSum;
+        long[] sqsum = buffer.mSqsum;
+        //积分图第0行、第0列为0
+        for (int x = 0; x < stride; x++) {
+            sum[x] = 0;
+            sqsum[x] = 0;
+        }
+        for (int y = 0; y < bottom - top; y++) {
+            int in = windowOffset + y * width;
+            int prev = y * stride;
+            int cur = prev + stride;
+            long rowSum = 0;
+            long rowSqsum = 0;
+            sum[cur] = 0;
+            sqsum[cur] = 0;
+            for (int x = 0; x < width; x++) {
+                int value = window[in + x] & 0xFF;
+                rowSum += value;
+                rowSqsum += value * value;
+                sum[cur + x + 1] = sum[prev + x + 1] + rowSum;
+                sqsum[cur + x + 1] = sqsum[prev + x + 1] + rowSqsum;
+            }
+        }
+
+        int halo = getHalo();
+        byte maxval = PixelKernels.toByte(mMaxVal);
+        boolean sauvola = mMethod == Method.SAUVOLA;
+        for (int y = rowStart; y < rowEnd; y++) {
+            int y0 = (Math.max(0, y - halo) - top) * stride;
+            int y1 = (Math.min(height, y + halo + 1) - top) * stride;
+            int rows = (y1 - y0) / stride;
+            int in = windowOffset + (y - top) * width;
+            int o = outOffset + (y - rowStart) * width;
+            for (int x = 0; x < width; x++) {
+                int x0 = Math.max(0, x - halo);
+                int x1 = Math.min(width, x + halo + 1);
+                long area = (long) rows * (x1 - x0);
+                long s = sum[y1 + x1] - sum[y1 + x0] - sum[y0 + x1] + sum[y0 + x0];
+                long s2 = sqsum[y1 + x1] - sqsum[y1 + x0] - sqsum[y0 + x1] + sqsum[y0 + x0];
+                double mean = (double) s / area;
+                double variance = (double) s2 / area - mean * mean;
+                double std = variance > 0 ? Math.sqrt(variance) : 0;
+                double thresh = sauvola ? mean * (1 + mK * (std / SAUVOLA_R - 1)) : mean + mK * std;
+                out[o + x] = (window[in + x] & 0xFF) > thresh ? maxval : 0;
+            }
+        }
+    }
+
+    /**
+     * 行带越高，上下半个窗口的重复计算占比越小
+     */
+    private int getBandRows() {
+        return Math.max(RowBands.DEFAULT_BAND_ROWS, mWindowSize * 2);
+    }
+
+    private static BandBuffers obtain(BandBuffers[] buffers, int worker, int width, int windowRows, int outRows) {
+        BandBuffers buffer = buffers[worker];
+        if (buffer == null) {
+            buffer = buffers[worker] = new BandBuffers();
+        }
+        buffer.ensure(width, windowRows, outRows);
+        return buffer;
+    }
+
+    /**
+     * @return 分块处理时需要的重叠像素数，为半个窗口
+     */
+    public int getHalo() {
+        return mWindowSize / 2;
+    }
+
+    public Method getMethod() {
+        return mMethod;
+    }
+
+    public int getWindowSize() {
+        return mWindowSize;
+    }
+
+    public double getK() {
+        return mK;
+    }
+
+    public double getMaxVal() {
+        return mMaxVal;
+    }
+
+    /**
+     * @return 名称，用于流水线的描述和缓存key
+     */
+    public String getName() {
+        return mMethod.name().toLowerCase(Locale.US) + "(" + mWindowSize + "," + mK + "," + mMaxVal + ")";
+    }
+
+    /**
+     * 每个线程的行带缓冲
+     */
+    private static final class BandBuffers {
+
+        private byte[] mWindow;
+        private long[] mSum;
+        private long[] mSqsum;
+        private byte[] mOut;
+
+        void ensure(int width, int windowRows, int outRows) {
+            int integralSize = (windowRows + 1) * (width + 1);
+            if (mSum == null || mSum.length < integralSize) {
+                mSum = new long[integralSize];
+                mSqsum = new long[integralSize];
+            }
+            //Mat.get/put按数组长度拷贝，长度需与行数严格一致
+            if (outRows > 0 && (mWindow == null || mWindow.length != windowRows * width)) {
+                mWindow = new byte[windowRows * width];
+            }
+            if (outRows > 0 && (mOut == null || mOut.length != outRows * width)) {
+                mOut = new byte[outRows * width];
+            }
+        }
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2019 xuexiangjys(xuexiangjys@163.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.xuexiang.imageprocess.core.threshold;
+
+import com.xuexiang.imageprocess.core.kernel.PixelKernels;
+import com.xuexiang.imageprocess.core.parallel.RowBands;
+
+import org.opencv.core.Mat;
+
+/**
+ * 直方图，一次遍历统计所有通道
+ * <p>
+ * 同一张图片计算多个通道的阈值（如去红和去蓝）时共用同一个直方图，选择阈值只需遍历256个灰度级。
+ *
+ * @author xuexiang
+ * @since 2026-10-18 22:45
+ */
+public final class Histogram {
+
+    /**
+     * 灰度级数
+     */
+    public static final int BINS = 256;
+
+    private final int mChannels;
+    private final int[][] mCounts;
+    private final long mTotal;
+
+    private Histogram(int channels, int[] counts, long total) {
+        mChannels = channels;
+        mCounts = new int[channels][];
+        for (int c = 0; c < channels; c++) {
+            mCounts[c] = new int[BINS];
+            System.arraycopy(counts, c * BINS, mCounts[c], 0, BINS);
+        }
+        mTotal = total;
+    }
+
+    /**
+     * 统计像素数据的直方图
+     *
+     * @param data     连续存储的像素
+     * @param channels 通道数
+     * @return
+     */
+    public static Histogram compute(byte[] data, int channels) {
+        int pixels = data.length / channels;
+        int[] counts = new int[channels * BINS];
+        PixelKernels.histogram(data, 0, channels, pixels, counts);
+        return new Histogram(channels, counts, pixels);
+    }
+
+    /**
+     * 统计Mat的直方图，按行带并行，每个线程累加到各自的计数中，最后合并
+     *
+     * @param src 8位Mat
+     * @return
+     */
+    public static Histogram compute(final Mat src) {
+        final int cols = src.cols();
+        final int channels = src.channels();
+        int parallelism = RowBands.getParallelism();
+        final byte[][] buffers = new byte[parallelism][];
+        final int[][] partials = new int[parallelism][];
+        RowBands.forEach(src.rows(), new RowBands.BandTask() {
+            @Override
+            public void run(int worker, int rowStart, int rowEnd) {
+                int pixels = (rowEnd - rowStart) * cols;
+                byte[] buffer = buffers[worker];
+                if (buffer == null || buffer.length != pixels * channels) {
+                    buffer = buffers[worker] = new byte[pixels * channels];
+                }
+                if (partials[worker] == null) {
+                    partials[worker] = new int[channels * BINS];
+                }
+                src.get(rowStart, 0, buffer);
+                PixelKernels.histogram(buffer, 0, channels, pixels, partials[worker]);
+            }
+        });
+        int[] counts = new int[channels * BINS];
+        for (int[] partial : partials) {
+            if (partial != null) {
+                for (int i = 0; i < counts.length; i++) {
+                    counts[i] += partial[i];
+                }
+            }
+        }
+        return new Histogram(channels, counts, (long) src.rows() * cols);
+    }
+
+    /**
+     * 计算指定通道的阈值
+     *
+     * @param channelIndex 通道
+     * @param selector     阈值选择器
+     * @return
+     */
+    public int select(int channelIndex, IThresholdSelector selector) {
+        return selector.select(mCounts[channelIndex], mTotal);
+    }
+
+    public int getChannels() {
+        return mChannels;
+    }
+
+    /**
+     * @param channelIndex 通道
+     * @return 该通道256个灰度级的像素数，不可修改
+     */
+    public int[] get(int channelIndex) {
+        return mCounts[channelIndex];
+    }
+
+    /**
+     * @return 像素总数
+     */
+    public long getTotal() {
+        return mTotal;
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright (C) 2019 xuexiangjys(xuexiangjys@163.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.xuexiang.imageprocess.core.threshold;
+
+/**
+ * 阈值选择器，根据直方图计算阈值
+ *
+ * @author xuexiang
+ * @since 2026-10-18 22:40
+ */
+public interface IThresholdSelector {
+
+    /**
+     * 计算阈值，像素值大于阈值的为白色（与THRESH_BINARY一致）
+     *
+     * @param histogram 256个灰度级的像素数
+     * @param total     像素总数
+     * @return 0~255
+     */
+    int select(int[] histogram, long total);
+
+    /**
+     * @return 名称，用于流水线的描述和缓存key
+     */
+    String getName();
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright (C) 2019 xuexiangjys(xuexiangjys@163.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.xuexiang.imageprocess.core.threshold;
+
+/**
+ * 自动阈值选择器
+ *
+ * @author xuexiang
+ * @since 2026-10-18 22:50
+ */
+public final class ThresholdSelectors {
+
+    private ThresholdSelectors() {
+        throw new UnsupportedOperationException("u can't instantiate me...");
+    }
+
+    /**
+     * 大津法：使前景与背景类间方差最大，适合明暗分明的双峰直方图
+     *
+     * @return
+     */
+    public static IThresholdSelector otsu() {
+        return OtsuSelector.INSTANCE;
+    }
+
+    /**
+     * 三角法：从主峰向长尾一侧连线，取离连线最远的灰度级，适合大片白纸上少量笔迹的单峰直方图
+     *
+     * @return
+     */
+    public static IThresholdSelector triangle() {
+        return TriangleSelector.INSTANCE;
+    }
+
+    /**
+     * 百分位：最暗的percent%像素作为前景，适合已知墨迹占比的场景
+     *
+     * @param percent 0~100
+     * @return
+     */
+    public static IThresholdSelector percentile(double percent) {
+        return new PercentileSelector(percent);
+    }
+
+    /**
+     * 大津法
+     */
+    private static class OtsuSelector implements IThresholdSelector {
+
+        static final OtsuSelector INSTANCE = new OtsuSelector();
+
+        @Override
+        public int select(int[] histogram, long total) {
+            if (total == 0) {
+                return 0;
+            }
+            double sum = 0;
+            for (int i = 0; i < Histogram.BINS; i++) {
+                sum += (double) i * histogram[i];
+            }
+            double sumBackground = 0;
+            long weightBackground = 0;
+            double maxVariance = -1;
+            int thresh = 0;
+            for (int i = 0; i < Histogram.BINS; i++) {
+                weightBackground += histogram[i];
+                if (weightBackground == 0) {
+                    continue;
+                }
+                long weightForeground = total - weightBackground;
+                if (weightForeground == 0) {
+                    break;
+                }
+                sumBackground += (double) i * histogram[i];
+                double meanBackground = sumBackground / weightBackground;
+                double meanForeground = (sum - sumBackground) / weightForeground;
+                double diff = meanBackground - meanForeground;
+                double variance = (double) weightBackground * weightForeground * diff * diff;
+                if (variance > maxVariance) {
+                    maxVariance = variance;
+                    thresh = i;
+                }
+            }
+            return thresh;
+        }
+
+        @Override
+        public String getName() {
+            return "otsu";
+        }
+    }
+
+    /**
+     * 三角法，与OpenCV的THRESH_TRIANGLE一致
+     */
+    private static class TriangleSelector implements IThresholdSelector {
+
+        static final TriangleSelector INSTANCE = new TriangleSelector();
+
+        @Override
+        public int select(int[] histogram, long total) {
+            int left = 0;
+            int right = Histogram.BINS - 1;
+            while (left < Histogram.BINS && histogram[left] == 0) {
+                left++;
+            }
+            while (right > 0 && histogram[right] == 0) {
+                right--;
+            }
+            if (left >= right) {
+                return Math.min(left, Histogram.BINS - 1);
+            }
+            if (left > 0) {
+                left--;
+            }
+            if (right < Histogram.BINS - 1) {
+                right++;
+            }
+            int peak = 0;
+            for (int i = 0; i < Histogram.BINS; i++) {
+                if (histogram[i] > histogram[peak]) {
+                    peak = i;
+                }
+            }
+            //统一为长尾在左侧，文档的主峰（白纸）一般在右侧
+            boolean flip = peak - left < right - peak;
+            int start = flip ? Histogram.BINS - 1 - right : left;
+            int end = flip ? Histogram.BINS - 1 - peak : peak;
+            double a = histogram[peak];
+            double b = start - end;
+            double maxDistance = 0;
+            int thresh = start;
+            for (int i = start + 1; i <= end; i++) {
+                int count = histogram[flip ? Histogram.BINS - 1 - i : i];
+                double distance = a * i + b * count;
+                if (distance > maxDistance) {
+                    maxDistance = distance;
+                    thresh = i;
+                }
+            }
+            thresh--;
+            return flip ? Histogram.BINS - 1 - thresh : thresh;
+        }
+
+        @Override
+        public String getName() {
+            return "triangle";
+        }
+    }
+
+    /**
+     * 百分位
+     */
+    private static class PercentileSelector implements IThresholdSelector {
+
+        private final double mPercent;
+
+        PercentileSelector(double percent) {
+            mPercent = Math.min(100D, Math.max(0D, percent));
+        }
+
+        @Override
+        public int select(int[] histogram, long total) {
+            long target = (long) Math.ceil(total * mPercent / 100D);
+            long seen = 0;
+            for (int i = 0; i < Histogram.BINS; i++) {
+                seen += histogram[i];
+                if (seen >= target) {
+                    return i;
+                }
+            }
+            return Histogram.BINS - 1;
+        }
+
+        @Override
+        public String getName() {
+            return "percentile(" + mPercent + ")";
+        }
+    }
+}
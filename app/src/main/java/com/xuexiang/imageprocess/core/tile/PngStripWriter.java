@@ -0,0 +1,204 @@
+/*
+ * Copyright (C) 2019 xuexiangjys(xuexiangjys@163.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.xuexiang.imageprocess.core.tile;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * 逐行编码的PNG写入器（纯Java实现），只缓存一行像素和一个IDAT块，内存占用与图片大小无关
+ * <p>
+ * 支持8位的灰度、BGR和BGRA像素（与OpenCV的通道顺序一致），写入时转换为PNG的RGB/RGBA顺序
+ *
+ * @author xuexiang
+ * @since 2026-10-19 06:00
+ */
+final class PngStripWriter {
+
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    /**
+     * 单个IDAT块的最大字节数
+     */
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private final DataOutputStream mOut;
+    private final DeflaterOutputStream mDeflater;
+    private final Deflater mDeflaterImpl;
+    private final int mWidth;
+    private final int mHeight;
+    private final int mChannels;
+    private final byte[] mRow;
+    private int mWrittenRows;
+
+    /**
+     * @param file     输出文件
+     * @param width    宽
+     * @param height   高
+     * @param channels 通道数：1（灰度）、3（BGR）或4（BGRA）
+     * @throws IOException
+     */
+    PngStripWriter(File file, int width, int height, int channels) throws IOException {
+        int colorType;
+        switch (channels) {
+            case 1:
+                colorType = 0;
+                break;
+            case 3:
+                colorType = 2;
+                break;
+            case 4:
+                colorType = 6;
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported channels for png: " + channels);
+        }
+        mWidth = width;
+        mHeight = height;
+        mChannels = channels;
+        mRow = new byte[width * channels + 1];
+        mOut = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+        mOut.write(SIGNATURE);
+        //宽、高（大端序），位深8，压缩、滤波和隔行方式均为0
+        byte[] header = ByteBuffer.allocate(13).putInt(width).putInt(height)
+                .put((byte) 8).put((byte) colorType).put((byte) 0).put((byte) 0).put((byte) 0).array();
+        writeChunk(mOut, "IHDR", header, header.length);
+        mDeflaterImpl = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        mDeflater = new DeflaterOutputStream(new IdatOutputStream(mOut), mDeflaterImpl, CHUNK_SIZE);
+    }
+
+    /**
+     * 写入一行像素
+     *
+     * @param pixels 像素，OpenCV的通道顺序
+     * @param offset 起始偏移
+     * @throws IOException
+     */
+    void writeRow(byte[] pixels, int offset) throws IOException {
+        if (mWrittenRows >= mHeight) {
+            throw new IllegalStateException("All " + mHeight + " rows have been written!");
+        }
+        //每行以滤波类型开头，0表示不滤波
+        mRow[0] = 0;
+        int length = mWidth * mChannels;
+        System.arraycopy(pixels, offset, mRow, 1, length);
+        if (mChannels >= 3) {
+            //BGR(A) -> RGB(A)
+            for (int i = 1; i < length + 1; i += mChannels) {
+                byte b = mRow[i];
+                mRow[i] = mRow[i + 2];
+                mRow[i + 2] = b;
+            }
+        }
+        mDeflater.write(mRow, 0, length + 1);
+        mWrittenRows++;
+    }
+
+    /**
+     * 结束写入并关闭文件
+     *
+     * @throws IOException 行数不足
+     */
+    void finish() throws IOException {
+        try {
+            if (mWrittenRows != mHeight) {
+                throw new IOException("Expected " + mHeight + " rows, but only " + mWrittenRows + " were written");
+            }
+            mDeflater.finish();
+            mDeflater.flush();
+            writeChunk(mOut, "IEND", new byte[0], 0);
+        } finally {
+            close();
+        }
+    }
+
+    /**
+     * 关闭文件，不保证文件完整
+     */
+    void close() throws IOException {
+        mDeflaterImpl.end();
+        mOut.close();
+    }
+
+    private static void writeChunk(DataOutputStream out, String type, byte[] data, int length) throws IOException {
+        byte[] typeBytes = type.getBytes(Charset.forName("US-ASCII"));
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data, 0, length);
+        out.writeInt(length);
+        out.write(typeBytes);
+        out.write(data, 0, length);
+        out.writeInt((int) crc.getValue());
+    }
+
+    /**
+     * 将压缩数据按块写为IDAT
+     */
+    private static class IdatOutputStream extends OutputStream {
+
+        private final DataOutputStream mOut;
+        private final byte[] mBuffer = new byte[CHUNK_SIZE];
+        private int mCount;
+
+        IdatOutputStream(DataOutputStream out) {
+            mOut = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (mCount == mBuffer.length) {
+                flushChunk();
+            }
+            mBuffer[mCount++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (mCount == mBuffer.length) {
+                    flushChunk();
+                }
+                int n = Math.min(len, mBuffer.length - mCount);
+                System.arraycopy(b, off, mBuffer, mCount, n);
+                mCount += n;
+                off += n;
+                len -= n;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            flushChunk();
+        }
+
+        private void flushChunk() throws IOException {
+            if (mCount > 0) {
+                writeChunk(mOut, "IDAT", mBuffer, mCount);
+                mCount = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,481 @@
+/*
+ * Copyright (C) 2019 xuexiangjys(xuexiangjys@163.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.xuexiang.imageprocess.core.tile;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.BitmapRegionDecoder;
+
+import com.xuexiang.imageprocess.core.parallel.RowBands;
+import com.xuexiang.imageprocess.core.pipeline.ImagePipeline;
+import com.xuexiang.imageprocess.core.pipeline.IStage;
+import com.xuexiang.imageprocess.core.pool.MatPool;
+
+import org.opencv.android.Utils;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Rect;
+import org.opencv.imgproc.Imgproc;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Locale;
+
+import static org.opencv.core.CvType.CV_8UC1;
+import static org.opencv.core.CvType.CV_8UC3;
+import static org.opencv.core.CvType.CV_8UC4;
+
+/**
+ * 分块处理器，用于处理超大图片
+ * <p>
+ * 图片按tileSize切分为若干行分块（条带），逐条带处理：条带内的各分块向外扩展流水线所需的重叠像素({@link ImagePipeline#getHalo()})后
+ * 通过{@link RowBands}并行处理，再将中间区域拼接到条带中。处理文件时使用{@link BitmapRegionDecoder}按块解码，不会解码整张原图。
+ * <p>
+ * 文件到文件的处理（{@link #process(String, String)}）每完成一个条带就逐行编码为PNG写入文件，不持有整张输出图片，
+ * 峰值内存约为：并行数 x 分块大小 + 一个条带（tileSize x 图片宽度）。
+ *
+ * @author xuexiang
+ * @since 2026-10-18 18:10
+ */
+public class TiledProcessor {
+
+    /**
+     * 默认的分块边长
+     */
+    public static final int DEFAULT_TILE_SIZE = 1024;
+
+    private final ImagePipeline mPipeline;
+    private final int mTileSize;
+
+    public TiledProcessor(ImagePipeline pipeline) {
+        this(pipeline, DEFAULT_TILE_SIZE);
+    }
+
+    /**
+     * 构造
+     *
+     * @param pipeline 处理流水线
+     * @param tileSize 分块边长（不含重叠区域）
+     * @throws IllegalArgumentException 流水线中包含依赖整张图片的阶段（{@link IStage#HALO_GLOBAL}），分块处理的结果会不正确
+     */
+    public TiledProcessor(ImagePipeline pipeline, int tileSize) {
+        if (pipeline == null) {
+            throw new NullPointerException("pipeline == null");
+        }
+        if (tileSize <= 0) {
+            throw new IllegalArgumentException("tileSize must be positive!");
+        }
+        if (pipeline.getHalo() < 0) {
+            throw new IllegalArgumentException("pipeline contains global stages, can't be tiled: " + pipeline.getName());
+        }
+        mPipeline = pipeline;
+        mTileSize = tileSize;
+    }
+
+    /**
+     * 分块处理内存中的图片，各分块并行处理
+     *
+     * @param src 输入图片
+     * @param dst 输出，可复用
+     */
+    public void process(Mat src, Mat dst) {
+        process(new MatTileSource(src), new MatTileTarget(dst));
+    }
+
+    /**
+     * 分块解码并处理图片文件，输出为整张图片
+     *
+     * @param imgPath 图片路径
+     * @param dst     输出，可复用
+     * @throws IOException 图片格式不支持分块解码（仅支持jpg、png、webp）
+     */
+    public void process(String imgPath, Mat dst) throws IOException {
+        RegionTileSource source = new RegionTileSource(imgPath);
+        try {
+            process(source, new MatTileTarget(dst));
+        } finally {
+            source.close();
+        }
+    }
+
+    /**
+     * 分块解码并处理图片文件，结果逐条带编码为PNG写入文件，不持有整张输出图片
+     *
+     * @param imgPath    图片路径
+     * @param outputPath 输出路径，需为png格式
+     * @return 写入成功时返回true，失败时抛出IOException
+     * @throws IOException 图片格式不支持分块解码（仅支持jpg、png、webp）或写入失败
+     */
+    public boolean process(String imgPath, String outputPath) throws IOException {
+        if (!outputPath.toLowerCase(Locale.US).endsWith(".png")) {
+            throw new IllegalArgumentException("Tiled output only supports png, but was: " + outputPath);
+        }
+        RegionTileSource source = new RegionTileSource(imgPath);
+        PngTileTarget target = new PngTileTarget(new File(outputPath));
+        boolean finished = false;
+        try {
+            process(source, target);
+            target.finish();
+            finished = true;
+        } catch (TileWriteException e) {
+            throw e.getCause();
+        } finally {
+            source.close();
+            if (!finished) {
+                target.abort();
+            }
+        }
+        return true;
+    }
+
+    private void process(final TileSource source, final TileTarget target) {
+        final int width = source.getWidth();
+        final int height = source.getHeight();
+        final int tileCols = (width + mTileSize - 1) / mTileSize;
+        int tileRows = (height + mTileSize - 1) / mTileSize;
+        for (int row = 0; row < tileRows; row++) {
+            final Strip strip = new Strip(target, row * mTileSize, Math.min(mTileSize, height - row * mTileSize), width, height);
+            try {
+                RowBands.forEach(tileCols, 1, new RowBands.BandTask() {
+                    @Override
+                    public void run(int worker, int rowStart, int rowEnd) {
+                        for (int col = rowStart; col < rowEnd; col++) {
+                            processTile(source, strip, col * mTileSize);
+                        }
+                    }
+                });
+            } catch (RuntimeException e) {
+                strip.discard();
+                throw e;
+            }
+            strip.end();
+        }
+    }
+
+    private void processTile(TileSource source, Strip strip, int x) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        int halo = mPipeline.getHalo();
+        int y = strip.mY;
+        int w = Math.min(mTileSize, width - x);
+        int h = strip.mHeight;
+        //扩展重叠区域
+        int x0 = Math.max(0, x - halo);
+        int y0 = Math.max(0, y - halo);
+        int x1 = Math.min(width, x + w + halo);
+        int y1 = Math.min(height, y + h + halo);
+
+        Mat in = source.read(new Rect(x0, y0, x1 - x0, y1 - y0));
+        Mat out = MatPool.getDefault().acquire(y1 - y0, x1 - x0, CV_8UC1);
+        try {
+            mPipeline.process(in, out);
+            Mat inner = out.submat(new Rect(x - x0, y - y0, w, h));
+            Mat target = strip.obtain(out.type()).submat(new Rect(x, 0, w, h));
+            inner.copyTo(target);
+            inner.release();
+            target.release();
+        } finally {
+            source.recycle(in);
+            MatPool.getDefault().release(out);
+        }
+    }
+
+    /**
+     * 一行分块，输出的Mat在第一个分块处理完成（确定输出类型）时才获取
+     */
+    private static final class Strip {
+
+        private final TileTarget mTarget;
+        private final int mY;
+        private final int mHeight;
+        private final int mImageWidth;
+        private final int mImageHeight;
+        private Mat mMat;
+
+        Strip(TileTarget target, int y, int height, int imageWidth, int imageHeight) {
+            mTarget = target;
+            mY = y;
+            mHeight = height;
+            mImageWidth = imageWidth;
+            mImageHeight = imageHeight;
+        }
+
+        synchronized Mat obtain(int type) {
+            if (mMat == null) {
+                mMat = mTarget.beginStrip(mY, mHeight, mImageWidth, mImageHeight, type);
+            }
+            return mMat;
+        }
+
+        void end() {
+            if (mMat != null) {
+                mTarget.endStrip(mMat);
+                mMat = null;
+            }
+        }
+
+        void discard() {
+            if (mMat != null) {
+                mTarget.discardStrip(mMat);
+                mMat = null;
+            }
+        }
+    }
+
+    /**
+     * 分块处理的输出
+     */
+    private interface TileTarget {
+
+        /**
+         * 开始一个条带
+         *
+         * @return 条带的输出，宽为图片宽度，高为条带高度
+         */
+        Mat beginStrip(int y, int height, int imageWidth, int imageHeight, int type);
+
+        /**
+         * 条带的所有分块处理完成
+         */
+        void endStrip(Mat strip);
+
+        /**
+         * 条带处理失败，回收条带的输出
+         */
+        void discardStrip(Mat strip);
+    }
+
+    /**
+     * 输出到整张图片，条带直接取子矩阵
+     */
+    private static class MatTileTarget implements TileTarget {
+
+        private final Mat mDst;
+
+        MatTileTarget(Mat dst) {
+            mDst = dst;
+        }
+
+        @Override
+        public Mat beginStrip(int y, int height, int imageWidth, int imageHeight, int type) {
+            if (y == 0) {
+                mDst.create(imageHeight, imageWidth, type);
+            }
+            return mDst.submat(new Rect(0, y, imageWidth, height));
+        }
+
+        @Override
+        public void endStrip(Mat strip) {
+            strip.release();
+        }
+
+        @Override
+        public void discardStrip(Mat strip) {
+            strip.release();
+        }
+    }
+
+    /**
+     * 逐条带编码为PNG文件
+     */
+    private static class PngTileTarget implements TileTarget {
+
+        private final File mFile;
+        private PngStripWriter mWriter;
+        private byte[] mRow;
+
+        PngTileTarget(File file) {
+            mFile = file;
+        }
+
+        @Override
+        public Mat beginStrip(int y, int height, int imageWidth, int imageHeight, int type) {
+            if (CvType.depth(type) != CvType.CV_8U) {
+                throw new IllegalArgumentException("Tiled png output only supports 8 bit images, but was " + CvType.typeToString(type));
+            }
+            if (mWriter == null) {
+                try {
+                    mWriter = new PngStripWriter(mFile, imageWidth, imageHeight, CvType.channels(type));
+                } catch (IOException e) {
+                    throw new TileWriteException(e);
+                }
+                mRow = new byte[imageWidth * CvType.channels(type)];
+            }
+            return MatPool.getDefault().acquire(height, imageWidth, type);
+        }
+
+        @Override
+        public void endStrip(Mat strip) {
+            try {
+                for (int r = 0; r < strip.rows(); r++) {
+                    strip.get(r, 0, mRow);
+                    mWriter.writeRow(mRow, 0);
+                }
+            } catch (IOException e) {
+                throw new TileWriteException(e);
+            } finally {
+                MatPool.getDefault().release(strip);
+            }
+        }
+
+        @Override
+        public void discardStrip(Mat strip) {
+            MatPool.getDefault().release(strip);
+        }
+
+        void finish() throws IOException {
+            if (mWriter == null) {
+                throw new IOException("Empty image, nothing to write: " + mFile);
+            }
+            mWriter.finish();
+        }
+
+        /**
+         * 处理失败，删除不完整的文件
+         */
+        void abort() {
+            if (mWriter != null) {
+                try {
+                    mWriter.close();
+                } catch (IOException ignore) {
+                    //删除文件即可
+                }
+            }
+            mFile.delete();
+        }
+    }
+
+    /**
+     * 写入条带失败，包装IOException以便穿过并行任务
+     */
+    private static class TileWriteException extends RuntimeException {
+
+        TileWriteException(IOException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized IOException getCause() {
+            return (IOException) super.getCause();
+        }
+    }
+
+    /**
+     * 分块数据源
+     */
+    private interface TileSource {
+
+        int getWidth();
+
+        int getHeight();
+
+        /**
+         * 读取指定区域，返回BGR图片
+         */
+        Mat read(Rect region);
+
+        /**
+         * 回收read返回的Mat
+         */
+        void recycle(Mat tile);
+    }
+
+    /**
+     * 内存中的图片，直接取子矩阵，不拷贝
+     */
+    private static class MatTileSource implements TileSource {
+
+        private final Mat mSrc;
+
+        MatTileSource(Mat src) {
+            mSrc = src;
+        }
+
+        @Override
+        public int getWidth() {
+            return mSrc.cols();
+        }
+
+        @Override
+        public int getHeight() {
+            return mSrc.rows();
+        }
+
+        @Override
+        public Mat read(Rect region) {
+            return mSrc.submat(region);
+        }
+
+        @Override
+        public void recycle(Mat tile) {
+            tile.release();
+        }
+    }
+
+    /**
+     * 图片文件，按区域解码
+     */
+    private static class RegionTileSource implements TileSource {
+
+        private final BitmapRegionDecoder mDecoder;
+
+        RegionTileSource(String imgPath) throws IOException {
+            mDecoder = BitmapRegionDecoder.newInstance(imgPath, false);
+            if (mDecoder == null) {
+                throw new IOException("can't create region decoder:" + imgPath);
+            }
+        }
+
+        @Override
+        public int getWidth() {
+            return mDecoder.getWidth();
+        }
+
+        @Override
+        public int getHeight() {
+            return mDecoder.getHeight();
+        }
+
+        @Override
+        public Mat read(Rect region) {
+            BitmapFactory.Options options = new BitmapFactory.Options();
+            options.inPreferredConfig = Bitmap.Config.ARGB_8888;
+            Bitmap bitmap = mDecoder.decodeRegion(new android.graphics.Rect(region.x, region.y,
+                    region.x + region.width, region.y + region.height), options);
+            if (bitmap == null) {
+                throw new IllegalStateException("can't decode region of image!");
+            }
+            Mat rgba = MatPool.getDefault().acquire(region.height, region.width, CV_8UC4);
+            Utils.bitmapToMat(bitmap, rgba);
+            bitmap.recycle();
+            Mat bgr = MatPool.getDefault().acquire(region.height, region.width, CV_8UC3);
+            Imgproc.cvtColor(rgba, bgr, Imgproc.COLOR_RGBA2BGR);
+            MatPool.getDefault().release(rgba);
+            return bgr;
+        }
+
+        @Override
+        public void recycle(Mat tile) {
+            MatPool.getDefault().release(tile);
+        }
+
+        void close() {
+            mDecoder.recycle();
+        }
+    }
+}
@@ -18,6 +18,7 @@
 package com.xuexiang.imageprocess.fragment;
 
 import com.xuexiang.imageprocess.fragment.opencv.OpenCVBasicFragment;
+import com.xuexiang.imageprocess.fragment.opencv.OpenCVCameraFragment;
 import com.xuexiang.imageprocess.fragment.opencv.OpenCVImgProcFragment;
 import com.xuexiang.xpage.annotation.Page;
 import com.xuexiang.xpage.base.XPageContainerListFragment;
@@ -37,7 +38,8 @@ public class OpenCVFragment extends XPageContainerListFragment {
     protected Class[] getPagesClasses() {
         return new Class[] {
                 OpenCVBasicFragment.class,
-                OpenCVImgProcFragment.class
+                OpenCVImgProcFragment.class,
+                OpenCVCameraFragment.class
         };
     }
 }
@@ -0,0 +1,226 @@
+/*
+ * Copyright (C) 2019 xuexiangjys(xuexiangjys@163.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.xuexiang.imageprocess.fragment.opencv;
+
+import android.view.View;
+import android.widget.TextView;
+
+import com.xuexiang.imageprocess.R;
+import com.xuexiang.imageprocess.core.frame.FramePipeline;
+import com.xuexiang.imageprocess.core.frame.IFrameProcessor;
+import com.xuexiang.imageprocess.core.frame.MatFrameFactory;
+import com.xuexiang.imageprocess.core.pipeline.ImagePipeline;
+import com.xuexiang.imageprocess.core.threshold.AdaptiveThreshold;
+import com.xuexiang.imageprocess.core.threshold.ThresholdSelectors;
+import com.xuexiang.xaop.annotation.Permission;
+import com.xuexiang.xaop.annotation.SingleClick;
+import com.xuexiang.xpage.annotation.Page;
+import com.xuexiang.xpage.base.XPageFragment;
+
+import org.opencv.android.CameraBridgeViewBase;
+import org.opencv.android.JavaCameraView;
+import org.opencv.core.Mat;
+import org.opencv.imgproc.Imgproc;
+
+import java.util.Locale;
+
+import butterknife.BindView;
+import butterknife.OnClick;
+
+import static com.xuexiang.xaop.consts.PermissionConsts.CAMERA;
+
+/**
+ * 相机实时预览处理：相机帧交给FramePipeline在后台处理，处理不及时的旧帧直接丢弃，预览显示最新的处理结果
+ *
+ * @author xuexiang
+ * @since 2026-10-19 00:40
+ */
+@Page(name = "OpenCV 实时预览处理")
+public class OpenCVCameraFragment extends XPageFragment implements CameraBridgeViewBase.CvCameraViewListener2 {
+
+    @BindView(R.id.camera_view)
+    JavaCameraView cameraView;
+    @BindView(R.id.tv_stats)
+    TextView tvStats;
+
+    /**
+     * 帧统计的刷新间隔
+     */
+    private static final long STATS_INTERVAL_MILLIS = 500;
+
+    /**
+     * 当前选择的处理
+     */
+    private volatile ImagePipeline mImagePipeline = ImagePipeline.builder().gray().build();
+    private FramePipeline<Mat> mFramePipeline;
+    /**
+     * 最新的处理结果，处理线程写入，相机线程读取。每次启动都重新创建，由该次启动的处理器持有
+     */
+    private Mat mLatestResult;
+    /**
+     * 处理线程的输出，只用于停止时释放
+     */
+    private Mat mOutput;
+    /**
+     * 返回给相机预览显示的画面
+     */
+    private Mat mDisplay;
+    private long mLastStatsTime;
+
+    @Override
+    protected int getLayoutId() {
+        return R.layout.fragment_opencv_camera;
+    }
+
+    @Override
+    protected void initViews() {
+        cameraView.setCvCameraViewListener(this);
+    }
+
+    @Override
+    protected void initListeners() {
+
+    }
+
+    @SingleClick
+    @OnClick({R.id.btn_cvtcolor, R.id.btn_threshold, R.id.btn_threshold_red, R.id.btn_threshold_blue, R.id.btn_threshold_colour})
+    public void onViewClicked(View view) {
+        switch (view.getId()) {
+            case R.id.btn_cvtcolor:
+                mImagePipeline = ImagePipeline.builder().gray().build();
+                break;
+            case R.id.btn_threshold:
+                mImagePipeline = ImagePipeline.builder().adaptiveBinary(AdaptiveThreshold.sauvola()).build();
+                break;
+            case R.id.btn_threshold_red:
+                mImagePipeline = ImagePipeline.builder().clearRed(ThresholdSelectors.otsu()).build();
+                break;
+            case R.id.btn_threshold_blue:
+                mImagePipeline = ImagePipeline.builder().clearBlue(ThresholdSelectors.otsu()).build();
+                break;
+            case R.id.btn_threshold_colour:
+                mImagePipeline = ImagePipeline.builder().clearColour(125).build();
+                break;
+            default:
+                break;
+        }
+    }
+
+    @Override
+    public void onResume() {
+        super.onResume();
+        enableCamera();
+    }
+
+    @Permission(CAMERA)
+    private void enableCamera() {
+        if (cameraView != null) {
+            cameraView.enableView();
+        }
+    }
+
+    @Override
+    public void onPause() {
+        if (cameraView != null) {
+            cameraView.disableView();
+        }
+        super.onPause();
+    }
+
+    @Override
+    public void onCameraViewStarted(int width, int height) {
+        //处理器只使用本次启动创建的Mat，不读取字段，重新启动后也不会与上一次的处理线程共用
+        final Mat output = new Mat();
+        final Mat latestResult = new Mat();
+        mOutput = output;
+        mLatestResult = latestResult;
+        mDisplay = new Mat();
+        mFramePipeline = new FramePipeline<>(new MatFrameFactory(), new IFrameProcessor<Mat>() {
+            @Override
+            public void process(Mat frame) {
+                mImagePipeline.process(frame, output);
+                synchronized (latestResult) {
+                    output.copyTo(latestResult);
+                }
+            }
+        });
+        mFramePipeline.start();
+    }
+
+    @Override
+    public void onCameraViewStopped() {
+        if (mFramePipeline != null) {
+            //stop会等待处理线程结束，之后才能释放处理器使用的Mat
+            mFramePipeline.stop();
+            mFramePipeline = null;
+        }
+        if (mOutput != null) {
+            mOutput.release();
+            mOutput = null;
+        }
+        if (mLatestResult != null) {
+            mLatestResult.release();
+            mLatestResult = null;
+        }
+        if (mDisplay != null) {
+            mDisplay.release();
+            mDisplay = null;
+        }
+    }
+
+    @Override
+    public Mat onCameraFrame(CameraBridgeViewBase.CvCameraViewFrame inputFrame) {
+        Mat rgba = inputFrame.rgba();
+        Mat frame = mFramePipeline.obtainFrame();
+        if (frame != null) {
+            //处理流水线的输入为BGR
+            Imgproc.cvtColor(rgba, frame, Imgproc.COLOR_RGBA2BGR);
+            mFramePipeline.submitFrame(frame);
+        }
+        synchronized (mLatestResult) {
+            if (mLatestResult.empty()) {
+                rgba.copyTo(mDisplay);
+            } else {
+                mLatestResult.copyTo(mDisplay);
+            }
+        }
+        updateStats();
+        return mDisplay;
+    }
+
+    /**
+     * 刷新帧率和丢帧统计
+     */
+    private void updateStats() {
+        long now = System.currentTimeMillis();
+        if (now - mLastStatsTime < STATS_INTERVAL_MILLIS) {
+            return;
+        }
+        mLastStatsTime = now;
+        final String stats = String.format(Locale.US, "%s  fps: %.1f  received: %d  dropped: %d",
+                mImagePipeline.getName(), mFramePipeline.getFps(), mFramePipeline.getReceivedCount(), mFramePipeline.getDroppedCount());
+        tvStats.post(new Runnable() {
+            @Override
+            public void run() {
+                if (tvStats != null) {
+                    tvStats.setText(stats);
+                }
+            }
+        });
+    }
+}
@@ -18,12 +18,21 @@
 package com.xuexiang.imageprocess.fragment.opencv;
 
 import android.content.Intent;
+import android.graphics.Bitmap;
 import android.net.Uri;
 import android.support.v7.widget.AppCompatImageView;
 import android.view.View;
+import android.widget.CheckBox;
 
+import com.xuexiang.imageprocess.BuildConfig;
 import com.xuexiang.imageprocess.R;
-import com.xuexiang.imageprocess.utils.ImageProcessUtils;
+import com.xuexiang.imageprocess.core.executor.MainThreadExecutor;
+import com.xuexiang.imageprocess.core.executor.ProcessScheduler;
+import com.xuexiang.imageprocess.core.metrics.ProcessMetrics;
+import com.xuexiang.imageprocess.core.pipeline.ImagePipeline;
+import com.xuexiang.imageprocess.core.progressive.ProgressiveProcessor;
+import com.xuexiang.imageprocess.core.threshold.AdaptiveThreshold;
+import com.xuexiang.imageprocess.core.threshold.ThresholdSelectors;
 import com.xuexiang.xaop.annotation.Permission;
 import com.xuexiang.xaop.annotation.SingleClick;
 import com.xuexiang.xpage.annotation.Page;
@@ -31,7 +40,7 @@ import com.xuexiang.xpage.base.XPageFragment;
 import com.xuexiang.xutil.app.IntentUtils;
 import com.xuexiang.xutil.app.PathUtils;
 import com.xuexiang.xutil.common.StringUtils;
-import com.xuexiang.xutil.display.ImageUtils;
+import com.xuexiang.xutil.common.logger.Logger;
 import com.xuexiang.xutil.system.CameraUtils;
 import com.xuexiang.xutil.tip.ToastUtils;
 
@@ -53,6 +62,14 @@ import static com.xuexiang.xutil.system.CameraUtils.REQUEST_CAMERA;
 public class OpenCVImgProcFragment extends XPageFragment {
     @BindView(R.id.iv_content)
     AppCompatImageView ivContent;
+    @BindView(R.id.cb_auto_threshold)
+    CheckBox cbAutoThreshold;
+    @BindView(R.id.cb_deskew)
+    CheckBox cbDeskew;
+    @BindView(R.id.cb_adaptive)
+    CheckBox cbAdaptive;
+    @BindView(R.id.cb_close)
+    CheckBox cbClose;
 
     private String mImagePath;
     /**
@@ -63,6 +80,18 @@ public class OpenCVImgProcFragment extends XPageFragment {
      * 选择系统图片Request Code
      */
     public static final int REQUEST_IMAGE = 112;
+    /**
+     * 图片处理任务的key，新的处理会顶替掉还未完成的旧处理
+     */
+    private static final String KEY_IMAGE_PROCESS = "image_process";
+    /**
+     * 图片处理调度器，保证图片处理不在主线程执行
+     */
+    private ProcessScheduler mScheduler;
+    /**
+     * 先预览再精细处理
+     */
+    private ProgressiveProcessor mProgressiveProcessor;
 
     /**
      * 布局的资源id
@@ -79,7 +108,8 @@ public class OpenCVImgProcFragment extends XPageFragment {
      */
     @Override
     protected void initViews() {
-
+        mScheduler = new ProcessScheduler(new MainThreadExecutor());
+        mProgressiveProcessor = new ProgressiveProcessor(mScheduler, KEY_IMAGE_PROCESS);
     }
 
     /**
@@ -130,57 +160,94 @@ public class OpenCVImgProcFragment extends XPageFragment {
      * 灰度化
      */
     private void grayScale() {
-        if (StringUtils.isEmpty(mImagePath)) {
-            ToastUtils.toast("请先选择图片！");
-            return;
-        }
-
-        ivContent.setImageBitmap(ImageProcessUtils.grayScale(ImageUtils.getBitmap(mImagePath)));
+        process(ImagePipeline.builder().gray().build());
     }
 
     /**
      * 二值化
      */
     private void threshold() {
-        if (StringUtils.isEmpty(mImagePath)) {
-            ToastUtils.toast("请先选择图片！");
-            return;
+        ImagePipeline.Builder builder = ImagePipeline.builder();
+        if (cbDeskew.isChecked()) {
+            //拍照的图片往往有倾斜，先校正倾斜
+            builder.deskew();
         }
-
-        ivContent.setImageBitmap(ImageProcessUtils.binary(mImagePath, 125));
+        if (cbAdaptive.isChecked()) {
+            //光照不均匀时使用局部自适应二值化
+            builder.adaptiveBinary(AdaptiveThreshold.sauvola());
+        } else if (cbAutoThreshold.isChecked()) {
+            builder.binary(ThresholdSelectors.otsu());
+        } else {
+            builder.binary(125);
+        }
+        if (cbClose.isChecked()) {
+            //闭运算去除细小的黑色噪点
+            builder.close(3);
+        }
+        process(builder.build());
     }
 
     /**
      * 去红
      */
     private void clearRed() {
-        if (StringUtils.isEmpty(mImagePath)) {
-            ToastUtils.toast("请先选择图片！");
-            return;
+        if (cbAutoThreshold.isChecked()) {
+            process(ImagePipeline.builder().clearRed(ThresholdSelectors.otsu()).build());
+        } else {
+            process(ImagePipeline.builder().clearRed(125).build());
         }
-
-        ivContent.setImageBitmap(ImageProcessUtils.clearRed(mImagePath, 125));
     }
 
     /**
      * 去蓝
      */
     private void clearBlue() {
-        if (StringUtils.isEmpty(mImagePath)) {
-            ToastUtils.toast("请先选择图片！");
-            return;
+        if (cbAutoThreshold.isChecked()) {
+            process(ImagePipeline.builder().clearBlue(ThresholdSelectors.otsu()).build());
+        } else {
+            process(ImagePipeline.builder().clearBlue(125).build());
         }
-
-        ivContent.setImageBitmap(ImageProcessUtils.clearBlue(mImagePath, 125));
     }
 
+    /**
+     * 去彩色
+     */
     private void clearColour() {
+        process(ImagePipeline.builder().clearColour(125).build());
+    }
+
+    /**
+     * 渐进式处理：先显示低分辨率的预览，再替换为目标尺寸的结果。相同图片和参数的处理结果直接从缓存获取
+     *
+     * @param pipeline 处理流水线
+     */
+    private void process(final ImagePipeline pipeline) {
         if (StringUtils.isEmpty(mImagePath)) {
             ToastUtils.toast("请先选择图片！");
             return;
         }
 
-//        ivContent.setImageBitmap(ImageProcessUtils.clearColour(mImagePath, 125));
+        mProgressiveProcessor.process(mImagePath, ivContent.getWidth(), ivContent.getHeight(), pipeline, new ProgressiveProcessor.OnProgressiveListener() {
+            @Override
+            public void onPreview(Bitmap preview) {
+                if (ivContent != null) {
+                    ivContent.setImageBitmap(preview);
+                }
+            }
+
+            @Override
+            public void onRefined(Bitmap result) {
+                if (ivContent != null) {
+                    ivContent.setImageBitmap(result);
+                }
+            }
+
+            @Override
+            public void onFailed(Throwable e) {
+                Logger.e(e);
+                ToastUtils.toast("图片处理失败:" + e.getMessage());
+            }
+        });
     }
 
     @Permission(STORAGE)
@@ -206,6 +273,8 @@ public class OpenCVImgProcFragment extends XPageFragment {
         super.onActivityResult(requestCode, resultCode, data);
         //选择系统图片并解析
         if (resultCode == RESULT_OK) {
+            //图片已更换，之前的处理结果不再需要
+            mProgressiveProcessor.cancel();
             switch (requestCode) {
                 case REQUEST_IMAGE:
                     if (data != null) {
@@ -224,4 +293,15 @@ public class OpenCVImgProcFragment extends XPageFragment {
         }
     }
 
+    @Override
+    public void onDestroyView() {
+        if (mScheduler != null) {
+            mScheduler.shutdown();
+        }
+        if (BuildConfig.DEBUG) {
+            ProcessMetrics.getDefault().dumpToLogger();
+        }
+        super.onDestroyView();
+    }
+
 }
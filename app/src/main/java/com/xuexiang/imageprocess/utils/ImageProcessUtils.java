@@ -20,19 +20,31 @@ package com.xuexiang.imageprocess.utils;
 import android.graphics.Bitmap;
 import android.support.annotation.Nullable;
 
+import com.xuexiang.imageprocess.core.backend.OpenCVImageBackend;
+import com.xuexiang.imageprocess.core.binary.BitImage;
+import com.xuexiang.imageprocess.core.cache.DecodedImageCache;
+import com.xuexiang.imageprocess.core.component.ComponentStats;
+import com.xuexiang.imageprocess.core.component.ConnectedComponents;
+import com.xuexiang.imageprocess.core.convert.OutputFormat;
+import com.xuexiang.imageprocess.core.decode.DecodedSize;
+import com.xuexiang.imageprocess.core.decode.ImageDecoder;
+import com.xuexiang.imageprocess.core.deskew.Deskew;
+import com.xuexiang.imageprocess.core.memory.NativeMemoryGovernor;
+import com.xuexiang.imageprocess.core.metrics.ProcessMetrics;
+import com.xuexiang.imageprocess.core.morphology.Morphology;
+import com.xuexiang.imageprocess.core.pool.MatPool;
+import com.xuexiang.imageprocess.core.threshold.AdaptiveThreshold;
+import com.xuexiang.imageprocess.core.threshold.IThresholdSelector;
+import com.xuexiang.imageprocess.core.threshold.ThresholdSelectors;
 import com.xuexiang.xutil.file.FileUtils;
 
 import org.opencv.android.Utils;
-import org.opencv.core.Core;
 import org.opencv.core.Mat;
-import org.opencv.imgcodecs.Imgcodecs;
-import org.opencv.imgproc.Imgproc;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.nio.ByteBuffer;
 
-import static org.opencv.imgproc.Imgproc.COLOR_BGR2GRAY;
-import static org.opencv.imgproc.Imgproc.THRESH_BINARY;
+import static org.opencv.core.CvType.CV_8UC1;
+import static org.opencv.core.CvType.CV_8UC4;
 
 /**
  * 图片处理工具类
@@ -42,29 +54,55 @@ import static org.opencv.imgproc.Imgproc.THRESH_BINARY;
  */
 public final class ImageProcessUtils {
 
+    /**
+     * 基础方法的实现
+     */
+    private static final OpenCVImageBackend BACKEND = new OpenCVImageBackend();
+
     private ImageProcessUtils() {
         throw new UnsupportedOperationException("u can't instantiate me...");
     }
 
 
     /**
-     * 图片灰度化
+     * 图片灰度化（原图尺寸，用于最终导出）
      *
      * @param imgPath
      * @return
      */
     @Nullable
     public static Bitmap grayScale(String imgPath) {
+        return grayScale(imgPath, ImageDecoder.ORIGINAL_SIZE, ImageDecoder.ORIGINAL_SIZE);
+    }
+
+    /**
+     * 图片灰度化，按目标尺寸降采样解码后再处理（用于预览）
+     *
+     * @param imgPath
+     * @param reqWidth  目标宽度，不大于0时按原图处理
+     * @param reqHeight 目标高度，不大于0时按原图处理
+     * @return
+     */
+    @Nullable
+    public static Bitmap grayScale(String imgPath, int reqWidth, int reqHeight) {
         if (!FileUtils.isFileExists(imgPath)) {
             return null;
         }
-        Mat src = Imgcodecs.imread(imgPath);
-        //灰度化
-        Mat dst = grayScale(src);
-        Bitmap result = mat2Bitmap(dst);
-        src.release();
-        dst.release();
-        return result;
+        DecodedSize size = ImageDecoder.getDecodedSize(imgPath, reqWidth, reqHeight);
+        long nativeBytes = admit(size);
+        Mat src = null;
+        Mat dst = null;
+        try {
+            src = DecodedImageCache.getDefault().acquireReduced(imgPath, size.getReduceFactor());
+            //灰度化
+            dst = MatPool.getDefault().acquire(src, CV_8UC1);
+            grayScale(src, dst);
+            return mat2Bitmap(dst);
+        } finally {
+            DecodedImageCache.getDefault().release(src);
+            MatPool.getDefault().release(dst);
+            NativeMemoryGovernor.getDefault().release(nativeBytes);
+        }
     }
 
     /**
@@ -78,33 +116,63 @@ public final class ImageProcessUtils {
         if (srcBitmap == null) {
             return null;
         }
-        Mat src = bitmap2Mat(srcBitmap);
-        //灰度化
-        Mat dst = grayScale(src);
-        Bitmap result = mat2Bitmap(dst);
-        src.release();
-        dst.release();
-        return result;
+        long nativeBytes = admit(srcBitmap);
+        Mat src = null;
+        Mat dst = null;
+        try {
+            src = bitmap2PooledMat(srcBitmap);
+            //灰度化
+            dst = MatPool.getDefault().acquire(src, CV_8UC1);
+            grayScale(src, dst);
+            return mat2Bitmap(dst);
+        } finally {
+            MatPool.getDefault().release(src);
+            MatPool.getDefault().release(dst);
+            NativeMemoryGovernor.getDefault().release(nativeBytes);
+        }
     }
 
     /**
-     * 图片二值化
+     * 图片二值化（原图尺寸，用于最终导出）
      *
      * @param imgPath
+     * @param thresh 阈值
      * @return
      */
     @Nullable
     public static Bitmap binary(String imgPath, double thresh) {
+        return binary(imgPath, thresh, ImageDecoder.ORIGINAL_SIZE, ImageDecoder.ORIGINAL_SIZE);
+    }
+
+    /**
+     * 图片二值化，按目标尺寸降采样解码后再处理（用于预览）
+     *
+     * @param imgPath
+     * @param thresh    阈值
+     * @param reqWidth  目标宽度，不大于0时按原图处理
+     * @param reqHeight 目标高度，不大于0时按原图处理
+     * @return
+     */
+    @Nullable
+    public static Bitmap binary(String imgPath, double thresh, int reqWidth, int reqHeight) {
         if (!FileUtils.isFileExists(imgPath)) {
             return null;
         }
-        Mat src = Imgcodecs.imread(imgPath);
-        //二值化
-        Mat dst = binary(src, thresh);
-        Bitmap result = mat2Bitmap(dst);
-        src.release();
-        dst.release();
-        return result;
+        DecodedSize size = ImageDecoder.getDecodedSize(imgPath, reqWidth, reqHeight);
+        long nativeBytes = admit(size);
+        Mat src = null;
+        Mat dst = null;
+        try {
+            src = DecodedImageCache.getDefault().acquireReduced(imgPath, size.getReduceFactor());
+            //二值化
+            dst = MatPool.getDefault().acquire(src, CV_8UC1);
+            binary(src, dst, thresh, DEFAULT_THRESH_MAX_VALUE);
+            return mat2Bitmap(dst);
+        } finally {
+            DecodedImageCache.getDefault().release(src);
+            MatPool.getDefault().release(dst);
+            NativeMemoryGovernor.getDefault().release(nativeBytes);
+        }
     }
 
     /**
@@ -118,34 +186,64 @@ public final class ImageProcessUtils {
         if (srcBitmap == null) {
             return null;
         }
-        Mat src = bitmap2Mat(srcBitmap);
-        //二值化
-        Mat dst = binary(src, thresh);
-        Bitmap result = mat2Bitmap(dst);
-        src.release();
-        dst.release();
-        return result;
+        long nativeBytes = admit(srcBitmap);
+        Mat src = null;
+        Mat dst = null;
+        try {
+            src = bitmap2PooledMat(srcBitmap);
+            //二值化
+            dst = MatPool.getDefault().acquire(src, CV_8UC1);
+            binary(src, dst, thresh, DEFAULT_THRESH_MAX_VALUE);
+            return mat2Bitmap(dst);
+        } finally {
+            MatPool.getDefault().release(src);
+            MatPool.getDefault().release(dst);
+            NativeMemoryGovernor.getDefault().release(nativeBytes);
+        }
     }
 
 
     /**
-     * 去红
+     * 去红（原图尺寸，用于最终导出）
      *
      * @param imgPath
+     * @param thresh 阈值
      * @return
      */
     @Nullable
     public static Bitmap clearRed(String imgPath, double thresh) {
+        return clearRed(imgPath, thresh, ImageDecoder.ORIGINAL_SIZE, ImageDecoder.ORIGINAL_SIZE);
+    }
+
+    /**
+     * 去红，按目标尺寸降采样解码后再处理（用于预览）
+     *
+     * @param imgPath
+     * @param thresh    阈值
+     * @param reqWidth  目标宽度，不大于0时按原图处理
+     * @param reqHeight 目标高度，不大于0时按原图处理
+     * @return
+     */
+    @Nullable
+    public static Bitmap clearRed(String imgPath, double thresh, int reqWidth, int reqHeight) {
         if (!FileUtils.isFileExists(imgPath)) {
             return null;
         }
-        Mat src = Imgcodecs.imread(imgPath);
-        //去红
-        Mat dst = clearRed(src, thresh);
-        Bitmap result = mat2Bitmap(dst);
-        src.release();
-        dst.release();
-        return result;
+        DecodedSize size = ImageDecoder.getDecodedSize(imgPath, reqWidth, reqHeight);
+        long nativeBytes = admit(size);
+        Mat src = null;
+        Mat dst = null;
+        try {
+            src = DecodedImageCache.getDefault().acquireReduced(imgPath, size.getReduceFactor());
+            //去红
+            dst = MatPool.getDefault().acquire(src, CV_8UC1);
+            clearColor(src, dst, RED_CHANNEL_INDEX, thresh, DEFAULT_THRESH_MAX_VALUE);
+            return mat2Bitmap(dst);
+        } finally {
+            DecodedImageCache.getDefault().release(src);
+            MatPool.getDefault().release(dst);
+            NativeMemoryGovernor.getDefault().release(nativeBytes);
+        }
     }
 
     /**
@@ -159,40 +257,107 @@ public final class ImageProcessUtils {
         if (srcBitmap == null) {
             return null;
         }
-        Mat src = bitmap2Mat(srcBitmap);
-        //去红
-        Mat dst = clearRed(src, thresh);
-        Bitmap result = mat2Bitmap(dst);
-        src.release();
-        dst.release();
-        return result;
+        long nativeBytes = admit(srcBitmap);
+        Mat src = null;
+        Mat dst = null;
+        try {
+            src = bitmap2PooledMat(srcBitmap);
+            //去红
+            dst = MatPool.getDefault().acquire(src, CV_8UC1);
+            clearColor(src, dst, RED_CHANNEL_INDEX, thresh, DEFAULT_THRESH_MAX_VALUE);
+            return mat2Bitmap(dst);
+        } finally {
+            MatPool.getDefault().release(src);
+            MatPool.getDefault().release(dst);
+            NativeMemoryGovernor.getDefault().release(nativeBytes);
+        }
     }
 
+    /**
+     * 去蓝（原图尺寸，用于最终导出）
+     *
+     * @param imgPath
+     * @param thresh 阈值
+     * @return
+     */
+    @Nullable
     public static Bitmap clearBlue(String imgPath, int thresh) {
+        return clearBlue(imgPath, thresh, ImageDecoder.ORIGINAL_SIZE, ImageDecoder.ORIGINAL_SIZE);
+    }
+
+    /**
+     * 去蓝，按目标尺寸降采样解码后再处理（用于预览）
+     *
+     * @param imgPath
+     * @param thresh    阈值
+     * @param reqWidth  目标宽度，不大于0时按原图处理
+     * @param reqHeight 目标高度，不大于0时按原图处理
+     * @return
+     */
+    @Nullable
+    public static Bitmap clearBlue(String imgPath, int thresh, int reqWidth, int reqHeight) {
         if (!FileUtils.isFileExists(imgPath)) {
             return null;
         }
-        Mat src = Imgcodecs.imread(imgPath);
-        //去蓝
-        Mat dst = clearBlue(src, thresh);
-        Bitmap result = mat2Bitmap(dst);
-        src.release();
-        dst.release();
-        return result;
+        DecodedSize size = ImageDecoder.getDecodedSize(imgPath, reqWidth, reqHeight);
+        long nativeBytes = admit(size);
+        Mat src = null;
+        Mat dst = null;
+        try {
+            src = DecodedImageCache.getDefault().acquireReduced(imgPath, size.getReduceFactor());
+            //去蓝
+            dst = MatPool.getDefault().acquire(src, CV_8UC1);
+            clearColor(src, dst, BLUE_CHANNEL_INDEX, thresh, DEFAULT_THRESH_MAX_VALUE);
+            return mat2Bitmap(dst);
+        } finally {
+            DecodedImageCache.getDefault().release(src);
+            MatPool.getDefault().release(dst);
+            NativeMemoryGovernor.getDefault().release(nativeBytes);
+        }
     }
 
 
+    /**
+     * 去彩色（原图尺寸，用于最终导出）
+     *
+     * @param imgPath
+     * @param thresh 阈值
+     * @return
+     */
+    @Nullable
     public static Bitmap clearColour(String imgPath, int thresh) {
+        return clearColour(imgPath, thresh, ImageDecoder.ORIGINAL_SIZE, ImageDecoder.ORIGINAL_SIZE);
+    }
+
+    /**
+     * 去彩色，按目标尺寸降采样解码后再处理（用于预览）
+     *
+     * @param imgPath
+     * @param thresh    阈值
+     * @param reqWidth  目标宽度，不大于0时按原图处理
+     * @param reqHeight 目标高度，不大于0时按原图处理
+     * @return
+     */
+    @Nullable
+    public static Bitmap clearColour(String imgPath, int thresh, int reqWidth, int reqHeight) {
         if (!FileUtils.isFileExists(imgPath)) {
             return null;
         }
-        Mat src = Imgcodecs.imread(imgPath);
-        //去彩色
-        Mat dst = clearColour(src, thresh);
-        Bitmap result = mat2Bitmap(dst);
-        src.release();
-        dst.release();
-        return result;
+        DecodedSize size = ImageDecoder.getDecodedSize(imgPath, reqWidth, reqHeight);
+        long nativeBytes = admit(size);
+        Mat src = null;
+        Mat dst = null;
+        try {
+            src = DecodedImageCache.getDefault().acquireReduced(imgPath, size.getReduceFactor());
+            //去彩色
+            dst = MatPool.getDefault().acquire(src, CV_8UC1);
+            clearColour(src, dst, thresh, DEFAULT_COLOUR_SPREAD, DEFAULT_THRESH_MAX_VALUE);
+            return mat2Bitmap(dst);
+        } finally {
+            DecodedImageCache.getDefault().release(src);
+            MatPool.getDefault().release(dst);
+            NativeMemoryGovernor.getDefault().release(nativeBytes);
+        }
     }
 
     //====================================基础方法===============================================//
@@ -201,6 +366,10 @@ public final class ImageProcessUtils {
      * 默认二值化最大阈值
      */
     public static final int DEFAULT_THRESH_MAX_VALUE = 255;
+    /**
+     * 默认的去彩色色彩阈值，通道间差值大于该值即视为彩色
+     */
+    public static final int DEFAULT_COLOUR_SPREAD = 48;
     /**
      * 蓝色通道
      */
@@ -271,17 +440,26 @@ public final class ImageProcessUtils {
         if (src == null) {
             return null;
         }
-
-        //获取指定通道颜色
-        List<Mat> channel = new ArrayList<>();
-        Core.split(src, channel);
-        Mat color = channel.get(channelIndex);
-
         Mat dst = new Mat();
-        Imgproc.threshold(color, dst, thresh, maxval, THRESH_BINARY);
+        clearColor(src, dst, channelIndex, thresh, maxval);
         return dst;
     }
 
+    /**
+     * 去除指定通道上的颜色，结果写入dst
+     *
+     * @param src
+     * @param dst          输出，可复用
+     * @param channelIndex 颜色通道：0-蓝色，1-绿色，2-红色
+     * @param thresh       阈值
+     * @param maxval       最大阈值， 一般为255
+     */
+    public static void clearColor(Mat src, Mat dst, int channelIndex, double thresh, double maxval) {
+        long begin = ProcessMetrics.getDefault().begin();
+        BACKEND.clearColor(src, dst, channelIndex, thresh, maxval);
+        ProcessMetrics.getDefault().end("clearColor", begin);
+    }
+
 
     /**
      * 去除彩色
@@ -304,12 +482,29 @@ public final class ImageProcessUtils {
         if (src == null) {
             return null;
         }
-
         Mat dst = new Mat();
-
+        clearColour(src, dst, thresh, DEFAULT_COLOUR_SPREAD, maxval);
         return dst;
     }
 
+    /**
+     * 去除彩色，只保留黑色笔迹，结果写入dst。
+     * <p>
+     * 单次遍历像素，最亮通道大于thresh或通道间差值大于spread的像素视为背景，
+     * 按行带并行处理，每个线程只使用一个行带大小的临时缓冲。
+     *
+     * @param src    BGR/BGRA图片
+     * @param dst    输出，可复用
+     * @param thresh 亮度阈值
+     * @param spread 色彩阈值，通道间差值大于该值即视为彩色
+     * @param maxval 最大阈值， 一般为255
+     */
+    public static void clearColour(Mat src, Mat dst, double thresh, double spread, double maxval) {
+        long begin = ProcessMetrics.getDefault().begin();
+        BACKEND.clearColour(src, dst, thresh, spread, maxval);
+        ProcessMetrics.getDefault().end("clearColour", begin);
+    }
+
     /**
      * 二值化
      *
@@ -333,16 +528,39 @@ public final class ImageProcessUtils {
         if (src == null) {
             return null;
         }
-
-        Mat imgGray = new Mat();
         Mat dst = new Mat();
-        //先灰度化
-        Imgproc.cvtColor(src, imgGray, COLOR_BGR2GRAY);
-        //再二值化
-        Imgproc.threshold(imgGray, dst, thresh, maxval, THRESH_BINARY);
+        binary(src, dst, thresh, maxval);
         return dst;
     }
 
+    /**
+     * 二值化，结果写入dst
+     *
+     * @param src
+     * @param dst    输出，可复用
+     * @param thresh 阈值
+     * @param maxval 最大阈值， 一般为255
+     */
+    public static void binary(Mat src, Mat dst, double thresh, double maxval) {
+        long begin = ProcessMetrics.getDefault().begin();
+        BACKEND.binary(src, dst, thresh, maxval);
+        ProcessMetrics.getDefault().end("binary", begin);
+    }
+
+    /**
+     * 对单通道图片进行阈值处理，支持原地处理(src == dst)
+     *
+     * @param src    单通道图片
+     * @param dst    输出，可复用
+     * @param thresh 阈值
+     * @param maxval 最大阈值， 一般为255
+     */
+    public static void threshold(Mat src, Mat dst, double thresh, double maxval) {
+        long begin = ProcessMetrics.getDefault().begin();
+        BACKEND.threshold(src, dst, thresh, maxval);
+        ProcessMetrics.getDefault().end("threshold", begin);
+    }
+
 
     /**
      * 灰度化
@@ -355,10 +573,104 @@ public final class ImageProcessUtils {
             return null;
         }
         Mat dst = new Mat();
-        Imgproc.cvtColor(src, dst, COLOR_BGR2GRAY);
+        grayScale(src, dst);
         return dst;
     }
 
+    /**
+     * 灰度化，结果写入dst。已经是单通道的图片直接拷贝
+     *
+     * @param src
+     * @param dst 输出，可复用
+     */
+    public static void grayScale(Mat src, Mat dst) {
+        long begin = ProcessMetrics.getDefault().begin();
+        BACKEND.grayScale(src, dst);
+        ProcessMetrics.getDefault().end("grayScale", begin);
+    }
+
+    /**
+     * 局部自适应二值化，适合光照不均匀的拍照文档。不支持原地处理
+     *
+     * @param src       图片，多通道时先灰度化
+     * @param dst       输出，可复用
+     * @param threshold 自适应阈值的参数，见{@link AdaptiveThreshold#sauvola()}
+     */
+    public static void adaptiveBinary(Mat src, Mat dst, AdaptiveThreshold threshold) {
+        long begin = ProcessMetrics.getDefault().begin();
+        if (src.channels() == 1) {
+            threshold.process(src, dst);
+        } else {
+            Mat gray = MatPool.getDefault().acquire(src, CV_8UC1);
+            grayScale(src, gray);
+            threshold.process(gray, dst);
+            MatPool.getDefault().release(gray);
+        }
+        ProcessMetrics.getDefault().end("adaptiveBinary", begin);
+    }
+
+    /**
+     * 形态学处理（腐蚀、膨胀、开运算、闭运算），耗时与结构元素的大小无关。不支持原地处理
+     *
+     * @param src        单通道图片（一般为二值图）
+     * @param dst        输出，可复用
+     * @param morphology 形态学处理的参数
+     */
+    public static void morphology(Mat src, Mat dst, Morphology morphology) {
+        long begin = ProcessMetrics.getDefault().begin();
+        morphology.process(src, dst);
+        ProcessMetrics.getDefault().end("morphology", begin);
+    }
+
+    /**
+     * 倾斜校正：在缩小的二值图上估计角度，再对原图旋转一次
+     *
+     * @param src    单通道或三通道（BGR）图片
+     * @param dst    输出，尺寸与src相同
+     * @param deskew 倾斜校正的参数
+     */
+    public static void deskew(Mat src, Mat dst, Deskew deskew) {
+        long begin = ProcessMetrics.getDefault().begin();
+        deskew.process(src, dst);
+        ProcessMetrics.getDefault().end("deskew", begin);
+    }
+
+    /**
+     * 统计二值图中笔迹（像素值为0）的连通域，如印章、签名、字符等
+     *
+     * @param mask 单通道二值图，一般为{@link #binary(Mat, double)}或{@link #clearRed(Mat, double)}的结果
+     * @return 各连通域的面积、外接矩形和质心
+     */
+    public static ComponentStats connectedComponents(Mat mask) {
+        return connectedComponents(mask, new ConnectedComponents());
+    }
+
+    /**
+     * 统计二值图中笔迹（像素值为0）的连通域
+     *
+     * @param mask       单通道二值图
+     * @param components 连通域标记的参数
+     * @return 各连通域的面积、外接矩形和质心
+     */
+    public static ComponentStats connectedComponents(Mat mask, ConnectedComponents components) {
+        long begin = ProcessMetrics.getDefault().begin();
+        ComponentStats stats = components.label(mask);
+        ProcessMetrics.getDefault().end("components", begin);
+        return stats;
+    }
+
+    /**
+     * 自动计算阈值。src为解码缓存中的图片时直方图会被缓存，同一图片的多个通道、多次计算只统计一次
+     *
+     * @param src          图片
+     * @param channelIndex 统计的通道，单通道图片为0
+     * @param selector     阈值选择器，见{@link ThresholdSelectors}
+     * @return 阈值
+     */
+    public static int autoThreshold(Mat src, int channelIndex, IThresholdSelector selector) {
+        return DecodedImageCache.getDefault().getHistogram(src).select(channelIndex, selector);
+    }
+
     /**
      * bitmap转Mat
      *
@@ -367,7 +679,84 @@ public final class ImageProcessUtils {
      */
     public static Mat bitmap2Mat(Bitmap src) {
         Mat mat = new Mat();
-        Utils.bitmapToMat(src, mat);
+        bitmap2Mat(src, mat);
+        return mat;
+    }
+
+    /**
+     * bitmap转Mat，结果写入dst。dst已是同尺寸的CV_8UC4时直接复用其内存，不再分配
+     *
+     * @param src
+     * @param dst 输出，可复用
+     */
+    public static void bitmap2Mat(Bitmap src, Mat dst) {
+        long begin = ProcessMetrics.getDefault().begin();
+        Utils.bitmapToMat(src, dst);
+        ProcessMetrics.getDefault().end(ProcessMetrics.STAGE_BITMAP_TO_MAT, begin);
+    }
+
+    /**
+     * 估计处理图片需要的native内存
+     *
+     * @param imgPath    图片路径
+     * @param reqWidth   目标宽度，不大于0时按原图处理
+     * @param reqHeight  目标高度，不大于0时按原图处理
+     * @param stageCount 处理阶段数
+     * @return 字节数
+     */
+    public static long estimateNativeBytes(String imgPath, int reqWidth, int reqHeight, int stageCount) {
+        return estimateNativeBytes(ImageDecoder.getDecodedSize(imgPath, reqWidth, reqHeight), stageCount);
+    }
+
+    /**
+     * 估计处理图片需要的native内存
+     *
+     * @param size       解码尺寸，见{@link ImageDecoder#getDecodedSize(String, int, int)}
+     * @param stageCount 处理阶段数
+     * @return 字节数
+     */
+    public static long estimateNativeBytes(DecodedSize size, int stageCount) {
+        //解码结果为BGR三通道
+        return NativeMemoryGovernor.estimate(size.getWidth(), size.getHeight(), 3, stageCount);
+    }
+
+    /**
+     * 估计处理bitmap需要的native内存
+     *
+     * @param src        图片
+     * @param stageCount 处理阶段数
+     * @return 字节数
+     */
+    public static long estimateNativeBytes(Bitmap src, int stageCount) {
+        //转换为RGBA四通道的Mat
+        return NativeMemoryGovernor.estimate(src.getWidth(), src.getHeight(), 4, stageCount);
+    }
+
+    /**
+     * 申请单个处理方法所需的native内存，超出预算时等待，用完需调用{@link NativeMemoryGovernor#release(long)}。
+     * size同时用于解码缓存的key（{@link DecodedImageCache#acquireReduced(String, int)}），每次处理只读取一次文件头
+     */
+    private static long admit(DecodedSize size) {
+        long nativeBytes = estimateNativeBytes(size, 1);
+        NativeMemoryGovernor.getDefault().acquire(nativeBytes);
+        return nativeBytes;
+    }
+
+    private static long admit(Bitmap src) {
+        long nativeBytes = estimateNativeBytes(src, 1);
+        NativeMemoryGovernor.getDefault().acquire(nativeBytes);
+        return nativeBytes;
+    }
+
+    /**
+     * bitmap转Mat，Mat从缓冲池中获取，用完需归还{@link MatPool#release(Mat)}
+     *
+     * @param src
+     * @return
+     */
+    private static Mat bitmap2PooledMat(Bitmap src) {
+        Mat mat = MatPool.getDefault().acquire(src.getHeight(), src.getWidth(), CV_8UC4);
+        bitmap2Mat(src, mat);
         return mat;
     }
 
@@ -378,10 +767,144 @@ public final class ImageProcessUtils {
      * @return
      */
     public static Bitmap mat2Bitmap(Mat mat) {
-        Bitmap bitmap = Bitmap.createBitmap(mat.width(), mat.height(), Bitmap.Config.RGB_565);
-        Utils.matToBitmap(mat, bitmap);
+        return mat2Bitmap(mat, OutputFormat.RGB_565);
+    }
+
+    /**
+     * Mat转bitmap
+     *
+     * @param mat
+     * @param format 输出格式，ALPHA_8要求mat为单通道
+     * @return
+     */
+    public static Bitmap mat2Bitmap(Mat mat, OutputFormat format) {
+        return mat2Bitmap(mat, format, null);
+    }
+
+    /**
+     * Mat转bitmap，尽量写入reuse而不是新建bitmap
+     * <p>
+     * 输出格式与reuse一致（不支持的格式按RGB_565），宽高不一致时若其内存足够则通过reconfigure复用，否则新建。
+     *
+     * @param mat
+     * @param reuse 可复用的bitmap，需为可变的，可为null
+     * @return 写入结果的bitmap，可能是reuse也可能是新建的
+     */
+    public static Bitmap mat2Bitmap(Mat mat, @Nullable Bitmap reuse) {
+        OutputFormat format = reuse != null ? OutputFormat.of(reuse.getConfig()) : null;
+        return mat2Bitmap(mat, format != null ? format : OutputFormat.RGB_565, reuse);
+    }
+
+    /**
+     * Mat转bitmap
+     *
+     * @param mat
+     * @param format 输出格式，ALPHA_8要求mat为单通道
+     * @param reuse  可复用的bitmap，可为null
+     * @return
+     */
+    public static Bitmap mat2Bitmap(Mat mat, OutputFormat format, @Nullable Bitmap reuse) {
+        long begin = ProcessMetrics.getDefault().begin();
+        Bitmap bitmap = obtainBitmap(mat.width(), mat.height(), format, reuse);
+        if (format == OutputFormat.ALPHA_8) {
+            //单通道直接拷贝灰度值，不经过RGB扩展
+            copyGrayToBitmap(mat, bitmap, null);
+        } else {
+            Utils.matToBitmap(mat, bitmap);
+        }
+        ProcessMetrics.getDefault().end(ProcessMetrics.STAGE_MAT_TO_BITMAP, begin);
         return bitmap;
     }
 
+    /**
+     * 单通道Mat写入同尺寸的ALPHA_8 bitmap，连续帧使用同一个中转数组，分辨率不变时不再分配内存
+     *
+     * @param mat    单通道Mat
+     * @param bitmap 同尺寸、可变的ALPHA_8 bitmap
+     * @param reuse  可复用的中转数组，长度不足时新建
+     * @return 本次使用的中转数组，供下一次复用
+     */
+    public static byte[] mat2AlphaBitmap(Mat mat, Bitmap bitmap, @Nullable byte[] reuse) {
+        long begin = ProcessMetrics.getDefault().begin();
+        byte[] data = copyGrayToBitmap(mat, bitmap, reuse);
+        ProcessMetrics.getDefault().end(ProcessMetrics.STAGE_MAT_TO_BITMAP, begin);
+        return data;
+    }
+
+    /**
+     * 获取单通道Mat的灰度数据
+     *
+     * @param mat 单通道Mat
+     * @return
+     */
+    public static byte[] mat2GrayBytes(Mat mat) {
+        return mat2GrayBytes(mat, null);
+    }
+
+    /**
+     * 获取单通道Mat的灰度数据，按行连续存储
+     *
+     * @param mat   单通道Mat
+     * @param reuse 可复用的数组，长度不足时新建
+     * @return
+     */
+    public static byte[] mat2GrayBytes(Mat mat, @Nullable byte[] reuse) {
+        if (mat.type() != CV_8UC1) {
+            throw new IllegalArgumentException("mat2GrayBytes requires CV_8UC1, but was " + mat.type());
+        }
+        int size = mat.width() * mat.height();
+        byte[] data = reuse != null && reuse.length >= size ? reuse : new byte[size];
+        mat.get(0, 0, data);
+        return data;
+    }
+
+    /**
+     * 二值化结果转为按位压缩的二值图，内存为RGB_565的1/16
+     *
+     * @param mat 二值化后的单通道Mat
+     * @return
+     */
+    public static BitImage mat2BitImage(Mat mat) {
+        return BitImage.fromMat(mat);
+    }
+
+    /**
+     * 获取可写入指定尺寸的bitmap，优先复用reuse
+     */
+    private static Bitmap obtainBitmap(int width, int height, OutputFormat format, @Nullable Bitmap reuse) {
+        if (reuse == null || reuse.isRecycled() || !reuse.isMutable() || reuse.getConfig() != format.getConfig()) {
+            return Bitmap.createBitmap(width, height, format.getConfig());
+        }
+        if (reuse.getWidth() == width && reuse.getHeight() == height) {
+            return reuse;
+        }
+        if (reuse.getAllocationByteCount() >= width * height * format.getBytesPerPixel()) {
+            reuse.reconfigure(width, height, format.getConfig());
+            return reuse;
+        }
+        return Bitmap.createBitmap(width, height, format.getConfig());
+    }
+
+    /**
+     * 将单通道的灰度值写入ALPHA_8的bitmap
+     *
+     * @return 使用的中转数组
+     */
+    private static byte[] copyGrayToBitmap(Mat mat, Bitmap bitmap, @Nullable byte[] reuse) {
+        int width = mat.width();
+        int height = mat.height();
+        int rowBytes = bitmap.getRowBytes();
+        //数组按bitmap的行字节数分配，行有对齐填充时也无需另外的缓冲
+        int size = rowBytes * height;
+        byte[] data = mat2GrayBytes(mat, reuse != null && reuse.length >= size ? reuse : new byte[size]);
+        if (rowBytes != width) {
+            //从最后一行开始原地后移到对齐的位置，不会覆盖尚未移动的行
+            for (int y = height - 1; y > 0; y--) {
+                System.arraycopy(data, y * width, data, y * rowBytes, width);
+            }
+        }
+        bitmap.copyPixelsFromBuffer(ByteBuffer.wrap(data, 0, size));
+        return data;
+    }
 
 }
@@ -0,0 +1,84 @@
+package com.xuexiang.imageprocess.core.backend;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * JavaImageBackend单元测试
+ *
+ * @author xuexiang
+ * @since 2026-10-18 19:45
+ */
+public class JavaImageBackendTest {
+
+    private final JavaImageBackend mBackend = new JavaImageBackend();
+
+    /**
+     * 1x4的BGR图片：白、黑、红、深蓝
+     */
+    private static ByteImage createSample() {
+        return new ByteImage(4, 1, 3, new byte[]{
+                (byte) 255, (byte) 255, (byte) 255,
+                0, 0, 0,
+                0, 0, (byte) 255,
+                (byte) 120, 40, 30
+        });
+    }
+
+    @Test
+    public void grayScale_matchesOpenCVCoefficients() {
+        ByteImage dst = new ByteImage();
+        mBackend.grayScale(createSample(), dst);
+
+        assertEquals(1, dst.getChannels());
+        assertEquals(255, dst.get(0, 0, 0));
+        assertEquals(0, dst.get(1, 0, 0));
+        //0.299 * 255
+        assertEquals(76, dst.get(2, 0, 0));
+        //0.114 * 120 + 0.587 * 40 + 0.299 * 30
+        assertEquals(46, dst.get(3, 0, 0));
+    }
+
+    @Test
+    public void binary_thresholdsGrayValues() {
+        ByteImage dst = new ByteImage();
+        mBackend.binary(createSample(), dst, 60, 255);
+
+        assertArrayEquals(new byte[]{(byte) 255, 0, (byte) 255, 0}, copy(dst));
+    }
+
+    @Test
+    public void clearColor_redChannelTurnsRedToBackground() {
+        ByteImage dst = new ByteImage();
+        mBackend.clearColor(createSample(), dst, 2, 125, 255);
+
+        assertArrayEquals(new byte[]{(byte) 255, 0, (byte) 255, 0}, copy(dst));
+    }
+
+    @Test
+    public void clearColour_keepsOnlyBlackInk() {
+        ByteImage dst = new ByteImage();
+        mBackend.clearColour(createSample(), dst, 125, 48, 255);
+
+        assertArrayEquals(new byte[]{(byte) 255, 0, (byte) 255, (byte) 255}, copy(dst));
+    }
+
+    @Test
+    public void threshold_inPlaceReusesBuffer() {
+        ByteImage image = new ByteImage(2, 2, 1, new byte[]{10, (byte) 200, (byte) 126, (byte) 125});
+        byte[] data = image.getData();
+        mBackend.threshold(image, image, 125, 255);
+
+        assertSame(data, image.getData());
+        assertArrayEquals(new byte[]{0, (byte) 255, (byte) 255, 0}, copy(image));
+    }
+
+    private static byte[] copy(ByteImage image) {
+        byte[] bytes = new byte[image.getByteCount()];
+        System.arraycopy(image.getData(), 0, bytes, 0, bytes.length);
+        return bytes;
+    }
+}
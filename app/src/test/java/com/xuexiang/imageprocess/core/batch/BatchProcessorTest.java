@@ -0,0 +1,106 @@
+package com.xuexiang.imageprocess.core.batch;
+
+import com.xuexiang.imageprocess.core.pipeline.ImagePipeline;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * BatchProcessor单元测试，只覆盖不需要解码的部分：输出命名、输出目录检查和取消
+ *
+ * @author xuexiang
+ * @since 2026-10-19 11:20
+ */
+public class BatchProcessorTest {
+
+    @Test
+    public void getOutputName_keepsOriginalExtension() {
+        Set<String> used = new HashSet<>();
+
+        assertEquals("a_jpg.png", BatchProcessor.getOutputName("/in/a.jpg", "png", used));
+        assertEquals("a_png.png", BatchProcessor.getOutputName("/in/a.png", "png", used));
+        assertEquals("b.png", BatchProcessor.getOutputName("/in/b", "png", used));
+    }
+
+    @Test
+    public void getOutputName_duplicateNames_areNumbered() {
+        Set<String> used = new HashSet<>();
+
+        assertEquals("a_jpg.png", BatchProcessor.getOutputName("/x/a.jpg", "png", used));
+        assertEquals("a_jpg_1.png", BatchProcessor.getOutputName("/y/a.jpg", "png", used));
+        //大小写不同也视为重名
+        assertEquals("A_JPG_2.png", BatchProcessor.getOutputName("/z/A.JPG", "png", used));
+    }
+
+    @Test
+    public void processDirectory_sameDir_isRejected() {
+        File dir = new File(System.getProperty("java.io.tmpdir"));
+        try {
+            newProcessor().processDirectory(dir, new File(dir, "."), null);
+            fail("Expected IllegalArgumentException for the same dir");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void process_outputDirContainsInput_isRejected() {
+        File dir = new File(System.getProperty("java.io.tmpdir"));
+        try {
+            newProcessor().process(Arrays.asList(new File(dir, "a.jpg").getPath()), dir, null);
+            fail("Expected IllegalArgumentException for the input dir");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void cancelBeforeProcess_isNotLost() {
+        File outputDir = new File(System.getProperty("java.io.tmpdir"), "batch-out");
+        BatchProcessor processor = newProcessor();
+        processor.cancel();
+
+        BatchResult result = processor.process(Arrays.asList("/in/a.jpg", "/in/b.jpg"), outputDir, null);
+        assertTrue(result.isCancelled());
+        assertEquals(0, result.getTotal());
+
+        //取消标记在批量处理结束时清除
+        result = processor.process(Collections.<String>emptyList(), outputDir, null);
+        assertFalse(result.isCancelled());
+    }
+
+    @Test
+    public void error_abortsBatchAndIsRethrown() {
+        File outputDir = new File(System.getProperty("java.io.tmpdir"), "batch-out");
+        final AtomicInteger completed = new AtomicInteger();
+        final OutOfMemoryError oom = new OutOfMemoryError("test");
+        try {
+            newProcessor().process(Arrays.asList("/in/a.jpg", "/in/b.jpg"), outputDir, new BatchProcessor.OnBatchListener() {
+                @Override
+                public void onCompleted(String imgPath, File output, Throwable error) {
+                    completed.incrementAndGet();
+                    throw oom;
+                }
+            });
+            fail("Expected the OutOfMemoryError to be rethrown");
+        } catch (OutOfMemoryError e) {
+            assertSame(oom, e);
+        }
+        //同时处理数为1，出错后不再提交剩余的图片
+        assertEquals(1, completed.get());
+    }
+
+    private static BatchProcessor newProcessor() {
+        return new BatchProcessor(ImagePipeline.builder().gray().build(), 1);
+    }
+}
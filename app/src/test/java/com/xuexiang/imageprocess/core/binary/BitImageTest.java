@@ -0,0 +1,95 @@
+package com.xuexiang.imageprocess.core.binary;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * BitImage单元测试
+ *
+ * @author xuexiang
+ * @since 2026-10-18 22:30
+ */
+public class BitImageTest {
+
+    /**
+     * 宽度70跨越两个long，第二个long只有6个有效位
+     */
+    private static final int WIDTH = 70;
+
+    private static BitImage createRow(int... foreground) {
+        BitImage image = new BitImage(WIDTH, 1);
+        for (int x : foreground) {
+            image.set(x, 0, true);
+        }
+        return image;
+    }
+
+    @Test
+    public void fromGray_roundTripsThroughGrayBytes() {
+        byte[] gray = new byte[WIDTH * 2];
+        for (int i = 0; i < gray.length; i++) {
+            gray[i] = i % 3 == 0 ? 0 : (byte) 255;
+        }
+        BitImage image = BitImage.fromGray(gray, WIDTH, 2, 0);
+
+        assertEquals(2, image.getWordsPerRow());
+        assertTrue(image.get(0, 0));
+        assertFalse(image.get(1, 0));
+        assertArrayEquals(gray, image.toGray(null));
+    }
+
+    @Test
+    public void logicalOps_combineMasks() {
+        assertEquals(1, createRow(1, 2, 65).and(createRow(2, 3)).countForeground());
+        assertEquals(5, createRow(1, 2, 65).or(createRow(2, 3, 69)).countForeground());
+        assertEquals(3, createRow(1, 2, 65).xor(createRow(2, 3)).countForeground());
+        BitImage diff = createRow(1, 2, 65).andNot(createRow(2));
+        assertTrue(diff.get(1, 0));
+        assertFalse(diff.get(2, 0));
+        assertTrue(diff.get(65, 0));
+    }
+
+    @Test
+    public void not_keepsPaddingBitsClear() {
+        BitImage image = createRow(0, 64).not();
+
+        assertEquals(WIDTH - 2, image.countForeground());
+        assertEquals(WIDTH - 2, image.countForeground(0));
+        assertEquals(0, image.getWords()[1] >>> 6);
+        assertEquals(2, image.not().countForeground());
+    }
+
+    @Test
+    public void forEachRun_reportsRunsAcrossWordBoundary() {
+        BitImage image = createRow(3, 62, 63, 64, 65, 69);
+        final List<int[]> runs = new ArrayList<>();
+        image.forEachRun(new BitImage.OnRunListener() {
+            @Override
+            public void onRun(int y, int xStart, int xEnd) {
+                runs.add(new int[]{y, xStart, xEnd});
+            }
+        });
+
+        assertEquals(3, runs.size());
+        assertArrayEquals(new int[]{0, 3, 4}, runs.get(0));
+        assertArrayEquals(new int[]{0, 62, 66}, runs.get(1));
+        assertArrayEquals(new int[]{0, 69, 70}, runs.get(2));
+    }
+
+    @Test
+    public void getDensity_isForegroundRatio() {
+        BitImage image = new BitImage(10, 10);
+        for (int x = 0; x < 10; x++) {
+            image.set(x, 5, true);
+        }
+
+        assertEquals(0.1, image.getDensity(), 1e-9);
+    }
+}
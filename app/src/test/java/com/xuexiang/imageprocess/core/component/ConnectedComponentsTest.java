@@ -0,0 +1,137 @@
+package com.xuexiang.imageprocess.core.component;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * ConnectedComponents单元测试
+ *
+ * @author xuexiang
+ * @since 2026-10-19 02:40
+ */
+public class ConnectedComponentsTest {
+
+    private static byte[] createRandomMask(int width, int height, double ink, long seed) {
+        Random random = new Random(seed);
+        byte[] mask = new byte[width * height];
+        for (int i = 0; i < mask.length; i++) {
+            mask[i] = random.nextDouble() < ink ? 0 : (byte) 255;
+        }
+        return mask;
+    }
+
+    @Test
+    public void label_matchesFloodFill() {
+        int width = 61;
+        int height = 97;
+        for (double ink : new double[]{0.2, 0.45, 0.6}) {
+            byte[] mask = createRandomMask(width, height, ink, 7);
+            for (boolean eight : new boolean[]{true, false}) {
+                int[] expected = new int[width * height];
+                int count = floodFill(mask, width, height, eight, expected);
+                for (int stripes : new int[]{1, 2, 5, height}) {
+                    int[] labels = new int[width * height];
+                    ComponentStats stats = new ConnectedComponents(eight, stripes).label(mask, width, height, labels);
+                    String message = "ink=" + ink + " eight=" + eight + " stripes=" + stripes;
+                    assertEquals(message, count, stats.getCount());
+                    assertArrayEquals(message, expected, labels);
+                    assertStats(message, expected, width, height, stats);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void label_mergesAcrossStripes() {
+        //一条贯穿所有条带的竖线和一个U形，需在条带边界合并
+        int width = 9;
+        int height = 64;
+        byte[] mask = createRandomMask(width, height, 0, 0);
+        for (int y = 0; y < height; y++) {
+            mask[y * width + 1] = 0;
+            mask[y * width + 5] = 0;
+            mask[y * width + 7] = 0;
+        }
+        mask[(height - 1) * width + 6] = 0;
+        ComponentStats stats = new ConnectedComponents(true, 7).label(mask, width, height, null);
+        assertEquals(2, stats.getCount());
+        assertEquals(height, stats.getArea(0));
+        assertEquals(1.0, stats.getCentroidX(0), 1e-9);
+        assertEquals(height * 2 + 1, stats.getArea(1));
+        assertEquals(5, stats.getLeft(1));
+        assertEquals(7, stats.getRight(1));
+        assertEquals(height, stats.getHeight(1));
+        assertEquals(height * 3 + 1, stats.getTotalArea());
+    }
+
+    private static void assertStats(String message, int[] labels, int width, int height, ComponentStats stats) {
+        int count = stats.getCount();
+        int[] area = new int[count];
+        long[] sumX = new long[count];
+        int[] left = new int[count];
+        int[] bottom = new int[count];
+        Arrays.fill(left, Integer.MAX_VALUE);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int label = labels[y * width + x] - 1;
+                if (label >= 0) {
+                    area[label]++;
+                    sumX[label] += x;
+                    left[label] = Math.min(left[label], x);
+                    bottom[label] = y;
+                }
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            assertEquals(message, area[i], stats.getArea(i));
+            assertEquals(message, left[i], stats.getLeft(i));
+            assertEquals(message, bottom[i], stats.getBottom(i));
+            assertEquals((double) sumX[i] / area[i], stats.getCentroidX(i), 1e-9);
+        }
+    }
+
+    /**
+     * 基准实现：按光栅顺序逐个泛洪填充
+     */
+    private static int floodFill(byte[] mask, int width, int height, boolean eight, int[] labels) {
+        int count = 0;
+        int[] stack = new int[width * height];
+        for (int start = 0; start < mask.length; start++) {
+            if (mask[start] != 0 || labels[start] != 0) {
+                continue;
+            }
+            count++;
+            int size = 0;
+            stack[size++] = start;
+            labels[start] = count;
+            while (size > 0) {
+                int p = stack[--size];
+                int px = p % width;
+                int py = p / width;
+                for (int dy = -1; dy <= 1; dy++) {
+                    for (int dx = -1; dx <= 1; dx++) {
+                        if ((dx == 0 && dy == 0) || (!eight && dx != 0 && dy != 0)) {
+                            continue;
+                        }
+                        int x = px + dx;
+                        int y = py + dy;
+                        if (x < 0 || y < 0 || x >= width || y >= height) {
+                            continue;
+                        }
+                        int q = y * width + x;
+                        if (mask[q] == 0 && labels[q] == 0) {
+                            labels[q] = count;
+                            stack[size++] = q;
+                        }
+                    }
+                }
+            }
+        }
+        return count;
+    }
+}
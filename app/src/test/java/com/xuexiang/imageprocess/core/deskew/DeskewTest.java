@@ -0,0 +1,58 @@
+package com.xuexiang.imageprocess.core.deskew;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Deskew单元测试
+ *
+ * @author xuexiang
+ * @since 2026-10-19 03:30
+ */
+public class DeskewTest {
+
+    /**
+     * 生成倾斜的"文字行"：每行由随机长度的黑色短笔画组成，整体按angle顺时针倾斜
+     */
+    private static byte[] createSkewedPage(int width, int height, double angle, long seed) {
+        byte[] mask = new byte[width * height];
+        Arrays.fill(mask, (byte) 255);
+        Random random = new Random(seed);
+        double tan = Math.tan(Math.toRadians(angle));
+        for (int line = 40; line < height - 40; line += 24) {
+            for (int x = 20; x < width - 20; x++) {
+                if (random.nextInt(4) == 0) {
+                    continue;
+                }
+                int thickness = 3 + random.nextInt(4);
+                int top = (int) Math.round(line + (x - width / 2) * tan);
+                for (int y = top; y < top + thickness; y++) {
+                    if (y >= 0 && y < height) {
+                        mask[y * width + x] = 0;
+                    }
+                }
+            }
+        }
+        return mask;
+    }
+
+    @Test
+    public void estimate_findsSkewAngle() {
+        Deskew deskew = new Deskew();
+        for (double angle : new double[]{0, 2.3, -4.75, 7.1, -12.4}) {
+            byte[] mask = createSkewedPage(600, 800, angle, 11);
+            assertEquals("angle=" + angle, angle, deskew.estimate(mask, 600, 800), 0.15);
+        }
+    }
+
+    @Test
+    public void estimate_blankPage() {
+        byte[] mask = new byte[64 * 64];
+        Arrays.fill(mask, (byte) 255);
+        assertEquals(0, new Deskew().estimate(mask, 64, 64), 0);
+    }
+}
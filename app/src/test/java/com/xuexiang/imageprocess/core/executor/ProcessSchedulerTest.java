@@ -0,0 +1,148 @@
+package com.xuexiang.imageprocess.core.executor;
+
+import org.junit.Test;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * ProcessScheduler单元测试
+ *
+ * @author xuexiang
+ * @since 2026-10-18 11:30
+ */
+public class ProcessSchedulerTest {
+
+    private static final Executor DIRECT = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    @Test
+    public void submit_deliversResult() throws Exception {
+        ProcessScheduler scheduler = new ProcessScheduler(1, 4, DIRECT);
+        RecordingCallback<Integer> callback = new RecordingCallback<>();
+        scheduler.submit("job", constant(42), callback);
+
+        assertTrue(callback.await());
+        assertEquals(Integer.valueOf(42), callback.result.get());
+        assertEquals(0, callback.cancelled.get());
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void submit_failureIsDelivered() throws Exception {
+        ProcessScheduler scheduler = new ProcessScheduler(1, 4, DIRECT);
+        RecordingCallback<Integer> callback = new RecordingCallback<>();
+        scheduler.submit("job", new Callable<Integer>() {
+            @Override
+            public Integer call() {
+                throw new IllegalStateException("boom");
+            }
+        }, callback);
+
+        assertTrue(callback.await());
+        assertTrue(callback.error.get() instanceof IllegalStateException);
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void submit_sameKeySupersedesPreviousJob() throws Exception {
+        ProcessScheduler scheduler = new ProcessScheduler(1, 4, DIRECT);
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        RecordingCallback<Integer> first = new RecordingCallback<>();
+        scheduler.submit("imgproc", new Callable<Integer>() {
+            @Override
+            public Integer call() throws Exception {
+                started.countDown();
+                release.await();
+                return 1;
+            }
+        }, first);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        RecordingCallback<Integer> second = new RecordingCallback<>();
+        scheduler.submit("imgproc", constant(2), second);
+        release.countDown();
+
+        assertTrue(first.await());
+        assertTrue(second.await());
+        assertEquals(1, first.cancelled.get());
+        assertEquals(Integer.valueOf(2), second.result.get());
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void submit_fullQueueCancelsOldestQueuedJob() throws Exception {
+        ProcessScheduler scheduler = new ProcessScheduler(1, 1, DIRECT);
+        final CountDownLatch release = new CountDownLatch(1);
+        RecordingCallback<Integer> running = new RecordingCallback<>();
+        scheduler.submit("a", new Callable<Integer>() {
+            @Override
+            public Integer call() throws Exception {
+                release.await();
+                return 0;
+            }
+        }, running);
+        RecordingCallback<Integer> queued = new RecordingCallback<>();
+        scheduler.submit("b", constant(1), queued);
+        RecordingCallback<Integer> newest = new RecordingCallback<>();
+        scheduler.submit("c", constant(2), newest);
+        release.countDown();
+
+        assertTrue(queued.await());
+        assertTrue(newest.await());
+        assertEquals(1, queued.cancelled.get());
+        assertEquals(Integer.valueOf(2), newest.result.get());
+        scheduler.shutdown();
+    }
+
+    private static Callable<Integer> constant(final int value) {
+        return new Callable<Integer>() {
+            @Override
+            public Integer call() {
+                return value;
+            }
+        };
+    }
+
+    private static class RecordingCallback<T> implements ProcessCallback<T> {
+
+        final CountDownLatch done = new CountDownLatch(1);
+        final AtomicReference<T> result = new AtomicReference<>();
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+        final AtomicInteger cancelled = new AtomicInteger();
+
+        @Override
+        public void onSuccess(T result) {
+            this.result.set(result);
+            done.countDown();
+        }
+
+        @Override
+        public void onFailed(Throwable e) {
+            error.set(e);
+            done.countDown();
+        }
+
+        @Override
+        public void onCancelled() {
+            cancelled.incrementAndGet();
+            done.countDown();
+        }
+
+        boolean await() throws InterruptedException {
+            return done.await(5, TimeUnit.SECONDS);
+        }
+    }
+}
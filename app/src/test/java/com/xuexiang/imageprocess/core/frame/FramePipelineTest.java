@@ -0,0 +1,182 @@
+package com.xuexiang.imageprocess.core.frame;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * FramePipeline单元测试，使用int[1]作为模拟帧，帧的内容为序号
+ *
+ * @author xuexiang
+ * @since 2026-10-19 00:30
+ */
+public class FramePipelineTest {
+
+    /**
+     * 记录创建和释放的帧数
+     */
+    private static class CountingFactory implements IFrameFactory<int[]> {
+
+        int mCreated;
+        int mReleased;
+
+        @Override
+        public synchronized int[] create() {
+            mCreated++;
+            return new int[1];
+        }
+
+        @Override
+        public synchronized void release(int[] frame) {
+            mReleased++;
+        }
+    }
+
+    @Test
+    public void slowProcessor_dropsStaleFramesAndProcessesLatest() throws Exception {
+        final CountDownLatch firstStarted = new CountDownLatch(1);
+        final CountDownLatch unblock = new CountDownLatch(1);
+        final CountDownLatch secondDone = new CountDownLatch(1);
+        final List<Integer> processed = Collections.synchronizedList(new ArrayList<Integer>());
+        CountingFactory factory = new CountingFactory();
+        FramePipeline<int[]> pipeline = new FramePipeline<>(factory, new IFrameProcessor<int[]>() {
+            @Override
+            public void process(int[] frame) {
+                processed.add(frame[0]);
+                if (processed.size() == 1) {
+                    firstStarted.countDown();
+                    try {
+                        unblock.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                } else {
+                    secondDone.countDown();
+                }
+            }
+        });
+        pipeline.start();
+
+        submit(pipeline, 0);
+        assertTrue(firstStarted.await(5, TimeUnit.SECONDS));
+        //处理第0帧期间连续到达10帧，只有最后一帧会被处理
+        for (int i = 1; i <= 10; i++) {
+            submit(pipeline, i);
+        }
+        unblock.countDown();
+        assertTrue(secondDone.await(5, TimeUnit.SECONDS));
+
+        assertEquals(Integer.valueOf(0), processed.get(0));
+        assertEquals(Integer.valueOf(10), processed.get(1));
+        assertEquals(11, pipeline.getReceivedCount());
+        assertEquals(9, pipeline.getDroppedCount());
+        assertEquals(FramePipeline.DEFAULT_CAPACITY, factory.mCreated);
+
+        pipeline.stop();
+    }
+
+    @Test
+    public void failedFrame_isCountedAndPipelineKeepsRunning() throws Exception {
+        final CountDownLatch done = new CountDownLatch(2);
+        FramePipeline<int[]> pipeline = new FramePipeline<>(new CountingFactory(), new IFrameProcessor<int[]>() {
+            @Override
+            public void process(int[] frame) {
+                done.countDown();
+                if (frame[0] == 0) {
+                    throw new IllegalStateException("bad frame");
+                }
+            }
+        });
+        pipeline.start();
+
+        submit(pipeline, 0);
+        while (pipeline.getFailedCount() == 0) {
+            Thread.sleep(1);
+        }
+        submit(pipeline, 1);
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        pipeline.stop();
+
+        assertEquals(1, pipeline.getFailedCount());
+        assertEquals("bad frame", pipeline.getLastError().getMessage());
+    }
+
+    @Test
+    public void stop_releasesAllFrames() throws Exception {
+        final CountDownLatch done = new CountDownLatch(1);
+        CountingFactory factory = new CountingFactory();
+        FramePipeline<int[]> pipeline = new FramePipeline<>(factory, new IFrameProcessor<int[]>() {
+            @Override
+            public void process(int[] frame) {
+                done.countDown();
+            }
+        });
+        pipeline.start();
+        submit(pipeline, 0);
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+
+        pipeline.stop();
+
+        assertEquals(factory.mCreated, factory.mReleased);
+        assertNull(pipeline.obtainFrame());
+    }
+
+    @Test
+    public void stop_waitsForFrameInProcess() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final AtomicBoolean finished = new AtomicBoolean();
+        CountingFactory factory = new CountingFactory();
+        FramePipeline<int[]> pipeline = new FramePipeline<>(factory, new IFrameProcessor<int[]>() {
+            @Override
+            public void process(int[] frame) {
+                started.countDown();
+                //忽略中断，模拟不响应中断的处理
+                long end = System.currentTimeMillis() + 200;
+                while (System.currentTimeMillis() < end) {
+                    Thread.yield();
+                }
+                finished.set(true);
+            }
+        });
+        pipeline.start();
+        submit(pipeline, 0);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        pipeline.stop();
+
+        assertTrue(finished.get());
+        assertEquals(factory.mCreated, factory.mReleased);
+    }
+
+    @Test
+    public void obtainFrame_allFramesInUse_isNotCountedAsDrop() {
+        FramePipeline<int[]> pipeline = new FramePipeline<>(new CountingFactory(), new IFrameProcessor<int[]>() {
+            @Override
+            public void process(int[] frame) {
+            }
+        }, 2);
+        pipeline.start();
+        //生产者持有全部帧而不提交
+        pipeline.obtainFrame();
+        pipeline.obtainFrame();
+
+        assertNull(pipeline.obtainFrame());
+        assertEquals(0, pipeline.getDroppedCount());
+        pipeline.stop();
+    }
+
+    private static void submit(FramePipeline<int[]> pipeline, int sequence) {
+        int[] frame = pipeline.obtainFrame();
+        frame[0] = sequence;
+        pipeline.submitFrame(frame);
+    }
+}
@@ -0,0 +1,90 @@
+package com.xuexiang.imageprocess.core.memory;
+
+import org.junit.Test;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * NativeMemoryGovernor单元测试
+ *
+ * @author xuexiang
+ * @since 2026-10-19 04:20
+ */
+public class NativeMemoryGovernorTest {
+
+    @Test
+    public void estimate_countsInputAndStages() {
+        assertEquals(100L * 50 * 3 * 3, NativeMemoryGovernor.estimate(100, 50, 3, 2));
+        assertEquals(0, NativeMemoryGovernor.estimate(0, 50, 3, 2));
+    }
+
+    @Test
+    public void acquire_waitsUntilBudgetIsAvailable() throws Exception {
+        final NativeMemoryGovernor governor = new NativeMemoryGovernor(100);
+        governor.acquire(60);
+        assertFalse(governor.tryAcquire(50));
+
+        final CountDownLatch admitted = new CountDownLatch(1);
+        Thread waiter = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                governor.acquire(50);
+                admitted.countDown();
+            }
+        });
+        waiter.start();
+        assertFalse(admitted.await(100, TimeUnit.MILLISECONDS));
+        assertEquals(1, governor.getWaitingCount());
+
+        governor.release(60);
+        assertTrue(admitted.await(5, TimeUnit.SECONDS));
+        assertEquals(50, governor.getUsedBytes());
+        assertEquals(60, governor.getPeakBytes());
+        assertEquals(1, governor.getWaitedCount());
+        waiter.join();
+    }
+
+    @Test
+    public void acquire_oversizedJobRunsAlone() {
+        NativeMemoryGovernor governor = new NativeMemoryGovernor(100);
+        governor.acquire(500);
+        assertEquals(500, governor.getUsedBytes());
+        assertFalse(governor.tryAcquire(1));
+        governor.release(500);
+        assertTrue(governor.tryAcquire(1));
+    }
+
+    @Test
+    public void acquire_interruptedWaiterIsCancelled() throws Exception {
+        final NativeMemoryGovernor governor = new NativeMemoryGovernor(100);
+        governor.acquire(100);
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+        Thread waiter = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    governor.acquire(10);
+                } catch (Throwable e) {
+                    error.set(e);
+                }
+            }
+        });
+        waiter.start();
+        while (governor.getWaitingCount() == 0) {
+            Thread.sleep(5);
+        }
+        waiter.interrupt();
+        waiter.join(5000);
+
+        assertTrue(error.get() instanceof CancellationException);
+        assertEquals(0, governor.getWaitingCount());
+        assertEquals(100, governor.getUsedBytes());
+    }
+}
@@ -0,0 +1,89 @@
+package com.xuexiang.imageprocess.core.morphology;
+
+import com.xuexiang.imageprocess.core.backend.ByteImage;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Morphology单元测试
+ *
+ * @author xuexiang
+ * @since 2026-10-19 01:50
+ */
+public class MorphologyTest {
+
+    private static ByteImage createRandom(int width, int height, long seed) {
+        byte[] data = new byte[width * height];
+        new Random(seed).nextBytes(data);
+        return new ByteImage(width, height, 1, data);
+    }
+
+    @Test
+    public void erodeAndDilate_matchBruteForce() {
+        //高度跨越多个行带，核包含1、偶数倍于块以及大于图片的情况
+        ByteImage src = createRandom(37, 150, 3);
+        int[][] kernels = {{1, 1}, {3, 3}, {3, 5}, {9, 1}, {1, 7}, {15, 15}, {41, 3}};
+        for (int[] kernel : kernels) {
+            for (Morphology.Operation operation : new Morphology.Operation[]{Morphology.Operation.ERODE, Morphology.Operation.DILATE}) {
+                ByteImage dst = new ByteImage();
+                new Morphology(operation, kernel[0], kernel[1]).process(src, dst);
+
+                boolean max = operation == Morphology.Operation.DILATE;
+                assertArrayEquals(operation + " " + kernel[0] + "x" + kernel[1],
+                        bruteForce(src, kernel[0], kernel[1], max), dst.getData());
+            }
+        }
+    }
+
+    @Test
+    public void close_removesSpecksSmallerThanKernel() {
+        //白底上有1个像素的黑点和一条3像素宽的黑色笔画
+        ByteImage src = new ByteImage(20, 20, 1);
+        for (int y = 0; y < 20; y++) {
+            for (int x = 0; x < 20; x++) {
+                src.set(x, y, 0, x >= 10 && x < 13 ? 0 : 255);
+            }
+        }
+        src.set(3, 3, 0, 0);
+
+        ByteImage dst = new ByteImage();
+        new Morphology(Morphology.Operation.CLOSE, 3).process(src, dst);
+
+        assertEquals(255, dst.get(3, 3, 0));
+        for (int x = 10; x < 13; x++) {
+            assertEquals(0, dst.get(x, 10, 0));
+        }
+        assertEquals(255, dst.get(9, 10, 0));
+        assertEquals(255, dst.get(13, 10, 0));
+    }
+
+    @Test
+    public void halo_coversBothPassesOfOpenAndClose() {
+        assertEquals(2, new Morphology(Morphology.Operation.ERODE, 5, 3).getHalo());
+        assertEquals(4, new Morphology(Morphology.Operation.OPEN, 5, 3).getHalo());
+    }
+
+    private static byte[] bruteForce(ByteImage src, int kernelWidth, int kernelHeight, boolean max) {
+        int width = src.getWidth();
+        int height = src.getHeight();
+        byte[] out = new byte[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int value = max ? 0 : 255;
+                for (int wy = Math.max(0, y - kernelHeight / 2); wy <= Math.min(height - 1, y + kernelHeight / 2); wy++) {
+                    for (int wx = Math.max(0, x - kernelWidth / 2); wx <= Math.min(width - 1, x + kernelWidth / 2); wx++) {
+                        int v = src.get(wx, wy, 0);
+                        value = max ? Math.max(value, v) : Math.min(value, v);
+                    }
+                }
+                out[y * width + x] = (byte) value;
+            }
+        }
+        return out;
+    }
+}
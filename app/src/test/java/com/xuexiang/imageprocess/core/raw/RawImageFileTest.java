@@ -0,0 +1,87 @@
+package com.xuexiang.imageprocess.core.raw;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * RawImageFile单元测试
+ *
+ * @author xuexiang
+ * @since 2026-10-19 05:30
+ */
+public class RawImageFileTest {
+
+    @Test
+    public void writeAndOpen_roundTrip() throws IOException {
+        File file = File.createTempFile("raw", "." + RawImageFile.EXTENSION);
+        try {
+            byte[] data = new byte[37 * 3 * 21];
+            new Random(5).nextBytes(data);
+            RawImageFile.write(data, 37, 21, 16, 37 * 3, file);
+            assertEquals(0, listTempFiles(file).length);
+            assertEquals(RawImageFile.HEADER_SIZE + data.length, file.length());
+
+            RawImageFile raw = RawImageFile.open(file);
+            assertEquals(37, raw.getWidth());
+            assertEquals(21, raw.getHeight());
+            assertEquals(16, raw.getType());
+            assertEquals(37 * 3, raw.getStride());
+            ByteBuffer payload = raw.getPayload();
+            assertEquals(data.length, payload.remaining());
+            byte[] read = new byte[data.length];
+            payload.get(read);
+            assertArrayEquals(data, read);
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void open_rejectsInvalidFiles() throws IOException {
+        File file = File.createTempFile("raw", "." + RawImageFile.EXTENSION);
+        try {
+            RandomAccessFile raf = new RandomAccessFile(file, "rw");
+            raf.setLength(RawImageFile.HEADER_SIZE * 2);
+            raf.close();
+            try {
+                RawImageFile.open(file);
+                fail("Expected IOException for a file without header");
+            } catch (IOException expected) {
+                //期望的异常
+            }
+
+            //像素数据被截断
+            RawImageFile.write(new byte[100], 10, 10, 0, 10, file);
+            raf = new RandomAccessFile(file, "rw");
+            raf.setLength(RawImageFile.HEADER_SIZE + 50);
+            raf.close();
+            try {
+                RawImageFile.open(file);
+                fail("Expected IOException for a truncated file");
+            } catch (IOException expected) {
+                //期望的异常
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    private static File[] listTempFiles(final File file) {
+        return file.getAbsoluteFile().getParentFile().listFiles(new FileFilter() {
+            @Override
+            public boolean accept(File pathname) {
+                return pathname.getName().startsWith(file.getName()) && pathname.getName().endsWith(".tmp");
+            }
+        });
+    }
+}
@@ -0,0 +1,98 @@
+package com.xuexiang.imageprocess.core.threshold;
+
+import com.xuexiang.imageprocess.core.backend.ByteImage;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * AdaptiveThreshold单元测试
+ *
+ * @author xuexiang
+ * @since 2026-10-18 23:40
+ */
+public class AdaptiveThresholdTest {
+
+    @Test
+    public void sauvola_matchesBruteForceAcrossBands() {
+        //高度跨越多个行带，验证行带边界处的窗口
+        int width = 23;
+        int height = 150;
+        byte[] data = new byte[width * height];
+        new Random(7).nextBytes(data);
+        ByteImage src = new ByteImage(width, height, 1, data);
+        AdaptiveThreshold threshold = AdaptiveThreshold.sauvola(7, 0.34);
+
+        ByteImage dst = new ByteImage();
+        threshold.process(src, dst);
+
+        assertArrayEquals(bruteForce(src, 7, 0.34, true), dst.getData());
+    }
+
+    @Test
+    public void niblack_matchesBruteForce() {
+        int width = 40;
+        int height = 30;
+        byte[] data = new byte[width * height];
+        new Random(11).nextBytes(data);
+        ByteImage src = new ByteImage(width, height, 1, data);
+
+        ByteImage dst = new ByteImage();
+        AdaptiveThreshold.niblack(5, -0.2).process(src, dst);
+
+        assertArrayEquals(bruteForce(src, 5, -0.2, false), dst.getData());
+    }
+
+    @Test
+    public void sauvola_handlesUnevenLighting() {
+        //从左到右由暗变亮的纸张，每隔10列有一道比周围暗60的笔画
+        int width = 200;
+        int height = 20;
+        ByteImage src = new ByteImage(width, height, 1);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int paper = 100 + x * 150 / width;
+                src.set(x, y, 0, x % 10 == 5 ? paper - 60 : paper);
+            }
+        }
+
+        ByteImage dst = new ByteImage();
+        AdaptiveThreshold.sauvola(15, 0.2).process(src, dst);
+
+        for (int x = 10; x < width - 10; x++) {
+            assertEquals("x=" + x, x % 10 == 5 ? 0 : 255, dst.get(x, 10, 0));
+        }
+    }
+
+    private static byte[] bruteForce(ByteImage src, int windowSize, double k, boolean sauvola) {
+        int width = src.getWidth();
+        int height = src.getHeight();
+        int halo = windowSize / 2;
+        byte[] out = new byte[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                long s = 0;
+                long s2 = 0;
+                long area = 0;
+                for (int wy = Math.max(0, y - halo); wy < Math.min(height, y + halo + 1); wy++) {
+                    for (int wx = Math.max(0, x - halo); wx < Math.min(width, x + halo + 1); wx++) {
+                        int value = src.get(wx, wy, 0);
+                        s += value;
+                        s2 += value * value;
+                        area++;
+                    }
+                }
+                double mean = (double) s / area;
+                double variance = (double) s2 / area - mean * mean;
+                double std = variance > 0 ? Math.sqrt(variance) : 0;
+                double thresh = sauvola ? mean * (1 + k * (std / 128 - 1)) : mean + k * std;
+                out[y * width + x] = src.get(x, y, 0) > thresh ? (byte) 255 : 0;
+            }
+        }
+        return out;
+    }
+}
@@ -0,0 +1,85 @@
+package com.xuexiang.imageprocess.core.threshold;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 直方图与自动阈值单元测试
+ *
+ * @author xuexiang
+ * @since 2026-10-18 23:00
+ */
+public class ThresholdSelectorsTest {
+
+    /**
+     * 模拟文档：少量笔迹集中在30附近，大片白纸集中在220附近
+     */
+    private static int[] createDocumentHistogram() {
+        int[] histogram = new int[Histogram.BINS];
+        for (int i = 20; i <= 40; i++) {
+            histogram[i] = 50;
+        }
+        for (int i = 41; i < 200; i++) {
+            histogram[i] = 2;
+        }
+        for (int i = 200; i <= 240; i++) {
+            histogram[i] = 1000 - Math.abs(220 - i) * 40;
+        }
+        return histogram;
+    }
+
+    private static long sum(int[] histogram) {
+        long total = 0;
+        for (int count : histogram) {
+            total += count;
+        }
+        return total;
+    }
+
+    @Test
+    public void compute_countsAllChannelsInOnePass() {
+        byte[] bgr = {
+                0, 10, (byte) 255,
+                0, 20, (byte) 255,
+                5, 10, 0
+        };
+        Histogram histogram = Histogram.compute(bgr, 3);
+
+        assertEquals(3, histogram.getChannels());
+        assertEquals(3, histogram.getTotal());
+        assertEquals(2, histogram.get(0)[0]);
+        assertEquals(2, histogram.get(1)[10]);
+        assertEquals(2, histogram.get(2)[255]);
+        assertEquals(1, histogram.get(2)[0]);
+    }
+
+    @Test
+    public void otsu_separatesInkFromPaper() {
+        int[] histogram = createDocumentHistogram();
+        int thresh = ThresholdSelectors.otsu().select(histogram, sum(histogram));
+
+        assertTrue("thresh=" + thresh, thresh > 40 && thresh < 200);
+    }
+
+    @Test
+    public void triangle_cutsAtFootOfPaperPeak() {
+        int[] histogram = createDocumentHistogram();
+        int thresh = ThresholdSelectors.triangle().select(histogram, sum(histogram));
+
+        assertTrue("thresh=" + thresh, thresh > 40 && thresh < 220);
+    }
+
+    @Test
+    public void percentile_returnsLevelCoveringPercentOfPixels() {
+        int[] histogram = new int[Histogram.BINS];
+        histogram[10] = 10;
+        histogram[100] = 40;
+        histogram[250] = 50;
+
+        assertEquals(10, ThresholdSelectors.percentile(10).select(histogram, 100));
+        assertEquals(100, ThresholdSelectors.percentile(11).select(histogram, 100));
+        assertEquals(250, ThresholdSelectors.percentile(100).select(histogram, 100));
+    }
+}
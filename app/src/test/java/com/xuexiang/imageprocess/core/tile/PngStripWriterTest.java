@@ -0,0 +1,75 @@
+package com.xuexiang.imageprocess.core.tile;
+
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import javax.imageio.ImageIO;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * PngStripWriter单元测试，用ImageIO解码验证
+ *
+ * @author xuexiang
+ * @since 2026-10-19 06:20
+ */
+public class PngStripWriterTest {
+
+    @Test
+    public void writeRow_grayAndBgrRoundTrip() throws IOException {
+        //宽度较大，压缩数据跨越多个IDAT块
+        int width = 700;
+        int height = 300;
+        for (int channels : new int[]{1, 3}) {
+            byte[] pixels = new byte[width * height * channels];
+            new Random(channels).nextBytes(pixels);
+            File file = File.createTempFile("strip", ".png");
+            try {
+                PngStripWriter writer = new PngStripWriter(file, width, height, channels);
+                for (int y = 0; y < height; y++) {
+                    writer.writeRow(pixels, y * width * channels);
+                }
+                writer.finish();
+
+                BufferedImage image = ImageIO.read(file);
+                assertEquals(width, image.getWidth());
+                assertEquals(height, image.getHeight());
+                for (int y = 0; y < height; y += 37) {
+                    for (int x = 0; x < width; x += 53) {
+                        int offset = (y * width + x) * channels;
+                        for (int c = 0; c < channels; c++) {
+                            //PNG为RGB顺序，输入为BGR顺序
+                            int expected = pixels[offset + (channels == 1 ? 0 : 2 - c)] & 0xFF;
+                            assertEquals("channels=" + channels + " at " + x + "," + y,
+                                    expected, image.getRaster().getSample(x, y, c));
+                        }
+                    }
+                }
+            } finally {
+                file.delete();
+            }
+        }
+    }
+
+    @Test
+    public void finish_failsWhenRowsAreMissing() throws IOException {
+        File file = File.createTempFile("strip", ".png");
+        try {
+            PngStripWriter writer = new PngStripWriter(file, 4, 2, 1);
+            writer.writeRow(new byte[4], 0);
+            try {
+                writer.finish();
+                fail("Expected IOException for missing rows");
+            } catch (IOException expected) {
+                //期望的异常
+            }
+        } finally {
+            file.delete();
+        }
+    }
+}
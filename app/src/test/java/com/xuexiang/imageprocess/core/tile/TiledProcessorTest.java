@@ -0,0 +1,46 @@
+package com.xuexiang.imageprocess.core.tile;
+
+import com.xuexiang.imageprocess.core.pipeline.IStage;
+import com.xuexiang.imageprocess.core.pipeline.ImagePipeline;
+import com.xuexiang.imageprocess.core.threshold.ThresholdSelectors;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * TiledProcessor单元测试：依赖整张图片的流水线（倾斜校正、自动阈值）不能分块处理
+ *
+ * @author xuexiang
+ * @since 2026-10-19 11:40
+ */
+public class TiledProcessorTest {
+
+    @Test
+    public void globalStage_isRejected() {
+        assertRejected(ImagePipeline.builder().gray().deskew().build());
+    }
+
+    @Test
+    public void autoThresholdStages_areRejected() {
+        assertRejected(ImagePipeline.builder().binary(ThresholdSelectors.otsu()).build());
+        assertRejected(ImagePipeline.builder().clearRed(ThresholdSelectors.otsu()).build());
+    }
+
+    @Test
+    public void localStages_areAccepted() {
+        ImagePipeline pipeline = ImagePipeline.builder().gray().build();
+        assertEquals(0, pipeline.getHalo());
+        new TiledProcessor(pipeline);
+    }
+
+    private static void assertRejected(ImagePipeline pipeline) {
+        assertEquals(IStage.HALO_GLOBAL, pipeline.getHalo());
+        try {
+            new TiledProcessor(pipeline);
+            fail("Expected IllegalArgumentException for " + pipeline.getName());
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2019 xuexiangjys(xuexiangjys@163.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.xuexiang.imageprocess.benchmark;
+
+import com.xuexiang.imageprocess.core.backend.ByteImage;
+import com.xuexiang.imageprocess.core.backend.JavaImageBackend;
+import com.xuexiang.imageprocess.core.backend.OpenCVImageBackend;
+
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * 像素数据在Java堆与native Mat之间拷贝的基准测试
+ * <p>
+ * bitmap2Mat/mat2Bitmap依赖Android的Bitmap，无法在JVM上运行；二者的开销主要是整帧像素的JNI拷贝，
+ * 这里用Mat.get/put整帧拷贝来衡量同样的开销，并对比每次新建与复用输出的差异。
+ *
+ * @author xuexiang
+ * @since 2026-10-18 20:30
+ */
+@State(Scope.Thread)
+public class ConversionBenchmark {
+
+    @Param({"640x480", "1920x1080", "4000x3000", "8000x6000"})
+    public String size;
+
+    /**
+     * 1：处理结果（灰度/二值），4：Bitmap的ARGB_8888
+     */
+    @Param({"1", "4"})
+    public int channels;
+
+    private ByteImage mImage;
+    private Mat mMat;
+    private Mat mReusedMat;
+    private ByteImage mReusedImage;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        OpenCVNative.load();
+        int[] wh = SyntheticImages.parseSize(size);
+        mImage = channels == 1 ? gray(SyntheticImages.document(wh[0], wh[1], 3)) : SyntheticImages.document(wh[0], wh[1], channels);
+        mMat = new Mat();
+        OpenCVImageBackend.toMat(mImage, mMat);
+        mReusedMat = new Mat();
+        mReusedImage = new ByteImage();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        mMat.release();
+        mReusedMat.release();
+    }
+
+    /**
+     * 对应bitmap2Mat：每次新建Mat
+     */
+    @Benchmark
+    public Mat heapToMat() {
+        Mat mat = new Mat(mImage.getHeight(), mImage.getWidth(), CvType.CV_8UC(channels));
+        mat.put(0, 0, mImage.getData());
+        mat.release();
+        return mat;
+    }
+
+    /**
+     * 对应bitmap2Mat：复用Mat
+     */
+    @Benchmark
+    public Mat heapToMatReused() {
+        OpenCVImageBackend.toMat(mImage, mReusedMat);
+        return mReusedMat;
+    }
+
+    /**
+     * 对应mat2Bitmap：每次新建像素数组
+     */
+    @Benchmark
+    public byte[] matToHeap() {
+        byte[] data = new byte[mImage.getByteCount()];
+        mMat.get(0, 0, data);
+        return data;
+    }
+
+    /**
+     * 对应mat2Bitmap：复用像素数组
+     */
+    @Benchmark
+    public ByteImage matToHeapReused() {
+        OpenCVImageBackend.toByteImage(mMat, mReusedImage);
+        return mReusedImage;
+    }
+
+    private static ByteImage gray(ByteImage bgr) {
+        ByteImage gray = new ByteImage();
+        new JavaImageBackend().grayScale(bgr, gray);
+        return gray;
+    }
+}
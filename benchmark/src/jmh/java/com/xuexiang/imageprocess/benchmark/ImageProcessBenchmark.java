@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2019 xuexiangjys(xuexiangjys@163.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.xuexiang.imageprocess.benchmark;
+
+import com.xuexiang.imageprocess.core.backend.ByteImage;
+import com.xuexiang.imageprocess.core.backend.IImageBackend;
+import com.xuexiang.imageprocess.core.backend.JavaImageBackend;
+import com.xuexiang.imageprocess.core.backend.OpenCVImageBackend;
+
+import org.opencv.core.Mat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * ImageProcessUtils各基础操作的基准测试，分别运行OpenCV后端（即ImageProcessUtils的实现）和纯Java后端
+ * <p>
+ * 输出Mat/ByteImage在迭代间复用，与ImageProcessUtils从MatPool获取输出的行为一致。
+ *
+ * @author xuexiang
+ * @since 2026-10-18 20:20
+ */
+@State(Scope.Thread)
+public class ImageProcessBenchmark {
+
+    private static final double THRESH = 125;
+    private static final double MAX_VALUE = 255;
+    private static final double COLOUR_SPREAD = 48;
+    private static final int BLUE_CHANNEL_INDEX = 0;
+    private static final int RED_CHANNEL_INDEX = 2;
+
+    /**
+     * VGA、1080P、12MP、48MP
+     */
+    @Param({"640x480", "1920x1080", "4000x3000", "8000x6000"})
+    public String size;
+
+    /**
+     * BGR（imread）、BGRA（bitmap2Mat）
+     */
+    @Param({"3", "4"})
+    public int channels;
+
+    @Param({"opencv", "java"})
+    public String backend;
+
+    private IImageBackend<Object> mBackend;
+    private Object mSrc;
+    private Object mDst;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        int[] wh = SyntheticImages.parseSize(size);
+        ByteImage image = SyntheticImages.document(wh[0], wh[1], channels);
+        if ("opencv".equals(backend)) {
+            OpenCVNative.load();
+            Mat src = new Mat();
+            OpenCVImageBackend.toMat(image, src);
+            mSrc = src;
+            mDst = new Mat();
+            mBackend = (IImageBackend<Object>) (IImageBackend<?>) new OpenCVImageBackend();
+        } else {
+            mSrc = image;
+            mDst = new ByteImage();
+            mBackend = (IImageBackend<Object>) (IImageBackend<?>) new JavaImageBackend();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (mSrc instanceof Mat) {
+            ((Mat) mSrc).release();
+            ((Mat) mDst).release();
+        }
+    }
+
+    @Benchmark
+    public Object grayScale() {
+        mBackend.grayScale(mSrc, mDst);
+        return mDst;
+    }
+
+    @Benchmark
+    public Object binary() {
+        mBackend.binary(mSrc, mDst, THRESH, MAX_VALUE);
+        return mDst;
+    }
+
+    @Benchmark
+    public Object clearRed() {
+        mBackend.clearColor(mSrc, mDst, RED_CHANNEL_INDEX, THRESH, MAX_VALUE);
+        return mDst;
+    }
+
+    @Benchmark
+    public Object clearBlue() {
+        mBackend.clearColor(mSrc, mDst, BLUE_CHANNEL_INDEX, THRESH, MAX_VALUE);
+        return mDst;
+    }
+
+    @Benchmark
+    public Object clearColour() {
+        mBackend.clearColour(mSrc, mDst, THRESH, COLOUR_SPREAD, MAX_VALUE);
+        return mDst;
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright (C) 2019 xuexiangjys(xuexiangjys@163.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.xuexiang.imageprocess.benchmark;
+
+/**
+ * 加载桌面版OpenCV的native库
+ *
+ * @author xuexiang
+ * @since 2026-10-18 20:35
+ */
+final class OpenCVNative {
+
+    private static boolean sLoaded;
+
+    private OpenCVNative() {
+        throw new UnsupportedOperationException("u can't instantiate me...");
+    }
+
+    static synchronized void load() {
+        if (!sLoaded) {
+            nu.pattern.OpenCV.loadLocally();
+            sLoaded = true;
+        }
+    }
+}
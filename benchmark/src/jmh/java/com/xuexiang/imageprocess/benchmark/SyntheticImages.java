@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2019 xuexiangjys(xuexiangjys@163.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.xuexiang.imageprocess.benchmark;
+
+import com.xuexiang.imageprocess.core.backend.ByteImage;
+
+import java.util.Random;
+
+/**
+ * 生成模拟扫描件的测试图片：带噪点的白纸、黑色文字笔画、红色印章和蓝色签名
+ *
+ * @author xuexiang
+ * @since 2026-10-18 20:10
+ */
+final class SyntheticImages {
+
+    private static final long SEED = 20191024L;
+
+    private SyntheticImages() {
+        throw new UnsupportedOperationException("u can't instantiate me...");
+    }
+
+    /**
+     * 解析"宽x高"格式的尺寸
+     */
+    static int[] parseSize(String size) {
+        String[] parts = size.split("x");
+        return new int[]{Integer.parseInt(parts[0]), Integer.parseInt(parts[1])};
+    }
+
+    /**
+     * 生成BGR/BGRA的模拟文档
+     *
+     * @param width    宽
+     * @param height   高
+     * @param channels 3或4
+     * @return
+     */
+    static ByteImage document(int width, int height, int channels) {
+        ByteImage image = new ByteImage(width, height, channels);
+        byte[] data = image.getData();
+        Random random = new Random(SEED);
+        int lineHeight = Math.max(8, height / 60);
+        int stampX = width * 3 / 4;
+        int stampY = height * 3 / 4;
+        int stampRadius = Math.max(10, Math.min(width, height) / 8);
+        for (int y = 0; y < height; y++) {
+            boolean textRow = (y % lineHeight) < lineHeight / 3;
+            for (int x = 0; x < width; x++) {
+                int b = 235 + random.nextInt(20);
+                int g = b;
+                int r = b;
+                if (textRow && (x / 7) % 3 != 0 && random.nextInt(4) != 0) {
+                    //黑色文字
+                    b = g = r = 20 + random.nextInt(40);
+                }
+                int dx = x - stampX;
+                int dy = y - stampY;
+                int distance = dx * dx + dy * dy;
+                if (distance < stampRadius * stampRadius && distance > (stampRadius - 6) * (stampRadius - 6)) {
+                    //红色印章
+                    b = 40;
+                    g = 40;
+                    r = 200 + random.nextInt(40);
+                } else if (y > height / 10 && y < height / 10 + 4 && x > width / 10 && x < width / 3) {
+                    //蓝色签名
+                    b = 140;
+                    g = 50;
+                    r = 30;
+                }
+                int offset = (y * width + x) * channels;
+                data[offset] = (byte) b;
+                data[offset + 1] = (byte) g;
+                data[offset + 2] = (byte) r;
+                if (channels == 4) {
+                    data[offset + 3] = (byte) 255;
+                }
+            }
+        }
+        return image;
+    }
+}